@@ -32,8 +32,12 @@ package org.pushingpixels.flamingo.api.bcb.core;
 import org.pushingpixels.flamingo.api.bcb.*;
 import org.pushingpixels.flamingo.api.common.StringValuePair;
 
+import javax.swing.Icon;
 import javax.swing.filechooser.FileSystemView;
 import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 
 /**
@@ -48,6 +52,16 @@ public class BreadcrumbFileSelector extends JBreadcrumbBar<File> {
      */
     private boolean useNativeIcons;
 
+    /**
+     * Maximum number of cached directory listings.
+     */
+    private static final int MAX_CACHED_LISTINGS = 32;
+
+    /**
+     * Directory listings shared by all file selectors.
+     */
+    private static final ListingCache listingCache = new ListingCache();
+
     /**
      * Local file system specific implementation of the
      * {@link BreadcrumbBarCallBack}.
@@ -82,129 +96,158 @@ public class BreadcrumbFileSelector extends JBreadcrumbBar<File> {
 
         @Override
         public List<StringValuePair<File>> getPathChoices(List<BreadcrumbItem<File>> path) {
-            synchronized (fsv) {
-                if (path == null) {
-                    LinkedList<StringValuePair<File>> bRoots = new LinkedList<>();
-                    for (File root : fsv.getRoots()) {
-                        if (fsv.isHiddenFile(root)) {
-                            continue;
-                        }
-                        String systemName = fsv.getSystemDisplayName(root);
-                        if (systemName.length() == 0) {
-                            systemName = root.getAbsolutePath();
-                        }
-                        StringValuePair<File> rootPair = new StringValuePair<>(systemName, root);
-                        if (useNativeIcons) {
-                            rootPair.set("icon", fsv.getSystemIcon(root));
-                        }
-                        bRoots.add(rootPair);
-                    }
-                    return bRoots;
-                }
-                if (path.size() == 0) {
-                    return null;
-                }
-                File lastInPath = path.get(path.size() - 1).getData();
-
-                if (!lastInPath.exists()) {
-                    return new ArrayList<>();
-                }
-                if (!lastInPath.isDirectory()) {
-                    return null;
-                }
-                LinkedList<StringValuePair<File>> lResult = new LinkedList<>();
-                for (File child : lastInPath.listFiles()) {
-                    // ignore regular files and hidden directories
-                    if (!child.isDirectory()) {
+            if (path == null) {
+                LinkedList<StringValuePair<File>> bRoots = new LinkedList<>();
+                for (File root : fsv.getRoots()) {
+                    if (fsv.isHiddenFile(root)) {
                         continue;
                     }
-                    if (fsv.isHiddenFile(child)) {
-                        continue;
-                    }
-                    String childFileName = fsv.getSystemDisplayName(child);
-                    if ((childFileName == null) || childFileName.isEmpty()) {
-                        childFileName = child.getName();
+                    String systemName = fsv.getSystemDisplayName(root);
+                    if (systemName.length() == 0) {
+                        systemName = root.getAbsolutePath();
                     }
-                    StringValuePair<File> pair = new StringValuePair<>(childFileName, child);
+                    StringValuePair<File> rootPair = new StringValuePair<>(systemName, root);
                     if (useNativeIcons) {
-                        pair.set("icon", fsv.getSystemIcon(child));
+                        rootPair.set("icon", fsv.getSystemIcon(root));
                     }
-                    lResult.add(pair);
+                    bRoots.add(rootPair);
                 }
-                Collections.sort(lResult,
-                        new Comparator<StringValuePair<File>>() {
-                            @Override
-                            public int compare(StringValuePair<File> o1,
-                                    StringValuePair<File> o2) {
-                                String key1 = fsv.isFileSystemRoot(o1
-                                        .getValue()) ? o1.getValue()
-                                        .getAbsolutePath() : o1.getKey();
-                                String key2 = fsv.isFileSystemRoot(o2
-                                        .getValue()) ? o2.getValue()
-                                        .getAbsolutePath() : o2.getKey();
-                                return key1.toLowerCase().compareTo(
-                                        key2.toLowerCase());
-                            }
-
-                            @Override
-                            public boolean equals(Object obj) {
-                                return super.equals(obj);
-                            }
-                        });
-                return lResult;
+                return bRoots;
             }
+            if (path.size() == 0) {
+                return null;
+            }
+            DirectoryListing listing = this.getListing(path.get(path.size() - 1).getData());
+            return (listing == null) ? null : this.toPairs(listing.directories);
         }
 
         @Override
         public List<StringValuePair<File>> getLeafs(List<BreadcrumbItem<File>> path) {
-            synchronized (fsv) {
-                if ((path == null) || (path.size() == 0)) {
-                    return null;
-                }
-                File lastInPath = path.get(path.size() - 1).getData();
-                if (!lastInPath.exists()) {
-                    return new ArrayList<>();
+            if ((path == null) || (path.size() == 0)) {
+                return null;
+            }
+            DirectoryListing listing = this.getListing(path.get(path.size() - 1).getData());
+            return (listing == null) ? null : this.toPairs(listing.files);
+        }
+
+        /**
+         * Returns the listing of the specified directory. Listings of file system directories
+         * are shared between all file selectors that use the same file system view, and are
+         * kept until the directory contents change.
+         *
+         * @param dir Directory.
+         * @return The listing of the specified directory, <code>null</code> if it is not a
+         * directory, or an empty listing if the directory does not exist.
+         */
+        private DirectoryListing getListing(File dir) {
+            Path dirPath = this.toPath(dir);
+            if (dirPath == null) {
+                // virtual folder of the file system view
+                DirectoryListing listing = new DirectoryListing(null);
+                if (!dir.exists()) {
+                    return listing;
                 }
-                if (!lastInPath.isDirectory()) {
+                if (!dir.isDirectory()) {
                     return null;
                 }
-                LinkedList<StringValuePair<File>> lResult = new LinkedList<>();
-                for (File child : lastInPath.listFiles()) {
-                    // ignore directories and hidden directories
-                    if (child.isDirectory()) {
-                        continue;
-                    }
-                    if (fsv.isHiddenFile(child)) {
-                        continue;
+                File[] children = dir.listFiles();
+                if (children != null) {
+                    for (File child : children) {
+                        listing.add(fsv, child, child.isDirectory());
                     }
-                    String childFileName = fsv.getSystemDisplayName(child);
-                    if ((childFileName == null) || childFileName.isEmpty()) {
-                        childFileName = child.getName();
+                }
+                listing.sort();
+                return listing;
+            }
+
+            BasicFileAttributes dirAttributes;
+            try {
+                dirAttributes = Files.readAttributes(dirPath, BasicFileAttributes.class);
+            } catch (IOException ioe) {
+                return new DirectoryListing(null);
+            }
+            if (!dirAttributes.isDirectory()) {
+                return null;
+            }
+
+            FileTime lastModified = dirAttributes.lastModifiedTime();
+            DirectoryListing listing = listingCache.get(fsv, dir, lastModified);
+            if (listing != null) {
+                return listing;
+            }
+
+            // start watching the directory before listing it, so that the changes
+            // made while it is being listed are not lost
+            WatchKey watchKey = listingCache.watch(dirPath);
+            listing = new DirectoryListing(lastModified);
+            Exception failure = null;
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dirPath)) {
+                for (Path childPath : children) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // the breadcrumb bar has moved on to another path
+                        break;
                     }
-                    StringValuePair<File> pair = new StringValuePair<>(childFileName, child);
-                    if (useNativeIcons) {
-                        pair.set("icon", fsv.getSystemIcon(child));
+                    // the attributes of the directory entries come with the
+                    // listing on some platforms, so this usually does not go
+                    // back to the file system
+                    boolean isDirectory;
+                    try {
+                        isDirectory = Files.readAttributes(childPath,
+                                BasicFileAttributes.class).isDirectory();
+                    } catch (IOException ioe) {
+                        isDirectory = false;
                     }
-                    lResult.add(pair);
+                    listing.add(fsv, childPath.toFile(), isDirectory);
                 }
-                Collections.sort(lResult,
-                        new Comparator<StringValuePair<File>>() {
-                            @Override
-                            public int compare(StringValuePair<File> o1,
-                                    StringValuePair<File> o2) {
-                                return o1.getKey().toLowerCase().compareTo(
-                                        o2.getKey().toLowerCase());
-                            }
-
-                            @Override
-                            public boolean equals(Object obj) {
-                                return super.equals(obj);
-                            }
-                        });
-                return lResult;
+                listing.isComplete = !Thread.currentThread().isInterrupted();
+            } catch (IOException | DirectoryIteratorException exc) {
+                failure = exc;
+            }
+            listing.sort();
+            // incomplete listings are not cached
+            listingCache.put(fsv, dir, listing, watchKey);
+            if ((failure != null) && throwsExceptions) {
+                throw new BreadcrumbBarException(failure);
+            }
+            return listing;
+        }
+
+        /**
+         * Returns the path of the specified file, or <code>null</code> if the file is a
+         * virtual folder of the file system view.
+         *
+         * @param file File.
+         * @return The path of the specified file.
+         */
+        private Path toPath(File file) {
+            if (!fsv.isFileSystem(file)) {
+                return null;
+            }
+            try {
+                return file.toPath();
+            } catch (InvalidPathException ipe) {
+                return null;
             }
         }
 
+        /**
+         * Converts the specified listing entries to breadcrumb bar choices.
+         *
+         * @param entries Listing entries.
+         * @return Breadcrumb bar choices.
+         */
+        private List<StringValuePair<File>> toPairs(List<ListingEntry> entries) {
+            List<StringValuePair<File>> result = new ArrayList<>(entries.size());
+            for (ListingEntry entry : entries) {
+                StringValuePair<File> pair = new StringValuePair<>(entry.displayName, entry.file);
+                if (useNativeIcons) {
+                    pair.set("icon", entry.getIcon(fsv));
+                }
+                result.add(pair);
+            }
+            return result;
+        }
+
         @Override
         public InputStream getLeafContent(File leaf) {
             try {
@@ -215,6 +258,282 @@ public class BreadcrumbFileSelector extends JBreadcrumbBar<File> {
         }
     }
 
+    /**
+     * Single entry of a directory listing.
+     *
+     * @author Kirill Grouchnikov
+     */
+    private static final class ListingEntry {
+        private final File file;
+
+        private final String displayName;
+
+        /**
+         * Key for sorting the entries of the listing, computed once when the entry is
+         * created.
+         */
+        private final String sortKey;
+
+        private volatile Icon icon;
+
+        private volatile boolean hasIcon;
+
+        private ListingEntry(File file, String displayName, String sortKey) {
+            this.file = file;
+            this.displayName = displayName;
+            this.sortKey = sortKey;
+        }
+
+        /**
+         * Returns the system icon of this entry. The icon is looked up on the first call.
+         *
+         * @param fsv File system view.
+         * @return The system icon of this entry.
+         */
+        private Icon getIcon(FileSystemView fsv) {
+            if (!this.hasIcon) {
+                this.icon = fsv.getSystemIcon(this.file);
+                this.hasIcon = true;
+            }
+            return this.icon;
+        }
+    }
+
+    /**
+     * Sorted listing of the visible subdirectories and files of a single directory.
+     *
+     * @author Kirill Grouchnikov
+     */
+    private static final class DirectoryListing {
+        private final List<ListingEntry> directories = new ArrayList<>();
+
+        private final List<ListingEntry> files = new ArrayList<>();
+
+        /**
+         * Modification time of the directory at the time it was listed. Is <code>null</code>
+         * for listings that are not cached.
+         */
+        private final FileTime lastModified;
+
+        /**
+         * Indicates whether all the directory entries have been listed.
+         */
+        private boolean isComplete;
+
+        /**
+         * Watch key of the listed directory. Is only set on cached listings.
+         */
+        private WatchKey watchKey;
+
+        private DirectoryListing(FileTime lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        private void add(FileSystemView fsv, File child, boolean isDirectory) {
+            if (fsv.isHiddenFile(child)) {
+                return;
+            }
+            String displayName = fsv.getSystemDisplayName(child);
+            if ((displayName == null) || displayName.isEmpty()) {
+                displayName = child.getName();
+            }
+            if (isDirectory) {
+                String sortKey = fsv.isFileSystemRoot(child) ? child.getAbsolutePath()
+                        : displayName;
+                this.directories.add(new ListingEntry(child, displayName,
+                        sortKey.toLowerCase()));
+            } else {
+                this.files.add(new ListingEntry(child, displayName,
+                        displayName.toLowerCase()));
+            }
+        }
+
+        private void sort() {
+            Comparator<ListingEntry> comparator = (ListingEntry e1, ListingEntry e2) ->
+                    e1.sortKey.compareTo(e2.sortKey);
+            this.directories.sort(comparator);
+            this.files.sort(comparator);
+        }
+    }
+
+    /**
+     * Cache of directory listings. A cached listing is dropped when the file system reports a
+     * change in its directory, or when the modification time of its directory changes. The
+     * latter covers file systems that do not report changes, such as some network shares.
+     *
+     * @author Kirill Grouchnikov
+     */
+    private static final class ListingCache {
+        /**
+         * Key of a cached listing. The display names and icons in the listing depend on the
+         * file system view.
+         */
+        private static final class Key {
+            private final FileSystemView fsv;
+
+            private final File dir;
+
+            private Key(FileSystemView fsv, File dir) {
+                this.fsv = fsv;
+                this.dir = dir;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (!(obj instanceof Key)) {
+                    return false;
+                }
+                Key other = (Key) obj;
+                return (this.fsv == other.fsv) && this.dir.equals(other.dir);
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * System.identityHashCode(this.fsv) + this.dir.hashCode();
+            }
+        }
+
+        private final Map<Key, DirectoryListing> listings = new LinkedHashMap<Key,
+                DirectoryListing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, DirectoryListing> eldest) {
+                if (this.size() > MAX_CACHED_LISTINGS) {
+                    unwatch(eldest.getKey(), eldest.getValue().watchKey);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        /**
+         * The keys of the cached listings of each watched directory.
+         */
+        private final Map<WatchKey, Set<Key>> watchedDirs = new HashMap<>();
+
+        private WatchService watchService;
+
+        private boolean isWatchServiceAvailable = true;
+
+        /**
+         * Returns the cached listing of the specified directory.
+         *
+         * @param fsv          File system view.
+         * @param dir          Directory.
+         * @param lastModified Current modification time of the directory.
+         * @return The cached listing of the specified directory, or <code>null</code> if
+         * there is no up to date cached listing.
+         */
+        private synchronized DirectoryListing get(FileSystemView fsv, File dir,
+                FileTime lastModified) {
+            Key key = new Key(fsv, dir);
+            DirectoryListing listing = this.listings.get(key);
+            if ((listing != null) && !listing.lastModified.equals(lastModified)) {
+                this.listings.remove(key);
+                this.unwatch(key, listing.watchKey);
+                return null;
+            }
+            return listing;
+        }
+
+        /**
+         * Starts watching the specified directory for changes.
+         *
+         * @param dirPath Directory.
+         * @return Watch key of the directory, or <code>null</code> if the directory can not
+         * be watched. In this case listings of the directory are not cached.
+         */
+        private synchronized WatchKey watch(Path dirPath) {
+            if (this.isWatchServiceAvailable && (this.watchService == null)) {
+                try {
+                    this.watchService = FileSystems.getDefault().newWatchService();
+                } catch (IOException | UnsupportedOperationException exc) {
+                    this.isWatchServiceAvailable = false;
+                    return null;
+                }
+                Thread watchThread = new Thread(this::processEvents,
+                        "BreadcrumbFileSelector directory watcher");
+                watchThread.setDaemon(true);
+                watchThread.start();
+            }
+            if (this.watchService == null) {
+                return null;
+            }
+            try {
+                return dirPath.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException | RuntimeException exc) {
+                return null;
+            }
+        }
+
+        /**
+         * Caches the specified listing if it is complete and its directory is still watched.
+         * Otherwise, stops watching the directory unless it has cached listings.
+         *
+         * @param fsv      File system view.
+         * @param dir      Directory.
+         * @param listing  Directory listing.
+         * @param watchKey Watch key of the directory. May be <code>null</code>.
+         */
+        private synchronized void put(FileSystemView fsv, File dir, DirectoryListing listing,
+                WatchKey watchKey) {
+            if (watchKey == null) {
+                return;
+            }
+            if (!listing.isComplete || !watchKey.isValid()) {
+                // the directory may already be registered for a cached listing, in which
+                // case the watch key is shared with that listing
+                if (!this.watchedDirs.containsKey(watchKey)) {
+                    watchKey.cancel();
+                }
+                return;
+            }
+            Key key = new Key(fsv, dir);
+            listing.watchKey = watchKey;
+            DirectoryListing previous = this.listings.put(key, listing);
+            if ((previous != null) && (previous.watchKey != watchKey)) {
+                this.unwatch(key, previous.watchKey);
+            }
+            this.watchedDirs.computeIfAbsent(watchKey, (WatchKey wk) -> new HashSet<>())
+                    .add(key);
+        }
+
+        private void unwatch(Key key, WatchKey watchKey) {
+            Set<Key> keys = this.watchedDirs.get(watchKey);
+            if (keys != null) {
+                keys.remove(key);
+                if (!keys.isEmpty()) {
+                    return;
+                }
+                this.watchedDirs.remove(watchKey);
+            }
+            watchKey.cancel();
+        }
+
+        private void processEvents() {
+            while (true) {
+                WatchKey watchKey;
+                try {
+                    watchKey = this.watchService.take();
+                } catch (InterruptedException | ClosedWatchServiceException exc) {
+                    return;
+                }
+                watchKey.pollEvents();
+                synchronized (this) {
+                    // any change drops all the listings of the directory. The directory
+                    // is watched again the next time it is listed
+                    Set<Key> keys = this.watchedDirs.remove(watchKey);
+                    if (keys != null) {
+                        for (Key key : keys) {
+                            this.listings.remove(key);
+                        }
+                    }
+                    watchKey.cancel();
+                }
+            }
+        }
+    }
+
     /**
      * Creates a new breadcrumb bar file selector that uses native icons and the
      * default file system view.
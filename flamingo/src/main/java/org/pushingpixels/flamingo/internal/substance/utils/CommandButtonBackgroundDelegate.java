@@ -76,7 +76,8 @@ public class CommandButtonBackgroundDelegate {
      * @param height                 Button height.
      * @param stateTransitionTracker State transition tracker.
      * @param ignoreSelections       If true, selection state will be ignored.
-     * @return Button background.
+     * @return Button background. During state transitions this is a pooled scratch image that
+     * is only valid until the next call on the same thread and must not be retained.
      */
     @SuppressWarnings("incomplete-switch")
     public static BufferedImage getFullAlphaBackground(AbstractCommandButton commandButton,
@@ -151,27 +152,29 @@ public class CommandButtonBackgroundDelegate {
             }
         }
 
-        HashMapKey baseKey = SubstanceCoreUtilities.getHashKey(currState, width, height,
-                baseFillScheme.getDisplayName(), baseBorderScheme.getDisplayName(),
-                fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                commandButton.getClass().getName(), radius, straightSides,
-                SubstanceSizeUtils.getComponentFontSize(commandButton), locationOrderKind, dx, dy,
-                dw, dh, isVertical);
+        TypedHashMapKey baseKey = TypedHashMapKey.lookup().with(currState).with(width)
+                .with(height).with(baseFillScheme.getDisplayName())
+                .with(baseBorderScheme.getDisplayName()).with(fillPainter.getDisplayName())
+                .with(borderPainter.getDisplayName()).with(commandButton.getClass().getName())
+                .with(radius).withSides(straightSides)
+                .with(SubstanceSizeUtils.getComponentFontSize(commandButton))
+                .with(locationOrderKind).with(dx).with(dy).with(dw).with(dh).with(isVertical);
 
         BufferedImage baseLayer = imageCache.get(baseKey);
         if (baseLayer == null) {
+            HashMapKey storedBaseKey = baseKey.copy();
             baseLayer = getSingleLayer(commandButton, fillPainter, borderPainter, width, height,
                     baseFillScheme, baseBorderScheme, radius, straightSides, locationOrderKind, dx,
                     dy, dw, dh, isVertical);
 
-            imageCache.put(baseKey, baseLayer);
+            imageCache.put(storedBaseKey, baseLayer);
         }
 
         if (currState.isDisabled() || (activeStates == null) || (activeStates.size() == 1)) {
             return baseLayer;
         }
 
-        BufferedImage result = SubstanceCoreUtilities.getBlankImage(width, height);
+        BufferedImage result = ScratchImagePool.getBlankImage(width, height);
         Graphics2D g2d = result.createGraphics();
 
         NeonCortex.drawImage(g2d, baseLayer, 0, 0);
@@ -193,20 +196,23 @@ public class CommandButtonBackgroundDelegate {
             SubstanceColorScheme borderScheme = SubstanceColorSchemeUtilities
                     .getColorScheme(commandButton, ColorSchemeAssociationKind.BORDER, activeState);
 
-            HashMapKey key = SubstanceCoreUtilities.getHashKey(activeState, width, height,
-                    fillScheme.getDisplayName(), borderScheme.getDisplayName(),
-                    fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                    commandButton.getClass().getName(), radius, straightSides,
-                    SubstanceSizeUtils.getComponentFontSize(commandButton), locationOrderKind, dx,
-                    dy, dw, dh, isVertical);
+            TypedHashMapKey key = TypedHashMapKey.lookup().with(activeState).with(width)
+                    .with(height).with(fillScheme.getDisplayName())
+                    .with(borderScheme.getDisplayName()).with(fillPainter.getDisplayName())
+                    .with(borderPainter.getDisplayName())
+                    .with(commandButton.getClass().getName()).with(radius).withSides(straightSides)
+                    .with(SubstanceSizeUtils.getComponentFontSize(commandButton))
+                    .with(locationOrderKind).with(dx).with(dy).with(dw).with(dh)
+                    .with(isVertical);
 
             BufferedImage layer = imageCache.get(key);
             if (layer == null) {
+                HashMapKey storedKey = key.copy();
                 layer = getSingleLayer(commandButton, fillPainter, borderPainter, width, height,
                         fillScheme, borderScheme, radius, straightSides, locationOrderKind, dx, dy,
                         dw, dh, isVertical);
 
-                imageCache.put(key, layer);
+                imageCache.put(storedKey, layer);
             }
 
             g2d.setComposite(AlphaComposite.SrcOver.derive(contribution));
@@ -589,6 +589,13 @@ public abstract class BasicRibbonUI extends RibbonUI {
      * @author Kirill Grouchnikov
      */
     private class BandHostPanelLayout implements LayoutManager {
+        /**
+         * Cached preferred widths of the resize policies of ribbon bands. Bands
+         * that are no longer in the ribbon are dropped by the garbage collector.
+         */
+        private final Map<AbstractRibbonBand, BandPolicyWidths> policyWidthsCache =
+                new WeakHashMap<>();
+
         @Override
         public void addLayoutComponent(String name, Component c) {
         }
@@ -666,89 +673,52 @@ public abstract class BasicRibbonUI extends RibbonUI {
                 return;
             }
 
-            // check that the resize policies are still consistent
+            int availableBandHeight = c.getHeight();
+            int availableWidth = c.getWidth();
+
+            // get the preferred widths of all resize policies of all bands.
+            // This also checks that the resize policies are still consistent
+            // for the bands that had their content changed
+            Map<AbstractRibbonBand, BandPolicyWidths> bandWidths = new IdentityHashMap<>();
             for (AbstractRibbonBand band : selectedTask.getBands()) {
-                FlamingoUtilities.checkResizePoliciesConsistency(band);
+                bandWidths.put(band, getPolicyWidths(band, availableBandHeight));
             }
 
             // start with the most "permissive" resize policy for each band
+            Map<AbstractRibbonBand, Integer> policyIndices = new IdentityHashMap<>();
+            int totalWidth = 0;
+            int bandsWithMoreToGive = 0;
             for (AbstractRibbonBand band : selectedTask.getBands()) {
                 List<RibbonBandResizePolicy> policies = band.getResizePolicies();
                 RibbonBandResizePolicy last = policies.get(0);
                 band.setCurrentResizePolicy(last);
+                policyIndices.put(band, 0);
+                totalWidth += bandWidths.get(band).widths[0] + bandGap;
+                if (policies.size() > 1) {
+                    bandsWithMoreToGive++;
+                }
             }
 
-            int availableBandHeight = c.getHeight();
-            int availableWidth = c.getWidth();
             if (selectedTask.getBandCount() > 0) {
                 RibbonBandResizeSequencingPolicy resizeSequencingPolicy = selectedTask
                         .getResizeSequencingPolicy();
                 resizeSequencingPolicy.reset();
                 AbstractRibbonBand currToTakeFrom = resizeSequencingPolicy.next();
-                while (true) {
-                    // check whether all bands have the current resize
-                    // policy as their last (most restrictive) registered policy
-                    boolean noMore = true;
-                    for (AbstractRibbonBand band : selectedTask.getBands()) {
-                        RibbonBandResizePolicy currentResizePolicy = band.getCurrentResizePolicy();
-                        List<RibbonBandResizePolicy> resizePolicies = band.getResizePolicies();
-                        if (currentResizePolicy != resizePolicies.get(resizePolicies.size() - 1)) {
-                            noMore = false;
-                            break;
-                        }
-                    }
-                    if (noMore) {
-                        break;
-                    }
-
-                    // get the current preferred width of the bands
-                    int totalWidth = 0;
-                    // System.out.println("Iteration");
-                    for (AbstractRibbonBand ribbonBand : selectedTask.getBands()) {
-                        RibbonBandResizePolicy currentResizePolicy = ribbonBand
-                                .getCurrentResizePolicy();
-
-                        Insets ribbonBandInsets = ribbonBand.getInsets();
-                        AbstractBandControlPanel controlPanel = ribbonBand.getControlPanel();
-                        if (controlPanel == null) {
-                            controlPanel = ribbonBand.getPopupRibbonBand().getControlPanel();
-                        }
-                        Insets controlPanelInsets = controlPanel.getInsets();
-                        int controlPanelGap = controlPanel.getUI().getLayoutGap();
-                        int ribbonBandHeight = availableBandHeight - ribbonBandInsets.top
-                                - ribbonBandInsets.bottom;
-                        int availableHeight = ribbonBandHeight
-                                - ribbonBand.getUI().getBandTitleHeight();
-                        if (controlPanel != null) {
-                            availableHeight = availableHeight - controlPanelInsets.top
-                                    - controlPanelInsets.bottom;
-                        }
-                        int preferredWidth = currentResizePolicy.getPreferredWidth(availableHeight,
-                                controlPanelGap) + ribbonBandInsets.left + ribbonBandInsets.right;
-                        totalWidth += preferredWidth + bandGap;
-                        // System.out.println("\t"
-                        // + ribbonBand.getTitle()
-                        // + ":"
-                        // + currentResizePolicy.getClass()
-                        // .getSimpleName() + ":" + preferredWidth
-                        // + " under " + availableHeight + " with "
-                        // + controlPanel.getComponentCount()
-                        // + " children");
-                    }
-                    // System.out.println("\t:Total:" + totalWidth + "("
-                    // + availableWidth + ")");
-                    // System.out.println("\n");
-                    if (totalWidth < availableWidth) {
-                        break;
-                    }
-
+                // Walk the resizing sequence. The total width is updated with the
+                // cached width of the band that changed its policy, so that each
+                // step takes constant time
+                while ((bandsWithMoreToGive > 0) && (totalWidth >= availableWidth)) {
                     // try to take from the currently rotating band
                     List<RibbonBandResizePolicy> policies = currToTakeFrom.getResizePolicies();
-                    int currPolicyIndex = policies.indexOf(currToTakeFrom.getCurrentResizePolicy());
-                    if (currPolicyIndex == (policies.size() - 1)) {
-                        // nothing to take
-                    } else {
+                    Integer currPolicyIndex = policyIndices.get(currToTakeFrom);
+                    if ((currPolicyIndex != null) && (currPolicyIndex < policies.size() - 1)) {
+                        int[] widths = bandWidths.get(currToTakeFrom).widths;
                         currToTakeFrom.setCurrentResizePolicy(policies.get(currPolicyIndex + 1));
+                        policyIndices.put(currToTakeFrom, currPolicyIndex + 1);
+                        totalWidth += widths[currPolicyIndex + 1] - widths[currPolicyIndex];
+                        if (currPolicyIndex + 1 == policies.size() - 1) {
+                            bandsWithMoreToGive--;
+                        }
                     }
                     currToTakeFrom = resizeSequencingPolicy.next();
                 }
@@ -758,25 +728,9 @@ public abstract class BasicRibbonUI extends RibbonUI {
             x = ltr ? 1 : c.getWidth() - 1;
             // System.out.println("Will get [" + availableWidth + "]:");
             for (AbstractRibbonBand ribbonBand : selectedTask.getBands()) {
-                Insets ribbonBandInsets = ribbonBand.getInsets();
-                RibbonBandResizePolicy currentResizePolicy = ribbonBand.getCurrentResizePolicy();
-                AbstractBandControlPanel controlPanel = ribbonBand.getControlPanel();
-                if (controlPanel == null) {
-                    controlPanel = ribbonBand.getPopupRibbonBand().getControlPanel();
-                }
-                Insets controlPanelInsets = controlPanel.getInsets();
-                int controlPanelGap = controlPanel.getUI().getLayoutGap();
                 int ribbonBandHeight = availableBandHeight;
-                // - ribbonBandInsets.top - ribbonBandInsets.bottom;
-                int availableHeight = ribbonBandHeight - ribbonBandInsets.top
-                        - ribbonBandInsets.bottom - ribbonBand.getUI().getBandTitleHeight();
-                if (controlPanelInsets != null) {
-                    availableHeight = availableHeight - controlPanelInsets.top
-                            - controlPanelInsets.bottom;
-                }
-
-                int requiredBandWidth = currentResizePolicy.getPreferredWidth(availableHeight,
-                        controlPanelGap) + ribbonBandInsets.left + ribbonBandInsets.right;
+                int requiredBandWidth = bandWidths.get(ribbonBand).widths[policyIndices
+                        .get(ribbonBand)];
 
                 if (ltr) {
                     ribbonBand.setBounds(x, y, requiredBandWidth, ribbonBandHeight);
@@ -785,11 +739,6 @@ public abstract class BasicRibbonUI extends RibbonUI {
                             ribbonBandHeight);
                 }
 
-                // System.out.println("\t" + ribbonBand.getTitle() + ":"
-                // + currentResizePolicy.getClass().getSimpleName() + ":"
-                // + requiredBandWidth + "[insets " + ribbonBandInsets.left + "," +
-                // ribbonBandInsets.right + "] under " + ribbonBandHeight);
-
                 if (ribbonBand.getHeight() > 0) {
                     ribbonBand.doLayout();
                 }
@@ -803,6 +752,88 @@ public abstract class BasicRibbonUI extends RibbonUI {
             }
             // System.out.println();
         }
+
+        /**
+         * Returns the preferred widths of all resize policies of the specified band under the
+         * specified band height. The widths are cached per band, and are only recomputed when
+         * the band height, the resize policies or the band content (tracked by the validity
+         * of the band and its control panel) have changed. This keeps the relayout during
+         * window resizing from querying the resize policies over and over again.
+         *
+         * @param ribbonBand Ribbon band.
+         * @param availableBandHeight Available band height.
+         * @return Preferred widths of all resize policies of the band, including the band
+         * insets.
+         */
+        private BandPolicyWidths getPolicyWidths(AbstractRibbonBand ribbonBand,
+                int availableBandHeight) {
+            Insets ribbonBandInsets = ribbonBand.getInsets();
+            AbstractBandControlPanel controlPanel = ribbonBand.getControlPanel();
+            if (controlPanel == null) {
+                controlPanel = ribbonBand.getPopupRibbonBand().getControlPanel();
+            }
+            Insets controlPanelInsets = controlPanel.getInsets();
+            int controlPanelGap = controlPanel.getUI().getLayoutGap();
+            int availableHeight = availableBandHeight - ribbonBandInsets.top
+                    - ribbonBandInsets.bottom - ribbonBand.getUI().getBandTitleHeight()
+                    - controlPanelInsets.top - controlPanelInsets.bottom;
+            int horizontalInsets = ribbonBandInsets.left + ribbonBandInsets.right;
+            List<RibbonBandResizePolicy> policies = ribbonBand.getResizePolicies();
+
+            BandPolicyWidths cached = this.policyWidthsCache.get(ribbonBand);
+            if ((cached != null) && ribbonBand.isValid() && controlPanel.isValid()
+                    && cached.matches(policies, availableHeight, controlPanelGap,
+                    horizontalInsets)) {
+                return cached;
+            }
+
+            FlamingoUtilities.checkResizePoliciesConsistency(ribbonBand);
+            int[] widths = new int[policies.size()];
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = policies.get(i).getPreferredWidth(availableHeight, controlPanelGap)
+                        + horizontalInsets;
+            }
+            BandPolicyWidths result = new BandPolicyWidths(policies, availableHeight,
+                    controlPanelGap, horizontalInsets, widths);
+            this.policyWidthsCache.put(ribbonBand, result);
+            return result;
+        }
+    }
+
+    /**
+     * Preferred widths of all resize policies of a single ribbon band, along with the
+     * parameters they were computed for.
+     */
+    private static class BandPolicyWidths {
+        private final List<RibbonBandResizePolicy> policies;
+        private final int availableHeight;
+        private final int gap;
+        private final int horizontalInsets;
+        private final int[] widths;
+
+        private BandPolicyWidths(List<RibbonBandResizePolicy> policies, int availableHeight,
+                int gap, int horizontalInsets, int[] widths) {
+            this.policies = new ArrayList<>(policies);
+            this.availableHeight = availableHeight;
+            this.gap = gap;
+            this.horizontalInsets = horizontalInsets;
+            this.widths = widths;
+        }
+
+        private boolean matches(List<RibbonBandResizePolicy> policies, int availableHeight,
+                int gap, int horizontalInsets) {
+            if ((this.availableHeight != availableHeight) || (this.gap != gap)
+                    || (this.horizontalInsets != horizontalInsets)
+                    || (this.policies.size() != policies.size())) {
+                return false;
+            }
+            for (int i = 0; i < policies.size(); i++) {
+                if (this.policies.get(i) != policies.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     protected abstract class TaskToggleButtonsHostPanel extends JPanel {
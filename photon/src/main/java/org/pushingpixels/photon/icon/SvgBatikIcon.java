@@ -29,20 +29,28 @@
  */
 package org.pushingpixels.photon.icon;
 
-import org.apache.batik.bridge.InterruptedBridgeException;
-import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.bridge.*;
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.gvt.CanvasGraphicsNode;
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
 import org.apache.batik.swing.gvt.GVTTreeRenderer;
 import org.apache.batik.swing.gvt.GVTTreeRendererEvent;
 import org.apache.batik.swing.gvt.GVTTreeRendererListener;
-import org.apache.batik.transcoder.TranscoderInput;
 import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.batik.transcoder.image.ImageTranscoder;
 import org.apache.batik.util.EventDispatcher;
 import org.apache.batik.util.EventDispatcher.Dispatcher;
+import org.apache.batik.util.SVGConstants;
 import org.pushingpixels.neon.NeonCortex;
+import org.pushingpixels.photon.icon.SvgRenderingService.RasterKey;
+import org.pushingpixels.photon.icon.SvgRenderingService.RenderRequest;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Dimension2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
@@ -51,20 +59,68 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
- * A Swing Icon that draws an SVG image.
+ * A Swing Icon that draws an SVG image. The SVG content is parsed into a GVT tree once, and
+ * that tree is rendered for every requested size on the shared {@link SvgRenderingService}.
  *
  * @author Cameron McCormack
  * @author Kirill Grouchnikov
  */
 abstract class SvgBatikIcon extends UserAgentAdapter implements Icon {
     /**
-     * Contains all precomputed images.
+     * URI of the SVG document. The SVG content is always loaded from {@link #svgBytes}.
      */
-    protected Map<String, BufferedImage> cachedImages = new HashMap<>();
+    private static final String DOCUMENT_URI = "file:/photon-icon.svg";
+
+    /**
+     * The shared rendering service.
+     */
+    private static final SvgRenderingService renderingService =
+            SvgRenderingService.getInstance();
+
+    /**
+     * ID of this icon in the raster cache of the rendering service.
+     */
+    private final long iconId = renderingService.nextIconId();
+
+    /**
+     * The image for the current size. It is kept here as well as in the raster cache so that
+     * it is not evicted while it is displayed.
+     */
+    private BufferedImage currentImage;
+
+    /**
+     * The key of {@link #currentImage}.
+     */
+    private RasterKey currentImageKey;
+
+    /**
+     * The render that has been scheduled for the current size, or <code>null</code> if there
+     * is none.
+     */
+    private RenderRequest pendingRender;
+
+    /**
+     * Guards the GVT tree. The viewing transform of the tree is updated for every render, so
+     * renders of the same icon are not executed concurrently.
+     */
+    private final Object gvtLock = new Object();
+
+    /**
+     * The bridge context of the GVT tree.
+     */
+    private BridgeContext bridgeContext;
+
+    /**
+     * The root element of the SVG document.
+     */
+    private Element svgRoot;
+
+    /**
+     * The root of the GVT tree, or <code>null</code> if it has not been built yet.
+     */
+    private GraphicsNode gvtRoot;
 
     /**
      * The width of the rendered image.
@@ -86,8 +142,6 @@ abstract class SvgBatikIcon extends UserAgentAdapter implements Icon {
      */
     private List<GVTTreeRendererListener> listeners;
 
-    private static ExecutorService loadService = Executors.newFixedThreadPool(5);
-
     /**
      * Create a new SVG icon.
      *
@@ -183,10 +237,23 @@ abstract class SvgBatikIcon extends UserAgentAdapter implements Icon {
         return height;
     }
 
+    /**
+     * Returns the rendered image for the current size.
+     *
+     * @return The rendered image for the current size, or <code>null</code> if it has not been
+     * rendered yet.
+     */
+    protected synchronized BufferedImage getCurrentImage() {
+        if ((this.currentImageKey == null) || (this.currentImageKey.width != this.width)
+                || (this.currentImageKey.height != this.height)) {
+            return null;
+        }
+        return this.currentImage;
+    }
+
     @Override
     public void paintIcon(Component c, Graphics g, int x, int y) {
-        BufferedImage image = this.cachedImages.get(this.getIconWidth() + ":"
-                + this.getIconHeight());
+        BufferedImage image = this.getCurrentImage();
         if (image != null) {
             double scaleFactor = NeonCortex.getScaleFactor();
             int dx = (int) ((this.width - image.getWidth() / scaleFactor) / 2);
@@ -244,7 +311,9 @@ abstract class SvgBatikIcon extends UserAgentAdapter implements Icon {
     }
 
     /**
-     * Renders the GVT tree.
+     * Renders the GVT tree. The rendered image is looked up in the raster cache of the
+     * rendering service first. Otherwise a render is scheduled, cancelling the pending render
+     * for the previous size if there is one.
      *
      * @param renderWidth  Requested rendering width.
      * @param renderHeight Requested rendering height.
@@ -252,56 +321,172 @@ abstract class SvgBatikIcon extends UserAgentAdapter implements Icon {
      */
     protected synchronized boolean renderGVTTree(final int renderWidth,
             final int renderHeight) {
-        String cacheKey = renderWidth + ":" + renderHeight;
-        if (this.cachedImages.containsKey(cacheKey)) {
+        RasterKey key = new RasterKey(this.iconId, renderWidth, renderHeight,
+                NeonCortex.getScaleFactor());
+        BufferedImage image = key.equals(this.currentImageKey) ? this.currentImage
+                : renderingService.getCachedImage(key);
+        if (image != null) {
+            if (this.pendingRender != null) {
+                renderingService.cancel(this.pendingRender);
+                this.pendingRender = null;
+            }
+            this.currentImage = image;
+            this.currentImageKey = key;
             return true;
         }
 
-        Runnable load = new Runnable() {
-            @Override
-            public void run() {
-                GVTTreeRendererEvent ev = new GVTTreeRendererEvent(this, null);
-                try {
-                    ev = new GVTTreeRendererEvent(this, null);
-                    fireEvent(startedDispatcher, ev);
-
-                    BufferedImageTranscoder t =
-                            new BufferedImageTranscoder((float) NeonCortex.getScaleFactor());
-                    if (renderWidth != 0 && renderHeight != 0) {
-                        t.setDimensions(renderWidth, renderHeight);
-                    }
-
-                    InputStream is = new ByteArrayInputStream(svgBytes);
-                    TranscoderInput ti = new TranscoderInput(is);
-                    t.transcode(ti, null);
-
-                    BufferedImage bufferedImage = t.getBufferedImage();
-                    String key = renderWidth + ":" + renderHeight;
-                    if (bufferedImage != null) {
-                        synchronized (SvgBatikIcon.this) {
-                            cachedImages.put(key, bufferedImage);
-                        }
-
-                        ev = new GVTTreeRendererEvent(this, bufferedImage);
-                        fireEvent(completedDispatcher, ev);
-                    }
-                } catch (InterruptedBridgeException e) {
-                    // this sometimes happens with SVG Fonts since the glyphs
-                    // are not built till the rendering stage
-                    fireEvent(cancelledDispatcher, ev);
-                } catch (ThreadDeath td) {
-                    fireEvent(failedDispatcher, ev);
-                    throw td;
-                } catch (Throwable t) {
-                    fireEvent(failedDispatcher, ev);
-                }
+        if (this.pendingRender != null) {
+            if (this.pendingRender.key.equals(key)) {
+                renderingService.requestCoalesced();
+                return false;
             }
-        };
-        loadService.execute(load);
+            // the previous size is no longer needed
+            renderingService.cancel(this.pendingRender);
+        }
+        this.pendingRender = renderingService.submit(key, this::render);
 
         return false;
     }
 
+    /**
+     * Renders the image for the specified request. Runs on a thread of the rendering service.
+     *
+     * @param request Render request.
+     */
+    private void render(RenderRequest request) {
+        GVTTreeRendererEvent ev = new GVTTreeRendererEvent(this, null);
+        try {
+            fireEvent(startedDispatcher, ev);
+
+            BufferedImage bufferedImage = null;
+            synchronized (this.gvtLock) {
+                if (this.gvtRoot == null) {
+                    this.buildGVTTree();
+                }
+                if (!request.isCancelled()) {
+                    bufferedImage = this.paintGVTTree(request.key);
+                }
+            }
+            if (bufferedImage == null) {
+                fireEvent(cancelledDispatcher, ev);
+                return;
+            }
+
+            renderingService.cacheImage(request.key, bufferedImage);
+            boolean isCurrent;
+            synchronized (this) {
+                isCurrent = (this.pendingRender == request);
+                if (isCurrent) {
+                    this.pendingRender = null;
+                    this.currentImage = bufferedImage;
+                    this.currentImageKey = request.key;
+                }
+            }
+
+            if (isCurrent) {
+                ev = new GVTTreeRendererEvent(this, bufferedImage);
+                fireEvent(completedDispatcher, ev);
+            } else {
+                fireEvent(cancelledDispatcher, ev);
+            }
+        } catch (InterruptedBridgeException e) {
+            // this sometimes happens with SVG Fonts since the glyphs
+            // are not built till the rendering stage
+            this.clearPendingRender(request);
+            fireEvent(cancelledDispatcher, ev);
+        } catch (ThreadDeath td) {
+            this.clearPendingRender(request);
+            fireEvent(failedDispatcher, ev);
+            throw td;
+        } catch (Throwable t) {
+            this.clearPendingRender(request);
+            fireEvent(failedDispatcher, ev);
+        }
+    }
+
+    private synchronized void clearPendingRender(RenderRequest request) {
+        if (this.pendingRender == request) {
+            this.pendingRender = null;
+        }
+    }
+
+    /**
+     * Parses the SVG bytes and builds the GVT tree that is shared by all sizes of this icon.
+     *
+     * @throws IOException in case the SVG content could not be parsed.
+     */
+    private void buildGVTTree() throws IOException {
+        DocumentLoader loader = new DocumentLoader(this);
+        BridgeContext context = new BridgeContext(this, loader);
+        this.setBridgeContext(context);
+
+        Document document = loader.loadDocument(DOCUMENT_URI,
+                new ByteArrayInputStream(this.svgBytes));
+        this.gvtRoot = new GVTBuilder().build(context, document);
+        this.svgRoot = document.getDocumentElement();
+        this.bridgeContext = context;
+    }
+
+    /**
+     * Paints the GVT tree into a new image. The image size and the viewing transform are
+     * computed in the same way as in {@link ImageTranscoder}.
+     *
+     * @param key Key of the image to paint.
+     * @return The painted image.
+     */
+    private BufferedImage paintGVTTree(RasterKey key) {
+        Dimension2D docSize = this.bridgeContext.getDocumentSize();
+        float docWidth = (float) docSize.getWidth();
+        float docHeight = (float) docSize.getHeight();
+        float imageWidth = docWidth;
+        float imageHeight = docHeight;
+        if ((key.width != 0) && (key.height != 0)) {
+            imageWidth = (float) (key.width * key.scaleFactor);
+            imageHeight = (float) (key.height * key.scaleFactor);
+        }
+
+        AffineTransform transform;
+        String viewBox = this.svgRoot.getAttributeNS(null,
+                SVGConstants.SVG_VIEW_BOX_ATTRIBUTE);
+        if (viewBox.length() != 0) {
+            String aspectRatio = this.svgRoot.getAttributeNS(null,
+                    SVGConstants.SVG_PRESERVE_ASPECT_RATIO_ATTRIBUTE);
+            transform = ViewBox.getPreserveAspectRatioTransform(this.svgRoot, viewBox,
+                    aspectRatio, imageWidth, imageHeight, this.bridgeContext);
+        } else {
+            float scale = Math.min(imageWidth / docWidth, imageHeight / docHeight);
+            transform = AffineTransform.getScaleInstance(scale, scale);
+        }
+
+        BufferedImage image = new BufferedImage((int) (imageWidth + 0.5f),
+                (int) (imageHeight + 0.5f), BufferedImage.TYPE_INT_ARGB);
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        Graphics2D g2d = GraphicsUtil.createGraphics(image, hints);
+        CanvasGraphicsNode canvasNode = this.getCanvasGraphicsNode();
+        if (canvasNode != null) {
+            canvasNode.setViewingTransform(transform);
+        } else {
+            g2d.transform(transform);
+        }
+        this.gvtRoot.paint(g2d);
+        g2d.dispose();
+        return image;
+    }
+
+    private CanvasGraphicsNode getCanvasGraphicsNode() {
+        if (!(this.gvtRoot instanceof CompositeGraphicsNode)) {
+            return null;
+        }
+        List<?> children = ((CompositeGraphicsNode) this.gvtRoot).getChildren();
+        if (children.isEmpty() || !(children.get(0) instanceof CanvasGraphicsNode)) {
+            return null;
+        }
+        return (CanvasGraphicsNode) children.get(0);
+    }
+
     /**
      * Adds a {@link GVTTreeRendererListener} to this {@link GVTTreeRenderer}.
      *
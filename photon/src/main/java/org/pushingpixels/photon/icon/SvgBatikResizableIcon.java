@@ -38,7 +38,6 @@ import org.pushingpixels.neon.icon.ResizableIcon;
 
 import javax.swing.event.EventListenerList;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -244,8 +243,6 @@ public class SvgBatikResizableIcon extends SvgBatikIcon implements
 
 	@Override
 	public synchronized boolean isLoading() {
-		String cacheKey = this.getIconWidth() + ":" + this.getIconHeight();
-		BufferedImage image = this.cachedImages.get(cacheKey);
-		return (image == null);
+		return (this.getCurrentImage() == null);
 	}
 }
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2005-2018 Radiance Photon Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Radiance Photon Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.photon.icon;
+
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Shared rendering service for SVG icons. The renders run on a pool of daemon threads, with at
+ * most one pending render per icon. A render request that is superseded by a request for a
+ * different size of the same icon is cancelled, and a repeated request for the size that is
+ * already pending is coalesced into the pending one. Rendered images are kept in a raster cache
+ * that is bounded by the total byte size of the cached images, evicting the least recently used
+ * images first.
+ *
+ * @author Kirill Grouchnikov
+ */
+public final class SvgRenderingService {
+    /**
+     * Default number of rendering threads.
+     */
+    public static final int DEFAULT_THREAD_COUNT = 5;
+
+    /**
+     * Default capacity of the raster cache in bytes.
+     */
+    public static final long DEFAULT_CACHE_CAPACITY = 32L * 1024 * 1024;
+
+    private static final SvgRenderingService instance = new SvgRenderingService();
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Cached images in the least recently used order.
+     */
+    private final LinkedHashMap<RasterKey, BufferedImage> rasterCache;
+
+    private long rasterCacheSize;
+
+    private long rasterCacheCapacity;
+
+    private final AtomicLong nextIconId = new AtomicLong();
+
+    private final AtomicInteger activeRenderCount = new AtomicInteger();
+
+    private final AtomicLong renderCount = new AtomicLong();
+
+    private final AtomicLong totalRenderTime = new AtomicLong();
+
+    private final AtomicLong maxRenderTime = new AtomicLong();
+
+    private final AtomicLong cancelledCount = new AtomicLong();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private long cacheHitCount;
+
+    private long cacheMissCount;
+
+    private SvgRenderingService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(DEFAULT_THREAD_COUNT, DEFAULT_THREAD_COUNT,
+                30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (Runnable r) -> {
+            Thread thread = new Thread(r,
+                    "Photon SVG renderer " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.rasterCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.rasterCacheCapacity = DEFAULT_CACHE_CAPACITY;
+    }
+
+    /**
+     * Returns the shared rendering service.
+     *
+     * @return The shared rendering service.
+     */
+    public static SvgRenderingService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the number of rendering threads.
+     *
+     * @param threadCount Number of rendering threads. Must be positive.
+     */
+    public synchronized void setThreadCount(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (threadCount > this.executor.getMaximumPoolSize()) {
+            this.executor.setMaximumPoolSize(threadCount);
+            this.executor.setCorePoolSize(threadCount);
+        } else {
+            this.executor.setCorePoolSize(threadCount);
+            this.executor.setMaximumPoolSize(threadCount);
+        }
+    }
+
+    /**
+     * Returns the number of rendering threads.
+     *
+     * @return The number of rendering threads.
+     */
+    public int getThreadCount() {
+        return this.executor.getCorePoolSize();
+    }
+
+    /**
+     * Sets the capacity of the raster cache. Cached images are evicted until the total byte size
+     * of the remaining images fits in the new capacity.
+     *
+     * @param capacity Capacity of the raster cache in bytes. Use <code>0</code> to disable the
+     *                 caching of images for sizes other than the current size of each icon.
+     */
+    public synchronized void setCacheCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity cannot be negative");
+        }
+        this.rasterCacheCapacity = capacity;
+        this.evictRasters();
+    }
+
+    /**
+     * Returns the capacity of the raster cache.
+     *
+     * @return The capacity of the raster cache in bytes.
+     */
+    public synchronized long getCacheCapacity() {
+        return this.rasterCacheCapacity;
+    }
+
+    /**
+     * Returns the total byte size of the currently cached images.
+     *
+     * @return The total byte size of the currently cached images.
+     */
+    public synchronized long getCacheSize() {
+        return this.rasterCacheSize;
+    }
+
+    /**
+     * Returns the number of raster cache lookups that found a cached image.
+     *
+     * @return The number of raster cache hits.
+     */
+    public synchronized long getCacheHitCount() {
+        return this.cacheHitCount;
+    }
+
+    /**
+     * Returns the number of raster cache lookups that did not find a cached image.
+     *
+     * @return The number of raster cache misses.
+     */
+    public synchronized long getCacheMissCount() {
+        return this.cacheMissCount;
+    }
+
+    /**
+     * Returns the number of render requests that are waiting for a rendering thread.
+     *
+     * @return The number of queued render requests.
+     */
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of renders that are currently running.
+     *
+     * @return The number of running renders.
+     */
+    public int getActiveRenderCount() {
+        return this.activeRenderCount.get();
+    }
+
+    /**
+     * Returns the number of completed renders.
+     *
+     * @return The number of completed renders.
+     */
+    public long getRenderCount() {
+        return this.renderCount.get();
+    }
+
+    /**
+     * Returns the average duration of the completed renders.
+     *
+     * @param unit Time unit of the returned value.
+     * @return The average duration of the completed renders.
+     */
+    public long getAverageRenderTime(TimeUnit unit) {
+        long count = this.renderCount.get();
+        return (count == 0) ? 0 : unit.convert(this.totalRenderTime.get() / count,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest duration of the completed renders.
+     *
+     * @param unit Time unit of the returned value.
+     * @return The longest duration of the completed renders.
+     */
+    public long getMaxRenderTime(TimeUnit unit) {
+        return unit.convert(this.maxRenderTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of render requests that were cancelled because they have been
+     * superseded by a request for a different icon size.
+     *
+     * @return The number of cancelled render requests.
+     */
+    public long getCancelledCount() {
+        return this.cancelledCount.get();
+    }
+
+    /**
+     * Returns the number of render requests that were coalesced into an already pending
+     * request for the same icon size.
+     *
+     * @return The number of coalesced render requests.
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    long nextIconId() {
+        return this.nextIconId.getAndIncrement();
+    }
+
+    /**
+     * Schedules a render. The returned request is to be passed back to this service if it
+     * needs to be cancelled or if another request for the same size is coalesced into it.
+     *
+     * @param key    Key of the image to render.
+     * @param render Render to run on a rendering thread. It is expected to call
+     *               {@link RenderRequest#isCancelled()} before doing any expensive work.
+     * @return The scheduled render request.
+     */
+    RenderRequest submit(RasterKey key, Consumer<RenderRequest> render) {
+        RenderRequest request = new RenderRequest(key);
+        request.future = this.executor.submit(() -> {
+            if (request.isCancelled()) {
+                return;
+            }
+            activeRenderCount.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                render.accept(request);
+            } finally {
+                activeRenderCount.decrementAndGet();
+                if (!request.isCancelled()) {
+                    long duration = System.nanoTime() - start;
+                    renderCount.incrementAndGet();
+                    totalRenderTime.addAndGet(duration);
+                    maxRenderTime.accumulateAndGet(duration, Math::max);
+                }
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Cancels the specified render request. A request that has not started yet is removed from
+     * the queue. A running request is expected to notice the cancellation and skip the rest of
+     * its work.
+     *
+     * @param request Render request to cancel.
+     */
+    void cancel(RenderRequest request) {
+        if (!request.cancelled) {
+            request.cancelled = true;
+            request.future.cancel(false);
+            this.executor.purge();
+            this.cancelledCount.incrementAndGet();
+        }
+    }
+
+    void requestCoalesced() {
+        this.coalescedCount.incrementAndGet();
+    }
+
+    synchronized BufferedImage getCachedImage(RasterKey key) {
+        BufferedImage image = this.rasterCache.get(key);
+        if (image != null) {
+            this.cacheHitCount++;
+        } else {
+            this.cacheMissCount++;
+        }
+        return image;
+    }
+
+    synchronized void cacheImage(RasterKey key, BufferedImage image) {
+        long size = getByteSize(image);
+        if (size > this.rasterCacheCapacity) {
+            // the owning icon keeps a reference to its current image, so there is
+            // no need to evict everything else for a single oversized image
+            return;
+        }
+        BufferedImage previous = this.rasterCache.put(key, image);
+        if (previous != null) {
+            this.rasterCacheSize -= getByteSize(previous);
+        }
+        this.rasterCacheSize += size;
+        this.evictRasters();
+    }
+
+    private void evictRasters() {
+        Iterator<BufferedImage> it = this.rasterCache.values().iterator();
+        while ((this.rasterCacheSize > this.rasterCacheCapacity) && it.hasNext()) {
+            this.rasterCacheSize -= getByteSize(it.next());
+            it.remove();
+        }
+    }
+
+    private static long getByteSize(BufferedImage image) {
+        // All the icon images are TYPE_INT_ARGB
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Key of a rendered image in the raster cache.
+     */
+    static final class RasterKey {
+        private final long iconId;
+
+        final int width;
+
+        final int height;
+
+        final double scaleFactor;
+
+        private final int hash;
+
+        RasterKey(long iconId, int width, int height, double scaleFactor) {
+            this.iconId = iconId;
+            this.width = width;
+            this.height = height;
+            this.scaleFactor = scaleFactor;
+            this.hash = Objects.hash(iconId, width, height, scaleFactor);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RasterKey)) {
+                return false;
+            }
+            RasterKey other = (RasterKey) obj;
+            return (this.iconId == other.iconId) && (this.width == other.width)
+                    && (this.height == other.height)
+                    && (Double.compare(this.scaleFactor, other.scaleFactor) == 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * A scheduled render of a single icon image.
+     */
+    static final class RenderRequest {
+        final RasterKey key;
+
+        private volatile boolean cancelled;
+
+        private Future<?> future;
+
+        private RenderRequest(RasterKey key) {
+            this.key = key;
+        }
+
+        boolean isCancelled() {
+            return this.cancelled;
+        }
+    }
+}
@@ -51,4 +51,38 @@ public interface LanguageRenderer {
     public String endSetterAssignment();
     
     public String getGetter(String propertyName);
+
+    // The shape caching methods produce Java code unless overridden
+    public default String startCacheHolder(String holderName) {
+        return "private static final class " + holderName + " {";
+    }
+
+    public default String getConstantDeclaration(String typeName, String constantName) {
+        return "static final " + typeName + " " + constantName + ";";
+    }
+
+    public default String startStaticInitializer() {
+        return "static {";
+    }
+
+    public default String getLocalVariableDeclaration(String typeName, String variableName) {
+        return typeName + " " + variableName + " = null;";
+    }
+
+    public default String getPathFactoryFunction() {
+        return "private static GeneralPath createPath(byte[] segments, float[] coords) {\n"
+                + "GeneralPath path = new GeneralPath(GeneralPath.WIND_NON_ZERO, segments.length);\n"
+                + "int c = 0;\n"
+                + "for (byte segment : segments) {\n"
+                + "switch (segment) {\n"
+                + "case PathIterator.SEG_MOVETO: path.moveTo(coords[c], coords[c + 1]); c += 2; break;\n"
+                + "case PathIterator.SEG_LINETO: path.lineTo(coords[c], coords[c + 1]); c += 2; break;\n"
+                + "case PathIterator.SEG_QUADTO: path.quadTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]); c += 4; break;\n"
+                + "case PathIterator.SEG_CUBICTO: path.curveTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3], coords[c + 4], coords[c + 5]); c += 6; break;\n"
+                + "default: path.closePath();\n"
+                + "}\n"
+                + "}\n"
+                + "return path;\n"
+                + "}";
+    }
 }
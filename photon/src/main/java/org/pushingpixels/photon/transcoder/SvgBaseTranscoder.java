@@ -39,6 +39,8 @@ import org.apache.batik.gvt.*;
 import java.awt.*;
 import java.awt.geom.*;
 import java.io.*;
+import java.util.*;
+import java.util.List;
 
 /**
  * SVG to Java2D transcoder.
@@ -89,6 +91,54 @@ abstract class SvgBaseTranscoder {
 
     protected final static String TOKEN_ORIG_HEIGHT = "TOKEN_ORIG_HEIGHT";
 
+    protected final static String TOKEN_CACHED_CONSTANTS = "TOKEN_CACHED_CONSTANTS";
+
+    /**
+     * Name of the nested holder of the cached shapes, paints, strokes and transforms.
+     */
+    private final static String CACHE_HOLDER = "Cache";
+
+    /**
+     * If <code>true</code>, shapes, paints, strokes and transforms are generated as lazily
+     * initialized constants instead of being created on every paint.
+     */
+    private boolean shapeCaching;
+
+    /**
+     * If <code>true</code> (and {@link #shapeCaching} is on), path data is generated as
+     * segment and coordinate arrays instead of individual path calls.
+     */
+    private boolean pathDataAsArrays;
+
+    /**
+     * Initialization code of the cached constants, keyed by the name of the constant. Only
+     * used when {@link #shapeCaching} is on.
+     */
+    private Map<String, String> cachedConstantCode;
+
+    /**
+     * Names of the cached constants, keyed by their initialization code. Used to share a
+     * single constant between identical shapes, paints, strokes and transforms.
+     */
+    private Map<String, String> cachedConstantNames;
+
+    /**
+     * Types of the cached constants, keyed by the name of the constant.
+     */
+    private Map<String, String> cachedConstantTypes;
+
+    private boolean usesPathFactory;
+
+    /**
+     * Paint, stroke and composite that the generated painting code has set last. These are
+     * used to elide redundant calls on the graphics context.
+     */
+    private String currentPaint;
+
+    private String currentStroke;
+
+    private String currentComposite;
+
     /**
      * Creates a new transcoder.
      *
@@ -104,6 +154,23 @@ abstract class SvgBaseTranscoder {
         this.packageName = packageName;
     }
 
+    /**
+     * Sets the shape caching mode. In this mode the generated code creates all shapes, paints,
+     * strokes and transforms once, when the icon is painted for the first time, and reuses
+     * them afterwards. Identity transforms and redundant paint, stroke and composite changes
+     * are elided. Requires a template with the {@link #TOKEN_CACHED_CONSTANTS} placeholder.
+     *
+     * @param shapeCaching     If <code>true</code>, the generated code caches shapes, paints,
+     *                         strokes and transforms.
+     * @param pathDataAsArrays If <code>true</code>, the path data of the cached shapes is
+     *                         generated as compact arrays instead of individual path calls.
+     *                         Ignored if <code>shapeCaching</code> is <code>false</code>.
+     */
+    public void setShapeCaching(boolean shapeCaching, boolean pathDataAsArrays) {
+        this.shapeCaching = shapeCaching;
+        this.pathDataAsArrays = pathDataAsArrays;
+    }
+
     /**
      * Sets the listener.
      *
@@ -153,6 +220,22 @@ abstract class SvgBaseTranscoder {
         templateString = templateString.replaceAll(TOKEN_CLASSNAME, classname);
         templateString = templateString.replaceAll(TOKEN_CLASSNAME, classname);
 
+        boolean cacheConstants = this.shapeCaching;
+        if (cacheConstants && !templateString.contains(TOKEN_CACHED_CONSTANTS)) {
+            System.err.println("Template has no " + TOKEN_CACHED_CONSTANTS
+                    + " placeholder, generating " + classname + " without shape caching");
+            cacheConstants = false;
+        }
+        if (cacheConstants) {
+            this.cachedConstantCode = new LinkedHashMap<>();
+            this.cachedConstantNames = new HashMap<>();
+            this.cachedConstantTypes = new HashMap<>();
+            this.usesPathFactory = false;
+            this.currentPaint = null;
+            this.currentStroke = null;
+            this.currentComposite = null;
+        }
+
         ByteArrayOutputStream paintingCodeStream = new ByteArrayOutputStream();
         this.printWriter = new PrintWriter(paintingCodeStream);
         transcodeGraphicsNode(gvtRoot, "");
@@ -161,6 +244,25 @@ abstract class SvgBaseTranscoder {
         String paintingCode = new String(paintingCodeStream.toByteArray());
         templateString = templateString.replaceAll(TOKEN_PAINTING_CODE, paintingCode);
 
+        String cachedConstantsCode = "";
+        if (cacheConstants) {
+            cachedConstantsCode = this.getCachedConstantsCode();
+            this.cachedConstantCode = null;
+            this.cachedConstantNames = null;
+            this.cachedConstantTypes = null;
+        }
+        if (cachedConstantsCode.isEmpty()) {
+            // remove the placeholder line along with its indentation, so that the output
+            // without cached constants is the same as before the placeholder was added
+            templateString = templateString.replaceAll(
+                    "(?m)^[ \\t]*" + TOKEN_CACHED_CONSTANTS + "[ \\t]*\\r?\\n", "");
+            templateString = templateString.replace(TOKEN_CACHED_CONSTANTS, "");
+        } else {
+            // separate the cached constants from the code that follows the placeholder line
+            templateString = templateString.replace(TOKEN_CACHED_CONSTANTS,
+                    cachedConstantsCode + "\n");
+        }
+
         Rectangle2D bounds = gvtRoot.getBounds();
 
         templateString = templateString.replaceAll(TOKEN_ORIG_X, "" + bounds.getX());
@@ -179,12 +281,174 @@ abstract class SvgBaseTranscoder {
             listener.finished();
     }
 
+    /**
+     * Returns <code>true</code> if the current transcoding generates cached constants.
+     */
+    private boolean isCachingConstants() {
+        return (this.cachedConstantCode != null);
+    }
+
+    /**
+     * Generates a cached constant. The specified transcoder is expected to print the code that
+     * assigns the new object to the local variable with the specified name.
+     *
+     * @param typeName     Type of the constant.
+     * @param variableName Local variable assigned by the transcoder.
+     * @param transcoder   Transcoder that prints the initialization code of the constant.
+     * @return Reference to the constant that can be used in the painting code.
+     */
+    private String getCachedConstant(String typeName, String variableName, Runnable transcoder) {
+        PrintWriter paintingCodeWriter = this.printWriter;
+        StringWriter constantCodeWriter = new StringWriter();
+        this.printWriter = new PrintWriter(constantCodeWriter);
+        try {
+            transcoder.run();
+        } finally {
+            this.printWriter.flush();
+            this.printWriter = paintingCodeWriter;
+        }
+
+        String code = constantCodeWriter.toString();
+        String name = this.cachedConstantNames.get(code);
+        if (name == null) {
+            name = variableName + "_" + this.cachedConstantCode.size();
+            this.cachedConstantNames.put(code, name);
+            this.cachedConstantCode.put(name, code);
+            this.cachedConstantTypes.put(name, typeName);
+        }
+        return CACHE_HOLDER + "." + name;
+    }
+
+    /**
+     * Returns the code of the holder class with all cached constants.
+     */
+    private String getCachedConstantsCode() {
+        if (this.cachedConstantCode.isEmpty()) {
+            return "";
+        }
+
+        StringWriter result = new StringWriter();
+        PrintWriter pw = new PrintWriter(result);
+        pw.println(languageRenderer.startCacheHolder(CACHE_HOLDER));
+        for (String name : this.cachedConstantCode.keySet()) {
+            pw.println(languageRenderer.getConstantDeclaration(
+                    this.cachedConstantTypes.get(name), name));
+        }
+        pw.println(languageRenderer.startStaticInitializer());
+        pw.println(languageRenderer.getLocalVariableDeclaration("Shape", "shape"));
+        pw.println(languageRenderer.getLocalVariableDeclaration("Paint", "paint"));
+        pw.println(languageRenderer.getLocalVariableDeclaration("Stroke", "stroke"));
+        pw.println(languageRenderer.getLocalVariableDeclaration("AffineTransform", "transform"));
+        for (Map.Entry<String, String> entry : this.cachedConstantCode.entrySet()) {
+            String name = entry.getKey();
+            String code = entry.getValue();
+            pw.print(code);
+            pw.println(name + " = " + name.substring(0, name.lastIndexOf('_'))
+                    + languageRenderer.getStatementEnd());
+        }
+        pw.println("}");
+        if (this.usesPathFactory) {
+            pw.println(languageRenderer.getPathFactoryFunction());
+        }
+        pw.println("}");
+        pw.close();
+        return result.toString();
+    }
+
+    /**
+     * Prints the code that sets the specified paint on the graphics context, unless it is
+     * already the current paint.
+     *
+     * @param paintRef Reference to the paint.
+     */
+    private void printPaintAssignment(String paintRef) {
+        if (isCachingConstants() && paintRef.equals(this.currentPaint)) {
+            return;
+        }
+        printWriter.println("g" + languageRenderer.startSetterAssignment("paint") + paintRef
+                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
+        this.currentPaint = paintRef;
+    }
+
+    /**
+     * Prints the code that sets the specified stroke on the graphics context, unless it is
+     * already the current stroke.
+     *
+     * @param strokeRef Reference to the stroke.
+     */
+    private void printStrokeAssignment(String strokeRef) {
+        if (isCachingConstants() && strokeRef.equals(this.currentStroke)) {
+            return;
+        }
+        printWriter.println("g" + languageRenderer.startSetterAssignment("stroke") + strokeRef
+                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
+        this.currentStroke = strokeRef;
+    }
+
+    /**
+     * Transcodes the specified path iterator into segment and coordinate arrays that are
+     * passed to the path factory function of the cache holder.
+     *
+     * @param pathIterator Path iterator.
+     */
+    private void transcodePathIteratorAsArrays(PathIterator pathIterator) {
+        float[] coords = new float[6];
+        List<Integer> segments = new ArrayList<>();
+        List<Float> allCoords = new ArrayList<>();
+        for (; !pathIterator.isDone(); pathIterator.next()) {
+            int type = pathIterator.currentSegment(coords);
+            segments.add(type);
+            int coordCount = 0;
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_LINETO:
+                    coordCount = 2;
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    coordCount = 4;
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    coordCount = 6;
+                    break;
+            }
+            for (int i = 0; i < coordCount; i++) {
+                allCoords.add(coords[i]);
+            }
+        }
+
+        StringBuilder segmentsRep = new StringBuilder();
+        segmentsRep.append(languageRenderer.startPrimitiveArrayOf("byte"));
+        String sep = "";
+        for (int segment : segments) {
+            segmentsRep.append(sep).append(segment);
+            sep = ", ";
+        }
+        segmentsRep.append(languageRenderer.endArray());
+
+        StringBuilder coordsRep = new StringBuilder();
+        coordsRep.append(languageRenderer.startPrimitiveArrayOf("float"));
+        sep = "";
+        for (float coord : allCoords) {
+            coordsRep.append(sep).append(coord).append("f");
+            sep = ", ";
+        }
+        coordsRep.append(languageRenderer.endArray());
+
+        this.usesPathFactory = true;
+        printWriter.println("shape = createPath(" + segmentsRep + ", " + coordsRep + ")"
+                + languageRenderer.getStatementEnd());
+    }
+
     /**
      * Transcodes the specified path iterator.
      *
      * @param pathIterator Path iterator.
      */
     private void transcodePathIterator(PathIterator pathIterator) {
+        if (isCachingConstants() && this.pathDataAsArrays) {
+            transcodePathIteratorAsArrays(pathIterator);
+            return;
+        }
         float[] coords = new float[6];
         printWriter.println("shape = " + languageRenderer.getObjectCreationNoParams("GeneralPath")
                 + languageRenderer.getStatementEnd());
@@ -599,8 +863,15 @@ abstract class SvgBaseTranscoder {
         Paint paint = painter.getPaint();
         if (paint == null)
             return;
-        transcodePaint(paint);
         Shape shape = painter.getShape();
+        if (isCachingConstants()) {
+            String paintRef = getCachedConstant("Paint", "paint", () -> transcodePaint(paint));
+            String shapeRef = getCachedConstant("Shape", "shape", () -> transcodeShape(shape));
+            printPaintAssignment(paintRef);
+            printWriter.println("g.fill(" + shapeRef + ")" + languageRenderer.getStatementEnd());
+            return;
+        }
+        transcodePaint(paint);
         // offset(offset);
         // printWriter.println("FillShapePainter");
         transcodeShape(shape);
@@ -621,12 +892,38 @@ abstract class SvgBaseTranscoder {
         Paint paint = painter.getPaint();
         if (paint == null)
             return;
+        if (isCachingConstants()) {
+            String paintRef = getCachedConstant("Paint", "paint", () -> transcodePaint(paint));
+            String strokeRef = getCachedConstant("Stroke", "stroke",
+                    () -> transcodeStroke(painter.getStroke()));
+            String shapeRef = getCachedConstant("Shape", "shape", () -> transcodeShape(shape));
+            printPaintAssignment(paintRef);
+            printStrokeAssignment(strokeRef);
+            printWriter.println("g.draw(" + shapeRef + ")" + languageRenderer.getStatementEnd());
+            return;
+        }
         transcodePaint(paint);
         // offset(offset + 1);
         // printWriter.println(paint);
         Stroke stroke = painter.getStroke();
         // offset(offset + 1);
 
+        transcodeStroke(stroke);
+
+        transcodeShape(shape);
+        printWriter.println("g" + languageRenderer.startSetterAssignment("paint") + "paint"
+                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
+        printWriter.println("g" + languageRenderer.startSetterAssignment("stroke") + "stroke"
+                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
+        printWriter.println("g.draw(shape)" + languageRenderer.getStatementEnd());
+    }
+
+    /**
+     * Transcodes the specified stroke.
+     *
+     * @param stroke Stroke.
+     */
+    private void transcodeStroke(Stroke stroke) {
         BasicStroke bStroke = (BasicStroke) stroke;
         float width = bStroke.getLineWidth();
         int cap = bStroke.getEndCap();
@@ -651,13 +948,6 @@ abstract class SvgBaseTranscoder {
         printWriter.println("stroke = " + languageRenderer.getObjectCreation("BasicStroke")
                 + "(" + width + "f," + cap + "," + join + "," + miterlimit + "f," + dashRep
                 + "," + dash_phase + "f)" + languageRenderer.getStatementEnd());
-
-        transcodeShape(shape);
-        printWriter.println("g" + languageRenderer.startSetterAssignment("paint") + "paint"
-                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
-        printWriter.println("g" + languageRenderer.startSetterAssignment("stroke") + "stroke"
-                + languageRenderer.endSetterAssignment() + languageRenderer.getStatementEnd());
-        printWriter.println("g.draw(shape)" + languageRenderer.getStatementEnd());
     }
 
     /**
@@ -704,6 +994,10 @@ abstract class SvgBaseTranscoder {
      */
     private void transcodeGraphicsNode(GraphicsNode node, String comment)
             throws UnsupportedOperationException {
+        if (isCachingConstants()) {
+            transcodeGraphicsNodeCached(node, comment);
+            return;
+        }
         AlphaComposite composite = (AlphaComposite) node.getComposite();
         if (composite != null) {
             int rule = composite.getRule();
@@ -744,4 +1038,66 @@ abstract class SvgBaseTranscoder {
                     + languageRenderer.getStatementEnd());
         }
     }
+
+    /**
+     * Transcodes the specified graphics node with cached constants. Identity transforms and
+     * composites that are already set on the graphics context are elided.
+     *
+     * @param node    Graphics node.
+     * @param comment Comment (for associating the Java2D section with the corresponding SVG
+     *                section).
+     * @throws UnsupportedOperationException if the graphics node is unsupported.
+     */
+    private void transcodeGraphicsNodeCached(GraphicsNode node, String comment)
+            throws UnsupportedOperationException {
+        AlphaComposite composite = (AlphaComposite) node.getComposite();
+        if (composite != null) {
+            int rule = composite.getRule();
+            float alpha = composite.getAlpha();
+            String compositeRep = "AlphaComposite.getInstance(" + rule + ", " + alpha
+                    + "f * origAlpha)";
+            if (!compositeRep.equals(this.currentComposite)) {
+                printWriter.println("g" + languageRenderer.startSetterAssignment("composite")
+                        + compositeRep + languageRenderer.endSetterAssignment()
+                        + languageRenderer.getStatementEnd());
+                this.currentComposite = compositeRep;
+            }
+        }
+        AffineTransform transform = node.getTransform();
+        boolean hasTransform = (transform != null) && !transform.isIdentity();
+        if (hasTransform) {
+            double[] transfMatrix = new double[6];
+            transform.getMatrix(transfMatrix);
+            String transformRef = getCachedConstant("AffineTransform", "transform",
+                    () -> printWriter.println("transform = "
+                            + languageRenderer.getObjectCreation("AffineTransform") + "("
+                            + transfMatrix[0] + "f, " + transfMatrix[1] + "f, " + transfMatrix[2]
+                            + "f, " + transfMatrix[3] + "f, " + transfMatrix[4] + "f, "
+                            + transfMatrix[5] + "f)" + languageRenderer.getStatementEnd()));
+            printWriter.println(languageRenderer.startVariableDefinition("AffineTransform")
+                    + "defaultTransform_" + comment + " = g"
+                    + languageRenderer.getGetter("transform")
+                    + languageRenderer.getStatementEnd());
+            printWriter.println("g.transform(" + transformRef + ")"
+                    + languageRenderer.getStatementEnd());
+        }
+
+        try {
+            if (node instanceof ShapeNode) {
+                transcodeShapeNode((ShapeNode) node, comment);
+                return;
+            }
+            if (node instanceof CompositeGraphicsNode) {
+                transcodeCompositeGraphicsNode((CompositeGraphicsNode) node, comment);
+                return;
+            }
+            throw new UnsupportedOperationException(node.getClass().getCanonicalName());
+        } finally {
+            if (hasTransform) {
+                printWriter.println("g" + languageRenderer.startSetterAssignment("transform")
+                        + "defaultTransform_" + comment + languageRenderer.endSetterAssignment()
+                        + languageRenderer.getStatementEnd());
+            }
+        }
+    }
 }
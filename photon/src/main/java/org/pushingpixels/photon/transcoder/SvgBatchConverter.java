@@ -29,11 +29,9 @@
  */
 package org.pushingpixels.photon.transcoder;
 
-import org.pushingpixels.photon.transcoder.java.JavaLanguageRenderer;
-import org.pushingpixels.photon.transcoder.kotlin.KotlinLanguageRenderer;
-
-import java.io.*;
-import java.util.concurrent.CountDownLatch;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
 
 public class SvgBatchConverter {
     private static String getInputArgument(String[] args, String argumentName) {
@@ -61,6 +59,16 @@ public class SvgBatchConverter {
      *             output files will be placed in the 'sourceFolder'</li>
      *             <li>outputClassNamePrefix=xyz - optional prefix for the class name of each
      *             transcoded class</li>
+     *             <li>shapeCaching=true|false - optional. If true, the transcoded classes
+     *             create their shapes, paints and strokes once and reuse them on every
+     *             paint</li>
+     *             <li>pathDataAsArrays=true|false - optional. If true (along with
+     *             shapeCaching), the path data is stored as compact arrays</li>
+     *             <li>parallelism=xyz - optional number of files to transcode in parallel.
+     *             If not specified, the number of available processors is used</li>
+     *             <li>hashFile=xyz - optional location of the file that stores the content
+     *             hashes of the transcoded files. If specified, files that have not changed
+     *             since the previous run are skipped</li>
      *             </ul>
      */
     public static void main(String[] args) {
@@ -104,6 +112,11 @@ public class SvgBatchConverter {
         if (outputClassNamePrefix == null) {
             outputClassNamePrefix = "";
         }
+        boolean shapeCaching = Boolean.parseBoolean(getInputArgument(args, "shapeCaching"));
+        boolean pathDataAsArrays = Boolean.parseBoolean(
+                getInputArgument(args, "pathDataAsArrays"));
+        String parallelism = getInputArgument(args, "parallelism");
+        String hashFileName = getInputArgument(args, "hashFile");
         String outputFolderName = getInputArgument(args, "outputFolder");
         if (outputFolderName == null) {
             outputFolderName = sourceFolderName;
@@ -118,10 +131,16 @@ public class SvgBatchConverter {
             return;
         }
 
-        LanguageRenderer languageRenderer = ("java".compareTo(outputLanguage) == 0)
-                ? new JavaLanguageRenderer()
-                : new KotlinLanguageRenderer();
-        String outputFileNameExtension = ("java".compareTo(outputLanguage) == 0) ? ".java" : ".kt";
+        SvgBatchTranscoder batchTranscoder = new SvgBatchTranscoder(outputPackageName,
+                outputLanguage, templateFile);
+        batchTranscoder.setOutputClassNamePrefix(outputClassNamePrefix);
+        batchTranscoder.setShapeCaching(shapeCaching, pathDataAsArrays);
+        if (parallelism != null) {
+            batchTranscoder.setParallelism(Integer.parseInt(parallelism));
+        }
+        if (hashFileName != null) {
+            batchTranscoder.setHashFile(new File(hashFileName));
+        }
 
         System.out.println(
                 "******************************************************************************");
@@ -130,42 +149,23 @@ public class SvgBatchConverter {
         System.out.println(
                 "******************************************************************************");
 
-        for (File file : inputFolder.listFiles((File dir, String name) -> name.endsWith(".svg"))) {
-            String svgClassName = outputClassNamePrefix
-                    + file.getName().substring(0, file.getName().length() - 4);
-            svgClassName = svgClassName.replace('-', '_');
-            svgClassName = svgClassName.replace(' ', '_');
-            String classFilename = outputFolderName + File.separator +
-                    svgClassName + outputFileNameExtension;
-
-            System.err.println("Processing " + file.getName());
-
-            try (PrintWriter pw = new PrintWriter(classFilename);
-                 InputStream templateStream = SvgBatchConverter.class
-                         .getResourceAsStream(templateFile)) {
-                final CountDownLatch latch = new CountDownLatch(1);
-
-                SvgTranscoder transcoder = new SvgTranscoder(file.toURI().toURL().toString(),
-                        svgClassName, languageRenderer);
-                transcoder.setPackageName(outputPackageName);
-                transcoder.setListener(new TranscoderListener() {
-                    public Writer getWriter() {
-                        return pw;
-                    }
+        SvgBatchTranscoder.Result result;
+        try {
+            result = batchTranscoder.transcodeFolder(inputFolder, outputFolder);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            return;
+        }
 
-                    public void finished() {
-                        latch.countDown();
-                    }
-                });
-                if (templateStream == null) {
-                    System.err.println("Couldn't load " + templateFile);
-                    return;
-                }
-                transcoder.transcode(templateStream);
-                latch.await();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        for (File file : result.getTranscoded()) {
+            System.err.println("Processed " + file.getName());
+        }
+        if (!result.getSkipped().isEmpty()) {
+            System.err.println("Skipped " + result.getSkipped().size() + " unchanged files");
+        }
+        for (Map.Entry<File, Throwable> failure : result.getFailed().entrySet()) {
+            System.err.println("Failed " + failure.getKey().getName());
+            failure.getValue().printStackTrace();
         }
     }
 }
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2005-2018 Radiance Photon Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Radiance Photon Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.photon.transcoder;
+
+import org.pushingpixels.photon.transcoder.java.JavaLanguageRenderer;
+import org.pushingpixels.photon.transcoder.kotlin.KotlinLanguageRenderer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Transcodes a batch of SVG files into Java / Kotlin classes. The files are transcoded in
+ * parallel on a work-stealing {@link ForkJoinPool}. Every file is transcoded by its own
+ * {@link SvgTranscoder}, so that the Batik state of each transcoding is confined to the thread
+ * that runs it.
+ *
+ * <p>If a hash file is set with {@link #setHashFile(File)}, the content hash of every
+ * transcoded file is stored in it, and the files that have not changed since the previous run
+ * are skipped. The hash covers the SVG content, the template and all the transcoding
+ * options.</p>
+ *
+ * @author Kirill Grouchnikov
+ */
+public class SvgBatchTranscoder {
+    private final String outputPackageName;
+
+    private final String outputLanguage;
+
+    private final String templateFile;
+
+    private final LanguageRenderer languageRenderer;
+
+    private String outputClassNamePrefix = "";
+
+    private boolean shapeCaching;
+
+    private boolean pathDataAsArrays;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private File hashFile;
+
+    /**
+     * Template content. Is loaded once for all the transcoded files.
+     */
+    private byte[] template;
+
+    /**
+     * Creates a new batch transcoder.
+     *
+     * @param outputPackageName The package name for the transcoded classes.
+     * @param outputLanguage    The language for the transcoded classes, either
+     *                          <code>java</code> or <code>kotlin</code>.
+     * @param templateFile      The resource name of the template for the transcoded classes.
+     */
+    public SvgBatchTranscoder(String outputPackageName, String outputLanguage,
+            String templateFile) {
+        if ((outputLanguage.compareTo("java") != 0) && (outputLanguage.compareTo("kotlin") != 0)) {
+            throw new IllegalArgumentException("Output language must be either Java or Kotlin");
+        }
+        this.outputPackageName = outputPackageName;
+        this.outputLanguage = outputLanguage;
+        this.templateFile = templateFile;
+        this.languageRenderer = ("java".compareTo(outputLanguage) == 0)
+                ? new JavaLanguageRenderer()
+                : new KotlinLanguageRenderer();
+    }
+
+    /**
+     * Sets the prefix for the class name of each transcoded class.
+     *
+     * @param outputClassNamePrefix Class name prefix.
+     */
+    public void setOutputClassNamePrefix(String outputClassNamePrefix) {
+        this.outputClassNamePrefix = outputClassNamePrefix;
+    }
+
+    /**
+     * Sets the shape caching options of the transcoded classes.
+     *
+     * @param shapeCaching     If <code>true</code>, the transcoded classes create their shapes,
+     *                         paints and strokes once and reuse them on every paint.
+     * @param pathDataAsArrays If <code>true</code> (along with <code>shapeCaching</code>), the
+     *                         path data is stored as compact arrays.
+     * @see SvgBaseTranscoder#setShapeCaching(boolean, boolean)
+     */
+    public void setShapeCaching(boolean shapeCaching, boolean pathDataAsArrays) {
+        this.shapeCaching = shapeCaching;
+        this.pathDataAsArrays = pathDataAsArrays;
+    }
+
+    /**
+     * Sets the number of files to transcode in parallel. The default is the number of
+     * available processors.
+     *
+     * @param parallelism Number of files to transcode in parallel.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the file that stores the content hashes of the transcoded files between runs.
+     *
+     * @param hashFile Hash file. Use <code>null</code> to transcode all files on every run.
+     */
+    public void setHashFile(File hashFile) {
+        this.hashFile = hashFile;
+    }
+
+    /**
+     * Returns the class name for the specified SVG file.
+     *
+     * @param svgFile SVG file.
+     * @return The class name for the specified SVG file.
+     */
+    public String getClassName(File svgFile) {
+        String svgClassName = this.outputClassNamePrefix
+                + svgFile.getName().substring(0, svgFile.getName().length() - 4);
+        svgClassName = svgClassName.replace('-', '_');
+        svgClassName = svgClassName.replace(' ', '_');
+        return svgClassName;
+    }
+
+    /**
+     * Returns the output file for the specified SVG file.
+     *
+     * @param svgFile      SVG file.
+     * @param outputFolder Folder for the transcoded classes.
+     * @return The output file for the specified SVG file.
+     */
+    public File getOutputFile(File svgFile, File outputFolder) {
+        String outputFileNameExtension = ("java".compareTo(this.outputLanguage) == 0)
+                ? ".java" : ".kt";
+        return new File(outputFolder, this.getClassName(svgFile) + outputFileNameExtension);
+    }
+
+    /**
+     * Transcodes all the SVG files in the specified folder.
+     *
+     * @param inputFolder  Folder with SVG files.
+     * @param outputFolder Folder for the transcoded classes.
+     * @return The transcoding result.
+     * @throws IOException in case the template or the hash file could not be read or written.
+     */
+    public Result transcodeFolder(File inputFolder, File outputFolder) throws IOException {
+        File[] svgFiles = inputFolder.listFiles((File dir, String name) -> name.endsWith(".svg"));
+        return this.transcode((svgFiles == null) ? Collections.emptyList()
+                : Arrays.asList(svgFiles), outputFolder);
+    }
+
+    /**
+     * Transcodes the specified SVG files in parallel.
+     *
+     * @param svgFiles     SVG files.
+     * @param outputFolder Folder for the transcoded classes.
+     * @return The transcoding result.
+     * @throws IOException in case the template or the hash file could not be read or written.
+     */
+    public Result transcode(List<File> svgFiles, File outputFolder) throws IOException {
+        byte[] template = this.getTemplate();
+        Properties hashes = new Properties();
+        if ((this.hashFile != null) && this.hashFile.exists()) {
+            try (InputStream hashStream = new FileInputStream(this.hashFile)) {
+                hashes.load(hashStream);
+            }
+        }
+
+        Result result = new Result();
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+            for (File svgFile : svgFiles) {
+                tasks.add(pool.submit(() -> this.transcode(svgFile, outputFolder, template,
+                        hashes)));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                File svgFile = svgFiles.get(i);
+                try {
+                    if (tasks.get(i).join()) {
+                        result.transcoded.add(svgFile);
+                    } else {
+                        result.skipped.add(svgFile);
+                    }
+                } catch (RuntimeException exc) {
+                    Throwable cause = (exc.getCause() != null) ? exc.getCause() : exc;
+                    result.failed.put(svgFile, cause);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (this.hashFile != null) {
+            File hashFolder = this.hashFile.getAbsoluteFile().getParentFile();
+            if (hashFolder != null) {
+                hashFolder.mkdirs();
+            }
+            try (OutputStream hashStream = new FileOutputStream(this.hashFile)) {
+                hashes.store(hashStream, "Content hashes of the transcoded SVG files");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Transcodes a single SVG file on the calling thread. The hash file is not consulted.
+     *
+     * @param svgFile      SVG file.
+     * @param outputFolder Folder for the transcoded classes.
+     * @throws IOException in case the template or the SVG file could not be read, or the
+     *                     transcoded class could not be written.
+     */
+    public void transcode(File svgFile, File outputFolder) throws IOException {
+        this.transcode(svgFile, outputFolder, this.getTemplate(), null);
+    }
+
+    /**
+     * Transcodes a single SVG file.
+     *
+     * @return <code>false</code> if the file was skipped since it has not changed.
+     */
+    private boolean transcode(File svgFile, File outputFolder, byte[] template,
+            Properties hashes) throws IOException {
+        File outputFile = this.getOutputFile(svgFile, outputFolder);
+        String hashKey = outputFile.getAbsolutePath();
+        String hash = null;
+        if (hashes != null) {
+            hash = this.getHash(svgFile, template);
+            if (outputFile.exists() && hash.equals(hashes.getProperty(hashKey))) {
+                return false;
+            }
+            hashes.remove(hashKey);
+        }
+
+        // Transcode into memory so that a failed transcoding does not leave
+        // a partially written class behind
+        StringWriter writer = new StringWriter();
+        boolean[] finished = new boolean[1];
+        SvgTranscoder transcoder = new SvgTranscoder(svgFile.toURI().toURL().toString(),
+                this.getClassName(svgFile), this.languageRenderer);
+        transcoder.setPackageName(this.outputPackageName);
+        transcoder.setShapeCaching(this.shapeCaching, this.pathDataAsArrays);
+        transcoder.setListener(new TranscoderListener() {
+            public Writer getWriter() {
+                return writer;
+            }
+
+            public void finished() {
+                finished[0] = true;
+            }
+        });
+        transcoder.transcode(new ByteArrayInputStream(template));
+        if (!finished[0]) {
+            throw new IOException("Couldn't transcode " + svgFile.getName());
+        }
+
+        try (PrintWriter pw = new PrintWriter(outputFile)) {
+            pw.print(writer.toString());
+        }
+        if (hashes != null) {
+            hashes.setProperty(hashKey, hash);
+        }
+        return true;
+    }
+
+    private synchronized byte[] getTemplate() throws IOException {
+        if (this.template == null) {
+            try (InputStream templateStream = SvgBatchTranscoder.class
+                    .getResourceAsStream(this.templateFile)) {
+                if (templateStream == null) {
+                    throw new FileNotFoundException("Couldn't load " + this.templateFile);
+                }
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] b = new byte[4096];
+                int count;
+                while ((count = templateStream.read(b)) >= 0) {
+                    baos.write(b, 0, count);
+                }
+                this.template = baos.toByteArray();
+            }
+        }
+        return this.template;
+    }
+
+    /**
+     * Returns the hash of everything that affects the transcoded class of the specified file.
+     */
+    private String getHash(File svgFile, byte[] template) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+        String options = this.outputPackageName + ":" + this.outputLanguage + ":"
+                + this.getClassName(svgFile) + ":" + this.shapeCaching + ":"
+                + this.pathDataAsArrays + ":";
+        digest.update(options.getBytes("UTF-8"));
+        digest.update(template);
+        digest.update(Files.readAllBytes(svgFile.toPath()));
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Result of a batch transcoding.
+     */
+    public static class Result {
+        private final List<File> transcoded = new ArrayList<>();
+
+        private final List<File> skipped = new ArrayList<>();
+
+        private final Map<File, Throwable> failed = new LinkedHashMap<>();
+
+        /**
+         * Returns the SVG files that have been transcoded.
+         *
+         * @return The SVG files that have been transcoded.
+         */
+        public List<File> getTranscoded() {
+            return Collections.unmodifiableList(this.transcoded);
+        }
+
+        /**
+         * Returns the SVG files that have been skipped since they have not changed since the
+         * previous run.
+         *
+         * @return The skipped SVG files.
+         */
+        public List<File> getSkipped() {
+            return Collections.unmodifiableList(this.skipped);
+        }
+
+        /**
+         * Returns the SVG files that have failed to transcode, along with the failures.
+         *
+         * @return The SVG files that have failed to transcode.
+         */
+        public Map<File, Throwable> getFailed() {
+            return Collections.unmodifiableMap(this.failed);
+        }
+    }
+}
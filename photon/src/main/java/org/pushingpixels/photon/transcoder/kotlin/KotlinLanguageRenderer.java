@@ -87,4 +87,42 @@ public class KotlinLanguageRenderer implements LanguageRenderer {
     public String getGetter(String propertyName) {
         return "." + propertyName;
     }
+
+    @Override
+    public String startCacheHolder(String holderName) {
+        return "private object " + holderName + " {";
+    }
+
+    @Override
+    public String getConstantDeclaration(String typeName, String constantName) {
+        return "val " + constantName + ": " + typeName;
+    }
+
+    @Override
+    public String startStaticInitializer() {
+        return "init {";
+    }
+
+    @Override
+    public String getLocalVariableDeclaration(String typeName, String variableName) {
+        return "@Suppress(\"UNUSED_VARIABLE\") var " + variableName + ": " + typeName + "? = null";
+    }
+
+    @Override
+    public String getPathFactoryFunction() {
+        return "fun createPath(segments: ByteArray, coords: FloatArray): GeneralPath {\n"
+                + "val path = GeneralPath(GeneralPath.WIND_NON_ZERO, segments.size)\n"
+                + "var c = 0\n"
+                + "for (segment in segments) {\n"
+                + "when (segment.toInt()) {\n"
+                + "PathIterator.SEG_MOVETO -> { path.moveTo(coords[c], coords[c + 1]); c += 2 }\n"
+                + "PathIterator.SEG_LINETO -> { path.lineTo(coords[c], coords[c + 1]); c += 2 }\n"
+                + "PathIterator.SEG_QUADTO -> { path.quadTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]); c += 4 }\n"
+                + "PathIterator.SEG_CUBICTO -> { path.curveTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3], coords[c + 4], coords[c + 5]); c += 6 }\n"
+                + "else -> path.closePath()\n"
+                + "}\n"
+                + "}\n"
+                + "return path\n"
+                + "}";
+    }
 }
@@ -32,14 +32,11 @@ package org.pushingpixels.substance.extras.api.painterpack.noise;
 import org.pushingpixels.neon.NeonCortex;
 import org.pushingpixels.substance.api.SubstanceSkin;
 import org.pushingpixels.substance.api.colorscheme.SubstanceColorScheme;
-import org.pushingpixels.substance.internal.utils.PerlinNoiseGenerator;
-import org.pushingpixels.substance.internal.utils.SubstanceColorUtilities;
+import org.pushingpixels.substance.internal.utils.NoiseRenderer;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
 import java.awt.image.DataBufferInt;
-import java.awt.image.Kernel;
 
 /**
  * Factory for creating noise images. This class is part of officially supported
@@ -65,6 +62,35 @@ public class NoiseFactory {
     public static BufferedImage getNoiseImage(SubstanceSkin skin, int width,
             int height, double xFactor, double yFactor, boolean hasConstantZ,
             NoiseFilter noiseFilter, boolean toBlur, boolean isPreview) {
+        return getNoiseImage(skin, width, height, new Rectangle(0, 0, width, height),
+                xFactor, yFactor, hasConstantZ, noiseFilter, toBlur, isPreview);
+    }
+
+    /**
+     * Returns the specified region of a noise image. Regions of the same noise
+     * image can be requested separately, and are seamlessly stitched together
+     * when drawn next to each other. To keep the regions aligned to the pixel
+     * grid on high DPI screens, the region coordinates should be multiples of
+     * 4.
+     *
+     * @param skin         The skin to use for rendering the image.
+     * @param width        Width of the full noise image.
+     * @param height       Height of the full noise image.
+     * @param region       Region of the full noise image to return.
+     * @param xFactor      X stretch factor.
+     * @param yFactor      Y stretch factor.
+     * @param hasConstantZ Indication whether the Z is constant.
+     * @param noiseFilter  Noise filter to apply. As the image is computed on
+     *                     multiple threads, the filter is called from multiple
+     *                     threads at the same time.
+     * @param toBlur       Indication whether the resulting image should be blurred.
+     * @param isPreview    Indication whether the image is in preview mode.
+     * @return Image of the specified region of the noise image.
+     */
+    public static BufferedImage getNoiseImage(SubstanceSkin skin, int width,
+            int height, Rectangle region, double xFactor, double yFactor,
+            boolean hasConstantZ, NoiseFilter noiseFilter, boolean toBlur,
+            boolean isPreview) {
         SubstanceColorScheme scheme = skin.getWatermarkColorScheme();
         Color c1 = scheme.getWatermarkDarkColor();
         // c1 = new Color(255, 0, 0, 0);
@@ -72,48 +98,29 @@ public class NoiseFactory {
         // Color c2 = scheme.getWatermarkStampColor();
         Color c3 = scheme.getWatermarkLightColor();
 
-        BufferedImage dst = NeonCortex.getBlankImage(width, height);
-        //
-        // new BufferedImage(width, height,
-        // BufferedImage.TYPE_INT_ARGB);
+        BufferedImage dst = NeonCortex.getBlankImage(region.width, region.height);
 
         // Borrow from Sebastien Petrucci fast blur code - direct access
         // to the raster data
         int[] dstBuffer = ((DataBufferInt) dst.getRaster().getDataBuffer())
                 .getData();
-        // System.out.println((dstBuffer[0] >>> 24) & 0xFF);
 
-        int imageWidth = dst.getWidth();
-        int imageHeight = dst.getHeight();
-        double m2 = xFactor * imageWidth * xFactor * imageWidth + yFactor * imageHeight
-                * yFactor * imageHeight;
-        int pos = 0;
-        for (int j = 0; j < imageHeight; j++) {
-            double jj = yFactor * j;
-            for (int i = 0; i < imageWidth; i++) {
-                double ii = xFactor * i;
-                double z = hasConstantZ ? 1.0 : Math.sqrt(m2 - ii * ii - jj
-                        * jj);
-                double noise = 0.5 + 0.5 * PerlinNoiseGenerator
-                        .noise(ii, jj, z);
-                if (noiseFilter != null)
-                    noise = noiseFilter.apply(i, j, z, noise);
+        // the noise is computed in the pixel space of the full image
+        double scaleFactor = NeonCortex.getScaleFactor();
+        int imageWidth = (int) Math.ceil(scaleFactor * width);
+        int imageHeight = (int) Math.ceil(scaleFactor * height);
+        int regionX = (int) Math.ceil(scaleFactor * region.x);
+        int regionY = (int) Math.ceil(scaleFactor * region.y);
 
-                double likeness = Math.max(0.0, Math.min(1.0, 2.0 * noise));
-                // likeness = 0.0;
-                dstBuffer[pos++] = SubstanceColorUtilities.getInterpolatedRGB(
-                        c3, c1, likeness);
-            }
-        }
-        // System.out.println((dstBuffer[0] >>> 24) & 0xFF);
+        float[] blurKernel = null;
         if (toBlur) {
-            float edgeBlur = 0.08f / (float) NeonCortex.getScaleFactor();
-            ConvolveOp convolve = new ConvolveOp(new Kernel(3, 3, new float[] {
-                    edgeBlur, edgeBlur, edgeBlur, edgeBlur, 1.06f - 8 * edgeBlur, edgeBlur,
-                    edgeBlur, edgeBlur, edgeBlur }),
-                    ConvolveOp.EDGE_NO_OP, null);
-            dst = convolve.filter(dst, NeonCortex.getBlankImage(width, height));
+            float edgeBlur = 0.08f / (float) scaleFactor;
+            blurKernel = new float[] { edgeBlur, edgeBlur, edgeBlur, edgeBlur,
+                    1.06f - 8 * edgeBlur, edgeBlur, edgeBlur, edgeBlur, edgeBlur };
         }
+        new NoiseRenderer(imageWidth, imageHeight, xFactor, yFactor, hasConstantZ,
+                (noiseFilter == null) ? null : noiseFilter::apply, c3, c1, blurKernel)
+                .render(dstBuffer, regionX, regionY, dst.getWidth(), dst.getHeight());
         return dst;
     }
 }
@@ -37,7 +37,9 @@ package org.pushingpixels.substance.extras.api.painterpack.noise;
  */
 public interface NoiseFilter {
 	/**
-	 * Applies filter on the noise at the specified location.
+	 * Applies filter on the noise at the specified location. Noise images are
+	 * computed on multiple threads, and this method can be called from
+	 * multiple threads at the same time.
 	 * 
 	 * @param x
 	 *            X coordinate.
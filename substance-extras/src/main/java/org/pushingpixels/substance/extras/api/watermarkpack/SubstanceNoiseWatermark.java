@@ -10,6 +10,10 @@ import org.pushingpixels.substance.extras.api.painterpack.noise.NoiseFilter;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Base class for noise-based watermarks. This class is part of officially
@@ -19,9 +23,32 @@ import java.awt.image.BufferedImage;
  */
 public class SubstanceNoiseWatermark implements SubstanceWatermark {
     /**
-     * Watermark image (screen-sized).
+     * Size of a single watermark tile. A multiple of 4 keeps the tiles aligned
+     * to the pixel grid for fractional high DPI scale factors.
      */
-    private BufferedImage watermarkImage = null;
+    private static final int TILE_SIZE = 256;
+
+    /**
+     * Skin for painting the watermark tiles.
+     */
+    private SubstanceSkin watermarkSkin = null;
+
+    /**
+     * Screen bounds covered by the watermark tiles.
+     */
+    private Rectangle watermarkBounds = null;
+
+    /**
+     * The number of tile columns in {@link #watermarkBounds}.
+     */
+    private int tileColumns;
+
+    /**
+     * Watermark tiles in row-major order. Each tile is computed the first time
+     * it is painted, or when the watermark is updated if it intersects a window
+     * showing at that time.
+     */
+    private BufferedImage[] tiles = null;
 
     /**
      * Display name of <code>this</code> watermark.
@@ -82,9 +109,30 @@ public class SubstanceNoiseWatermark implements SubstanceWatermark {
             int y, int width, int height) {
         if (!c.isShowing())
             return;
-        int dx = c.getLocationOnScreen().x;
-        int dy = c.getLocationOnScreen().y;
-        NeonCortex.drawImage(graphics, this.watermarkImage, x, y, width, height, dx, dy);
+        Point locationOnScreen = c.getLocationOnScreen();
+        int dx = locationOnScreen.x;
+        int dy = locationOnScreen.y;
+        synchronized (this) {
+            if (this.tiles == null)
+                return;
+            Rectangle area = new Rectangle(dx + x, dy + y, width, height);
+            for (int index : this.computeTiles(Collections.singletonList(area))) {
+                Rectangle tileBounds = this.getTileBounds(index);
+                Rectangle tileArea = tileBounds.intersection(area);
+                BufferedImage tile = this.tiles[index];
+                // tiles have more pixels than their screen bounds on high DPI
+                // screens
+                double scaleX = (double) tile.getWidth() / tileBounds.width;
+                double scaleY = (double) tile.getHeight() / tileBounds.height;
+                int sx = tileArea.x - tileBounds.x;
+                int sy = tileArea.y - tileBounds.y;
+                graphics.drawImage(tile, tileArea.x - dx, tileArea.y - dy,
+                        tileArea.x - dx + tileArea.width, tileArea.y - dy + tileArea.height,
+                        (int) Math.round(sx * scaleX), (int) Math.round(sy * scaleY),
+                        (int) Math.round((sx + tileArea.width) * scaleX),
+                        (int) Math.round((sy + tileArea.height) * scaleY), null);
+            }
+        }
     }
 
     @Override
@@ -99,16 +147,85 @@ public class SubstanceNoiseWatermark implements SubstanceWatermark {
             virtualBounds = virtualBounds.union(gc.getBounds());
         }
 
-        int screenWidth = virtualBounds.width;
-        int screenHeight = virtualBounds.height;
-        this.watermarkImage = NeonCortex.getBlankImage(screenWidth, screenHeight);
+        // only compute the tiles under the currently showing windows. The
+        // rest are computed when they are painted for the first time
+        List<Rectangle> windowBounds = new ArrayList<>();
+        for (Window window : Window.getWindows()) {
+            if (window.isShowing()) {
+                windowBounds.add(window.getBounds());
+            }
+        }
 
-        Graphics2D graphics = this.watermarkImage.createGraphics();
+        synchronized (this) {
+            this.watermarkSkin = skin;
+            this.watermarkBounds = virtualBounds;
+            this.tileColumns = (virtualBounds.width + TILE_SIZE - 1) / TILE_SIZE;
+            int tileRows = (virtualBounds.height + TILE_SIZE - 1) / TILE_SIZE;
+            this.tiles = new BufferedImage[this.tileColumns * tileRows];
+            this.computeTiles(windowBounds);
+        }
+        return true;
+    }
 
-        boolean status = this.drawWatermarkImage(skin, graphics, 0, 0,
-                screenWidth, screenHeight, false);
-        graphics.dispose();
-        return status;
+    /**
+     * Computes all the tiles that intersect the specified screen areas and
+     * haven't been computed yet. The missing tiles are computed in parallel.
+     *
+     * @param areas Screen areas.
+     * @return Indices of the tiles that intersect the areas.
+     */
+    private int[] computeTiles(List<Rectangle> areas) {
+        boolean[] isIntersecting = new boolean[this.tiles.length];
+        for (Rectangle area : areas) {
+            Rectangle intersection = area.intersection(this.watermarkBounds);
+            if (intersection.isEmpty())
+                continue;
+            int fromColumn = (intersection.x - this.watermarkBounds.x) / TILE_SIZE;
+            int toColumn = (intersection.x + intersection.width - 1
+                    - this.watermarkBounds.x) / TILE_SIZE;
+            int fromRow = (intersection.y - this.watermarkBounds.y) / TILE_SIZE;
+            int toRow = (intersection.y + intersection.height - 1
+                    - this.watermarkBounds.y) / TILE_SIZE;
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    isIntersecting[row * this.tileColumns + column] = true;
+                }
+            }
+        }
+
+        int[] result = IntStream.range(0, this.tiles.length)
+                .filter((int index) -> isIntersecting[index]).toArray();
+        IntStream.of(result).filter((int index) -> this.tiles[index] == null)
+                .parallel().forEach((int index) -> {
+                    Rectangle tileBounds = this.getTileBounds(index);
+                    // tile bounds relative to the watermark bounds
+                    tileBounds.translate(-this.watermarkBounds.x,
+                            -this.watermarkBounds.y);
+                    BufferedImage tile = NeonCortex.getBlankImage(
+                            tileBounds.width, tileBounds.height);
+                    Graphics2D graphics = tile.createGraphics();
+                    this.drawWatermarkImage(this.watermarkSkin, graphics, 0, 0,
+                            this.watermarkBounds.width, this.watermarkBounds.height,
+                            tileBounds, false);
+                    graphics.dispose();
+                    this.tiles[index] = tile;
+                });
+        return result;
+    }
+
+    /**
+     * Returns the screen bounds of the specified tile.
+     *
+     * @param index Tile index.
+     * @return Screen bounds of the tile.
+     */
+    private Rectangle getTileBounds(int index) {
+        int tileX = (index % this.tileColumns) * TILE_SIZE;
+        int tileY = (index / this.tileColumns) * TILE_SIZE;
+        return new Rectangle(this.watermarkBounds.x + tileX,
+                this.watermarkBounds.y + tileY,
+                Math.min(TILE_SIZE, this.watermarkBounds.width - tileX),
+                Math.min(TILE_SIZE, this.watermarkBounds.height - tileY));
     }
 
     @Override
@@ -119,7 +236,8 @@ public class SubstanceNoiseWatermark implements SubstanceWatermark {
     @Override
     public void previewWatermark(Graphics g, SubstanceSkin skin, int x, int y,
             int width, int height) {
-        this.drawWatermarkImage(skin, (Graphics2D) g, x, y, width, height, true);
+        this.drawWatermarkImage(skin, (Graphics2D) g, x, y, width, height,
+                new Rectangle(0, 0, width, height), true);
     }
 
     /**
@@ -131,29 +249,34 @@ public class SubstanceNoiseWatermark implements SubstanceWatermark {
      * @param y         The <i>y</i> coordinate of the watermark to be drawn.
      * @param width     The width of the watermark to be drawn.
      * @param height    The height of the watermark to be drawn.
+     * @param region    The region of the watermark to be drawn at
+     *                  <code>x</code> and <code>y</code>.
      * @param isPreview Indication whether the result is a preview image.
      * @return Indication whether the draw succeeded.
      */
     private boolean drawWatermarkImage(SubstanceSkin skin, Graphics2D graphics,
-            int x, int y, int width, int height, boolean isPreview) {
+            int x, int y, int width, int height, Rectangle region,
+            boolean isPreview) {
         SubstanceColorScheme scheme = skin.getWatermarkColorScheme();
         if (isPreview) {
             graphics.drawImage(NoiseFactory.getNoiseImage(skin, width, height,
-                    this.xFactor, this.yFactor, this.hasConstantZ,
+                    region, this.xFactor, this.yFactor, this.hasConstantZ,
                     this.noiseFilter, this.toBlur, true), x, y, null);
         } else {
             int alpha = scheme.isDark() ? 200 : 140;
             graphics.setComposite(AlphaComposite.getInstance(
                     AlphaComposite.SRC_OVER, alpha / 255.0f));
             graphics.drawImage(NoiseFactory.getNoiseImage(skin, width, height,
-                    this.xFactor, this.yFactor, this.hasConstantZ,
+                    region, this.xFactor, this.yFactor, this.hasConstantZ,
                     this.noiseFilter, this.toBlur, false), x, y, null);
         }
         return true;
     }
 
     @Override
-    public void dispose() {
-        this.watermarkImage = null;
+    public synchronized void dispose() {
+        this.watermarkSkin = null;
+        this.watermarkBounds = null;
+        this.tiles = null;
     }
 }
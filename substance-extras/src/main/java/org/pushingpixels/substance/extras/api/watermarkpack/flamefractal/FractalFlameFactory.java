@@ -36,6 +36,8 @@ import org.pushingpixels.substance.internal.utils.SubstanceColorUtilities;
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.image.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 
 /**
  * Factory for creating noise images.
@@ -44,7 +46,26 @@ import java.awt.image.*;
  */
 public class FractalFlameFactory {
     /**
-     * Returns a noise image.
+     * The number of initial iterations of each chaos game run that are not
+     * plotted, giving the point a chance to converge to the attractor.
+     */
+    private static final int WARM_UP_ITERATIONS = 20;
+
+    /**
+     * The minimal number of iterations worth running on a separate thread.
+     */
+    private static final int MIN_ITERATIONS_PER_THREAD = 100000;
+
+    /**
+     * The maximal memory (in bytes) taken by the per-thread histograms of a
+     * single image.
+     */
+    private static final long MAX_HISTOGRAM_MEMORY = 256L * 1024 * 1024;
+
+    /**
+     * Returns a noise image. The iterations are split across the threads of the
+     * common fork-join pool, and the resulting image does not depend on the
+     * number of threads.
      *
      * @param colorScheme1 The first color scheme to use for rendering the image.
      * @param colorScheme2 The second color scheme to use for rendering the image.
@@ -83,46 +104,94 @@ public class FractalFlameFactory {
 
         int imageWidth = dst.getWidth();
         int imageHeight = dst.getHeight();
-        long[] vals = new long[imageWidth * imageHeight];
-
-        long valMax = 0;
+        int[] vals = getHistogram(imageWidth, imageHeight, iterations, ifs);
 
-        int count = 0;
-        Point2D bc = new Point2D.Double(Math.random(), Math.random());
-        while (true) {
-            ifs.apply(bc);
-            count++;
-            if (count > 20) {
-                int x = (int) (imageWidth * (1.0 + bc.getX()) / 2);
-                int y = (int) (imageHeight * (1.0 + bc.getY()) / 2);
-                if ((x >= 0) && (x < imageWidth) && (y >= 0) && (y < imageHeight)) {
-                    int pos = y * imageWidth + x;
-                    vals[pos]++;
-                    valMax = Math.max(valMax, vals[pos]);
-                }
-            }
-            if (count == iterations) {
-                break;
-            }
+        int valMax = 0;
+        for (int val : vals) {
+            valMax = Math.max(valMax, val);
         }
+        double maxDensity = 0.9 * valMax;
 
-        for (int x = 0; x < imageWidth; x++) {
-            for (int y = 0; y < imageHeight; y++) {
+        IntStream.range(0, imageHeight).parallel().forEach((int y) -> {
+            for (int x = 0; x < imageWidth; x++) {
                 int pos = y * imageWidth + x;
-                double a = vals[pos] / (0.9 * valMax);
+                double a = vals[pos] / maxDensity;
                 double ai = Math.sqrt(Math.sqrt(a));
                 if (ai > 1.0)
                     ai = 1.0;
 
-                dstBuffer[pos++] = (ai < 0.5) ? SubstanceColorUtilities
+                dstBuffer[pos] = (ai < 0.5) ? SubstanceColorUtilities
                         .getInterpolatedRGB(c2, c1, 2.0 * ai)
                         : SubstanceColorUtilities.getInterpolatedRGB(c3, c2,
                         2.0 * (ai - .5));
             }
-        }
+        });
         return dst;
     }
 
+    /**
+     * Runs the chaos game of the specified function system and returns the
+     * number of hits for every pixel. The iterations are split between the
+     * threads of the common fork-join pool. Each thread plots into its own
+     * histogram, and the histograms are merged once all the threads are done.
+     *
+     * @param width      Histogram width.
+     * @param height     Histogram height.
+     * @param iterations The total number of iterations.
+     * @param ifs        Function system to use.
+     * @return The number of hits for every pixel, in row-major order.
+     */
+    private static int[] getHistogram(int width, int height, int iterations,
+            IteratedFunctionSystem ifs) {
+        int pixelCount = width * height;
+        // each thread gets a histogram of its own - limit the number of
+        // threads so that the histograms of huge images fit in memory
+        long maxThreadsForMemory = Math.max(1L,
+                MAX_HISTOGRAM_MEMORY / (4L * Math.max(1, pixelCount)));
+        int threadCount = (int) Math.min(Math.min(
+                Runtime.getRuntime().availableProcessors(), maxThreadsForMemory),
+                Math.max(1, iterations / MIN_ITERATIONS_PER_THREAD));
+
+        return IntStream.range(0, threadCount).parallel().mapToObj((int thread) -> {
+            int threadIterations = iterations / threadCount
+                    + ((thread < iterations % threadCount) ? 1 : 0);
+            return getPartialHistogram(width, height, threadIterations, ifs);
+        }).reduce((int[] vals1, int[] vals2) -> {
+            for (int pos = 0; pos < vals1.length; pos++) {
+                vals1[pos] += vals2[pos];
+            }
+            return vals1;
+        }).orElseGet(() -> new int[pixelCount]);
+    }
+
+    /**
+     * Runs a single chaos game of the specified function system on the
+     * current thread.
+     *
+     * @param width      Histogram width.
+     * @param height     Histogram height.
+     * @param iterations The number of iterations.
+     * @param ifs        Function system to use.
+     * @return The number of hits for every pixel, in row-major order.
+     */
+    private static int[] getPartialHistogram(int width, int height,
+            int iterations, IteratedFunctionSystem ifs) {
+        int[] vals = new int[width * height];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Point2D bc = new Point2D.Double(random.nextDouble(), random.nextDouble());
+        for (int count = 1; count <= iterations; count++) {
+            ifs.apply(bc, random);
+            if (count > WARM_UP_ITERATIONS) {
+                int x = (int) (width * (1.0 + bc.getX()) / 2);
+                int y = (int) (height * (1.0 + bc.getY()) / 2);
+                if ((x >= 0) && (x < width) && (y >= 0) && (y < height)) {
+                    vals[y * width + x]++;
+                }
+            }
+        }
+        return vals;
+    }
+
     /**
      * Returns a noise image.
      *
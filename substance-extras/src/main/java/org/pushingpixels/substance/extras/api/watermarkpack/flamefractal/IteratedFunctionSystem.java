@@ -32,6 +32,7 @@ package org.pushingpixels.substance.extras.api.watermarkpack.flamefractal;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class IteratedFunctionSystem {
 	private List<IteratedFunction> functions;
@@ -91,4 +92,22 @@ public class IteratedFunctionSystem {
 			this.rotations[rotRandom].apply(bc);
 		}
 	}
+
+	/**
+	 * Applies a randomly chosen function of this system to the specified
+	 * point. Unlike {@link #apply(Point2D)}, this does not modify the state of
+	 * this system, and can be called from multiple threads as long as each
+	 * thread passes its own point and random generator.
+	 * 
+	 * @param bc
+	 *            Point to apply the function to.
+	 * @param random
+	 *            Random generator to use for picking the functions.
+	 */
+	public void apply(Point2D bc, Random random) {
+		this.functions.get(random.nextInt(this.functions.size())).apply(bc);
+		if (this.rotationDegree > 1) {
+			this.rotations[random.nextInt(this.rotationDegree)].apply(bc);
+		}
+	}
 }
@@ -34,8 +34,13 @@ import org.pushingpixels.substance.api.SubstanceSkin;
 import org.pushingpixels.substance.api.colorscheme.SubstanceColorScheme;
 import org.pushingpixels.substance.api.watermark.SubstanceWatermark;
 
+import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Base class for flame fractal based watermarks.
@@ -44,9 +49,32 @@ import java.awt.image.BufferedImage;
  */
 public class SubstanceFlameFractalWatermark implements SubstanceWatermark {
     /**
-     * Watermark image (screen-sized).
+     * The number of iterations for the full-resolution watermark image.
      */
-    private BufferedImage watermarkImage = null;
+    private static final int ITERATIONS = 25000000;
+
+    /**
+     * Scale down factor of the low-resolution images shown while the
+     * full-resolution images are computed in progressive mode.
+     */
+    private static final int PROGRESSIVE_SCALE_DOWN = 4;
+
+    /**
+     * Watermark tiles. Contains a single tile that spans all the screens,
+     * unless {@link #setScreenTiles(boolean)} was called with
+     * <code>true</code>.
+     */
+    private volatile List<Tile> tiles = Collections.emptyList();
+
+    /**
+     * Indicates whether the watermark images are computed progressively.
+     */
+    private volatile boolean isProgressive = true;
+
+    /**
+     * Indicates whether each screen gets a watermark image of its own.
+     */
+    private volatile boolean hasScreenTiles = false;
 
     /**
      * Display name of <code>this</code> watermark.
@@ -70,36 +98,115 @@ public class SubstanceFlameFractalWatermark implements SubstanceWatermark {
         this.functionSystem = functionSystem;
     }
 
+    /**
+     * Sets the progressive mode of <code>this</code> watermark. In progressive
+     * mode, a low-resolution image is computed first and shown until the
+     * full-resolution image is computed in the background. Otherwise, the
+     * full-resolution image is computed right away. Progressive mode is on by
+     * default. The new value is used on the next call to
+     * {@link #updateWatermarkImage(SubstanceSkin)}.
+     *
+     * @param isProgressive If <code>true</code>, the watermark images are
+     *                      computed progressively.
+     */
+    public void setProgressive(boolean isProgressive) {
+        this.isProgressive = isProgressive;
+    }
+
+    /**
+     * Returns indication whether <code>this</code> watermark computes its
+     * images progressively.
+     *
+     * @return <code>true</code> if <code>this</code> watermark computes its
+     * images progressively.
+     */
+    public boolean isProgressive() {
+        return this.isProgressive;
+    }
+
+    /**
+     * Sets the tiling mode of <code>this</code> watermark. By default, a single
+     * flame is computed for the bounds of all the screens. In screen tiles
+     * mode, every screen gets a flame of its own, which is computed when that
+     * screen is painted for the first time. The new value is used on the next
+     * call to {@link #updateWatermarkImage(SubstanceSkin)}.
+     *
+     * @param hasScreenTiles If <code>true</code>, every screen gets a
+     *                       watermark image of its own.
+     */
+    public void setScreenTiles(boolean hasScreenTiles) {
+        this.hasScreenTiles = hasScreenTiles;
+    }
+
+    /**
+     * Returns indication whether every screen gets a watermark image of its
+     * own.
+     *
+     * @return <code>true</code> if every screen gets a watermark image of its
+     * own.
+     */
+    public boolean hasScreenTiles() {
+        return this.hasScreenTiles;
+    }
+
     @Override
     public void drawWatermarkImage(Graphics graphics, Component c, int x,
             int y, int width, int height) {
-        int dx = c.getLocationOnScreen().x;
-        int dy = c.getLocationOnScreen().y;
-        NeonCortex.drawImage(graphics, this.watermarkImage, x, y, width, height, dx, dy);
+        if (!c.isShowing())
+            return;
+        Point locationOnScreen = c.getLocationOnScreen();
+        int dx = locationOnScreen.x;
+        int dy = locationOnScreen.y;
+        Rectangle area = new Rectangle(dx + x, dy + y, width, height);
+        for (Tile tile : this.tiles) {
+            Rectangle tileArea = tile.bounds.intersection(area);
+            if (tileArea.isEmpty())
+                continue;
+            BufferedImage tileImage = tile.getImage();
+            if (tileImage == null)
+                continue;
+            // tile images have more pixels than their screen bounds on high
+            // DPI screens
+            double scaleX = (double) tileImage.getWidth() / tile.bounds.width;
+            double scaleY = (double) tileImage.getHeight() / tile.bounds.height;
+            int sx = tileArea.x - tile.bounds.x;
+            int sy = tileArea.y - tile.bounds.y;
+            graphics.drawImage(tileImage, tileArea.x - dx, tileArea.y - dy,
+                    tileArea.x - dx + tileArea.width, tileArea.y - dy + tileArea.height,
+                    (int) Math.round(sx * scaleX), (int) Math.round(sy * scaleY),
+                    (int) Math.round((sx + tileArea.width) * scaleX),
+                    (int) Math.round((sy + tileArea.height) * scaleY), null);
+        }
     }
 
     @Override
     public boolean updateWatermarkImage(SubstanceSkin skin) {
-        // fix by Chris for bug 67 - support for multiple screens
-        Rectangle virtualBounds = new Rectangle();
+        List<Tile> tiles = new ArrayList<Tile>();
         GraphicsEnvironment ge = GraphicsEnvironment
                 .getLocalGraphicsEnvironment();
         GraphicsDevice[] gds = ge.getScreenDevices();
-        for (GraphicsDevice gd : gds) {
-            GraphicsConfiguration gc = gd.getDefaultConfiguration();
-            virtualBounds = virtualBounds.union(gc.getBounds());
+        if (this.hasScreenTiles) {
+            for (GraphicsDevice gd : gds) {
+                tiles.add(new Tile(skin, gd.getDefaultConfiguration().getBounds()));
+            }
+        } else {
+            // fix by Chris for bug 67 - support for multiple screens
+            Rectangle virtualBounds = new Rectangle();
+            for (GraphicsDevice gd : gds) {
+                GraphicsConfiguration gc = gd.getDefaultConfiguration();
+                virtualBounds = virtualBounds.union(gc.getBounds());
+            }
+            tiles.add(new Tile(skin, virtualBounds));
         }
 
-        int screenWidth = virtualBounds.width;
-        int screenHeight = virtualBounds.height;
-        this.watermarkImage = NeonCortex.getBlankImage(screenWidth, screenHeight);
-
-        Graphics2D graphics = this.watermarkImage.createGraphics();
-
-        boolean status = this.drawWatermarkImage(skin, graphics, 0, 0,
-                screenWidth, screenHeight, false);
-        graphics.dispose();
-        return status;
+        this.dispose();
+        this.tiles = Collections.unmodifiableList(tiles);
+        if (!this.hasScreenTiles) {
+            // the single tile is computed right away, as it is needed for
+            // every window
+            return tiles.get(0).getImage() != null;
+        }
+        return true;
     }
 
     @Override
@@ -120,11 +227,13 @@ public class SubstanceFlameFractalWatermark implements SubstanceWatermark {
      * @param y         The <i>y</i> coordinate of the watermark to be drawn.
      * @param width     The width of the watermark to be drawn.
      * @param height    The height of the watermark to be drawn.
+     * @param scaleDown Scale down factor of the computed flame. The flame is
+     *                  scaled back up to the requested size when it is drawn.
      * @param isPreview Indication whether the result is a preview image.
      * @return Indication whether the draw succeeded.
      */
     private boolean drawWatermarkImage(SubstanceSkin skin, Graphics2D graphics,
-            int x, int y, int width, int height, boolean isPreview) {
+            int x, int y, int width, int height, int scaleDown, boolean isPreview) {
         if (isPreview) {
             // graphics.drawImage(NoiseFactory.getNoiseImage(
             // SubstanceCoreUtilities.getDefaultTheme(null)
@@ -132,20 +241,127 @@ public class SubstanceFlameFractalWatermark implements SubstanceWatermark {
             // SubstanceCoreUtilities.getDefaultTheme(null)
             // .getSecondTheme().getColorScheme(), width, height,
             // this.xFactor, this.yFactor, this.hasConstantZ,
-            // this.noiseFilter, this.toBlur), x, y, null);
+            // this.noiseFilter, this.toBlur), x, y);
         } else {
             SubstanceColorScheme scheme = skin.getWatermarkColorScheme();
             int alpha = scheme.isDark() ? 200 : 250;
             graphics.setComposite(AlphaComposite.getInstance(
                     AlphaComposite.SRC_OVER, alpha / 255.0f));
-            NeonCortex.drawImage(graphics, FractalFlameFactory.getFractalFlameImage(scheme,
-                    scheme, width, height, 25000000, this.functionSystem), x, y);
+            if (scaleDown == 1) {
+                NeonCortex.drawImage(graphics, FractalFlameFactory.getFractalFlameImage(
+                        scheme, scheme, width, height, ITERATIONS, this.functionSystem),
+                        x, y);
+            } else {
+                // keep the same number of iterations per pixel as in the
+                // full-resolution image
+                BufferedImage flame = FractalFlameFactory.getFractalFlameImage(
+                        scheme, scheme, Math.max(1, width / scaleDown),
+                        Math.max(1, height / scaleDown),
+                        ITERATIONS / (scaleDown * scaleDown), this.functionSystem);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(flame, x, y, width, height, null);
+            }
         }
         return true;
     }
 
+    /**
+     * Creates a watermark image of the specified size.
+     *
+     * @param skin      Skin to use for painting the watermark.
+     * @param width     Image width.
+     * @param height    Image height.
+     * @param scaleDown Scale down factor of the computed flame.
+     * @return Watermark image, or <code>null</code> if the flame could not be
+     * drawn.
+     */
+    private BufferedImage createWatermarkImage(SubstanceSkin skin, int width,
+            int height, int scaleDown) {
+        BufferedImage result = NeonCortex.getBlankImage(width, height);
+        Graphics2D graphics = result.createGraphics();
+        boolean status = this.drawWatermarkImage(skin, graphics, 0, 0, width,
+                height, scaleDown, false);
+        graphics.dispose();
+        return status ? result : null;
+    }
+
     @Override
     public void dispose() {
-        this.watermarkImage = null;
+        for (Tile tile : this.tiles) {
+            tile.dispose();
+        }
+        this.tiles = Collections.emptyList();
+    }
+
+    /**
+     * Part of the screen area covered by a single watermark image. The image
+     * is computed on the first request.
+     */
+    private final class Tile {
+        /**
+         * Skin for painting the image of this tile.
+         */
+        private final SubstanceSkin skin;
+
+        /**
+         * Screen bounds of this tile.
+         */
+        private final Rectangle bounds;
+
+        /**
+         * Current image of this tile. In progressive mode this is a
+         * low-resolution image until the full-resolution image is ready.
+         */
+        private BufferedImage image;
+
+        /**
+         * Indicates whether this tile is no longer used by the watermark.
+         */
+        private boolean isDisposed;
+
+        private Tile(SubstanceSkin skin, Rectangle bounds) {
+            this.skin = skin;
+            this.bounds = bounds;
+        }
+
+        private synchronized BufferedImage getImage() {
+            if ((this.image == null) && !this.isDisposed
+                    && !this.bounds.isEmpty()) {
+                boolean isProgressive = SubstanceFlameFractalWatermark.this.isProgressive;
+                this.image = createWatermarkImage(this.skin, this.bounds.width,
+                        this.bounds.height, isProgressive ? PROGRESSIVE_SCALE_DOWN : 1);
+                if (isProgressive) {
+                    ForkJoinPool.commonPool().execute(this::computeFullImage);
+                }
+            }
+            return this.image;
+        }
+
+        private void computeFullImage() {
+            synchronized (this) {
+                if (this.isDisposed)
+                    return;
+            }
+            BufferedImage fullImage = createWatermarkImage(this.skin,
+                    this.bounds.width, this.bounds.height, 1);
+            synchronized (this) {
+                if (this.isDisposed || (fullImage == null))
+                    return;
+                this.image = fullImage;
+            }
+            SwingUtilities.invokeLater(() -> {
+                for (Window window : Window.getWindows()) {
+                    if (window.isShowing() && window.getBounds().intersects(this.bounds)) {
+                        window.repaint();
+                    }
+                }
+            });
+        }
+
+        private synchronized void dispose() {
+            this.isDisposed = true;
+            this.image = null;
+        }
     }
 }
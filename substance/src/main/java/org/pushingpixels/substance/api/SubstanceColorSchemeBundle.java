@@ -295,15 +295,8 @@ public class SubstanceColorSchemeBundle {
         }
 
         // for now look for the best fit only on active states
-        Map<ComponentState, ComponentState> bestFitForFill = this.bestFillMap
-                .get(ColorSchemeAssociationKind.FILL);
-        if (!bestFitForFill.containsKey(componentState)) {
-            Collection<ComponentState> registeredStates = this.colorSchemeMap
-                    .get(ColorSchemeAssociationKind.FILL).keySet();
-            bestFitForFill.put(componentState, componentState
-                    .bestFit(registeredStates));
-        }
-        ComponentState bestFit = bestFitForFill.get(componentState);
+        ComponentState bestFit = this.getBestFit(ColorSchemeAssociationKind.FILL,
+                componentState);
         if (bestFit != null) {
             registered = this.colorSchemeMap.get(ColorSchemeAssociationKind.FILL).get(bestFit);
             if (registered != null) {
@@ -311,6 +304,60 @@ public class SubstanceColorSchemeBundle {
             }
         }
 
+        SubstanceColorScheme synthesized = this.getSynthesizedColorScheme(componentState);
+        if (synthesized != null) {
+            return synthesized;
+        }
+
+        ComponentState hardFallback = componentState.getHardFallback();
+        if (hardFallback != null) {
+            return this.getColorScheme(hardFallback);
+        }
+
+        if (componentState == ComponentState.ENABLED) {
+            return this.enabledColorScheme;
+        }
+        if (componentState.isDisabled()) {
+            return this.disabledColorScheme;
+        }
+        return this.activeColorScheme;
+    }
+
+    /**
+     * Returns the state that best fits the specified component state among the states that
+     * have a registered color scheme for the specified association kind. The best fits are
+     * computed lazily, and can be computed on the background thread that prepares a skin for
+     * an asynchronous skin switch while the skin is being set on the Event Dispatch Thread.
+     *
+     * @param associationKind Color scheme association kind.
+     * @param componentState  Component state.
+     * @return The registered state that best fits the specified component state, or
+     * <code>null</code> if there is none.
+     */
+    private synchronized ComponentState getBestFit(ColorSchemeAssociationKind associationKind,
+            ComponentState componentState) {
+        Map<ComponentState, ComponentState> bestFitForState = this.bestFillMap
+                .get(associationKind);
+        if (!bestFitForState.containsKey(componentState)) {
+            Collection<ComponentState> registeredStates = this.colorSchemeMap
+                    .get(associationKind).keySet();
+            bestFitForState.put(componentState, componentState
+                    .bestFit(registeredStates));
+        }
+        return bestFitForState.get(componentState);
+    }
+
+    /**
+     * Returns the color scheme that is synthesized for the specified component state when
+     * there is no explicitly registered color scheme for that state.
+     *
+     * @param componentState Component state.
+     * @return The synthesized color scheme for the specified component state, or
+     * <code>null</code> if this bundle does not synthesize a color scheme for that state.
+     * @see #getBestFit(ColorSchemeAssociationKind, ComponentState)
+     */
+    private synchronized SubstanceColorScheme getSynthesizedColorScheme(
+            ComponentState componentState) {
         if (componentState.isFacetActive(ComponentStateFacet.PRESS)) {
             if (this.pressedScheme == null) {
                 this.pressedScheme = this.activeColorScheme.shade(0.2).saturate(0.1);
@@ -336,19 +383,7 @@ public class SubstanceColorSchemeBundle {
             }
             return this.rolloverSelectedScheme;
         }
-
-        ComponentState hardFallback = componentState.getHardFallback();
-        if (hardFallback != null) {
-            return this.getColorScheme(hardFallback);
-        }
-
-        if (componentState == ComponentState.ENABLED) {
-            return this.enabledColorScheme;
-        }
-        if (componentState.isDisabled()) {
-            return this.disabledColorScheme;
-        }
-        return this.activeColorScheme;
+        return null;
     }
 
     /**
@@ -479,15 +514,7 @@ public class SubstanceColorSchemeBundle {
 
         // if (componentState.isActive()) {
         // for now look for the best fit only on active states
-        Map<ComponentState, ComponentState> bestFitForState = this.bestFillMap
-                .get(associationKind);
-        if (!bestFitForState.containsKey(componentState)) {
-            Collection<ComponentState> registeredStates = this.colorSchemeMap
-                    .get(associationKind).keySet();
-            bestFitForState.put(componentState, componentState
-                    .bestFit(registeredStates));
-        }
-        ComponentState bestFit = bestFitForState.get(componentState);
+        ComponentState bestFit = this.getBestFit(associationKind, componentState);
         if (bestFit != null) {
             registered = this.colorSchemeMap.get(associationKind).get(bestFit);
             if (registered != null)
@@ -41,6 +41,7 @@ import org.pushingpixels.substance.api.password.PasswordStrengthChecker;
 import org.pushingpixels.substance.api.shaper.*;
 import org.pushingpixels.substance.api.skin.*;
 import org.pushingpixels.substance.api.tabbed.*;
+import org.pushingpixels.substance.api.watermark.SubstanceWatermark;
 import org.pushingpixels.substance.internal.*;
 import org.pushingpixels.substance.internal.painter.DecorationPainterUtils;
 import org.pushingpixels.substance.internal.ui.SubstanceRootPaneUI;
@@ -52,6 +53,8 @@ import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * This class is the only officially-supported entry point into configuring the behavior of
@@ -98,6 +101,23 @@ public class SubstanceCortex {
          */
         private static SubstanceSkin currentSkin = null;
 
+        /**
+         * The asynchronous skin switch that is in progress, or <code>null</code> if there is
+         * none.
+         */
+        private static AsyncSkinSwitch pendingSkinSwitch;
+
+        /**
+         * Runs the background preparations of asynchronous skin switches one at a time, so
+         * that the image of a watermark is never computed by two preparations at once.
+         */
+        private static final ExecutorService skinPreparationExecutor =
+                Executors.newSingleThreadExecutor((Runnable runnable) -> {
+                    Thread thread = new Thread(runnable, "Substance skin switch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
         /**
          * List of all listeners on skin changes.
          */
@@ -139,6 +159,10 @@ public class SubstanceCortex {
                         "This method must be called on the Event Dispatch Thread");
             }
 
+            // the preparation of an earlier asynchronous switch stops at its next step, and
+            // its result is discarded
+            cancelPendingSkinSwitch();
+
             if (!newSkin.isValid())
                 return false;
 
@@ -171,44 +195,10 @@ public class SubstanceCortex {
                     return false;
                 }
 
-                // fix for defect 109 - memory leak on watermark switch
-                if ((currentSkin != null) && (currentSkin.getWatermark() != null)) {
-                    currentSkin.getWatermark().dispose();
-                }
-                if (newSkin.getWatermark() != null) {
-                    if (!newSkin.getWatermark().updateWatermarkImage(newSkin)) {
-                        return false;
-                    }
-                }
-
-                UIDefaults lafDefaults = UIManager.getLookAndFeelDefaults();
-                UIDefaults defaults = lafDefaults;
-                // The table will be null when the skin is set using a custom
-                // LAF
-                if (defaults != null) {
-                    initFontDefaults(lafDefaults, getFontPolicy().getFontSet(null));
-                    newSkin.addCustomEntriesToTable(lafDefaults);
-                    SubstancePluginRepository.getInstance()
-                            .processAllDefaultsEntriesComponentPlugins(lafDefaults, newSkin);
-                }
-
-                // file chooser strings go to the main UIManager table
-                ResourceBundle substanceBundle = getLabelBundle();
-                Enumeration<String> keyEn = substanceBundle.getKeys();
-                while (keyEn.hasMoreElements()) {
-                    String key = keyEn.nextElement();
-                    if (key.indexOf("FileChooser") != -1) {
-                        String value = substanceBundle.getString(key);
-                        UIManager.put(key, value);
-                    }
-                }
-
-                if (isSubstance) {
-                    LazyResettableHashMap.reset();
+                if (!applySkin(newSkin, false)) {
+                    return false;
                 }
 
-                currentSkin = newSkin;
-
                 if (toUpdateWindows) {
                     SubstanceCoreUtilities.updateActiveUi();
                 }
@@ -228,6 +218,55 @@ public class SubstanceCortex {
             }
         }
 
+        /**
+         * Makes the specified skin current, updating the look-and-feel defaults and clearing
+         * the image caches. Does not update the UI of the existing windows.
+         *
+         * @param newSkin           Skin to set.
+         * @param isWatermarkReady  If <code>true</code>, the watermark image of the new skin
+         *                          has already been computed.
+         * @return <code>true</code> if the specified skin has been set successfully,
+         * <code>false</code> otherwise.
+         */
+        private static boolean applySkin(SubstanceSkin newSkin, boolean isWatermarkReady) {
+            // fix for defect 109 - memory leak on watermark switch
+            if ((currentSkin != null) && (currentSkin.getWatermark() != null)) {
+                currentSkin.getWatermark().dispose();
+            }
+            if ((newSkin.getWatermark() != null) && !isWatermarkReady) {
+                if (!newSkin.getWatermark().updateWatermarkImage(newSkin)) {
+                    return false;
+                }
+            }
+
+            UIDefaults lafDefaults = UIManager.getLookAndFeelDefaults();
+            UIDefaults defaults = lafDefaults;
+            // The table will be null when the skin is set using a custom
+            // LAF
+            if (defaults != null) {
+                initFontDefaults(lafDefaults, getFontPolicy().getFontSet(null));
+                newSkin.addCustomEntriesToTable(lafDefaults);
+                SubstancePluginRepository.getInstance()
+                        .processAllDefaultsEntriesComponentPlugins(lafDefaults, newSkin);
+            }
+
+            // file chooser strings go to the main UIManager table
+            ResourceBundle substanceBundle = getLabelBundle();
+            Enumeration<String> keyEn = substanceBundle.getKeys();
+            while (keyEn.hasMoreElements()) {
+                String key = keyEn.nextElement();
+                if (key.indexOf("FileChooser") != -1) {
+                    String value = substanceBundle.getString(key);
+                    UIManager.put(key, value);
+                }
+            }
+
+            LazyResettableHashMap.reset();
+
+            currentSkin = newSkin;
+            return true;
+        }
+
         static void unsetSkin() {
             currentSkin = null;
         }
@@ -291,6 +330,326 @@ public class SubstanceCortex {
             }
         }
 
+        /**
+         * Sets the specified skin without blocking the Event Dispatch Thread for the duration
+         * of the whole switch. The derived color schemes and the watermark image of the new
+         * skin are computed on a background thread. The skin is then applied on the Event
+         * Dispatch Thread, and the UI of the existing windows is updated one window at a time,
+         * starting with the active window and the showing windows. Each window is updated in a
+         * separate event, so that the Event Dispatch Thread can process other events between
+         * them. If the current look-and-feel is not Substance, this method sets the skin
+         * synchronously, as {@link #setSkin(SubstanceSkin)} does.
+         *
+         * <p>Calling this method or {@link #setSkin(SubstanceSkin)} before the previous
+         * asynchronous switch is over supersedes that switch.</p>
+         *
+         * @param newSkin  Skin to set.
+         * @param listener Listener to be notified on the progress of the switch. Can be
+         *                 <code>null</code>.
+         * @throws IllegalStateException When called outside the Event Dispatch Thread.
+         * @see #setSkin(SubstanceSkin)
+         * @see #registerSkinChangeListener(SkinChangeListener)
+         */
+        public static void setSkinAsync(SubstanceSkin newSkin, SkinSwitchListener listener) {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                throw new IllegalStateException(
+                        "This method must be called on the Event Dispatch Thread");
+            }
+
+            if (!(UIManager.getLookAndFeel() instanceof SubstanceLookAndFeel)
+                    || !newSkin.isValid()) {
+                long start = System.nanoTime();
+                boolean result = setSkin(newSkin, true);
+                if (listener != null) {
+                    listener.skinSwitchCompleted(result, 0,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+                return;
+            }
+
+            AsyncSkinSwitch previous = pendingSkinSwitch;
+            AsyncSkinSwitch skinSwitch = new AsyncSkinSwitch(newSkin, listener);
+            pendingSkinSwitch = skinSwitch;
+            // a switch to the same skin that is still being prepared hands over its
+            // preparation instead of starting another one
+            boolean isHandedOver = (previous != null)
+                    && previous.handOverPreparation(skinSwitch);
+            if (previous != null) {
+                previous.cancel();
+            }
+            if (!isHandedOver) {
+                skinSwitch.start();
+            }
+        }
+
+        private static void cancelPendingSkinSwitch() {
+            if (pendingSkinSwitch != null) {
+                AsyncSkinSwitch skinSwitch = pendingSkinSwitch;
+                pendingSkinSwitch = null;
+                skinSwitch.cancel();
+            }
+        }
+
+        /**
+         * Background preparation of a skin for an asynchronous skin switch. Computes the
+         * derived color schemes and the watermark image of the skin, and hands the result
+         * over to the switch that currently owns the preparation.
+         */
+        private static final class SkinPreparation implements Runnable {
+            private final SubstanceSkin skin;
+
+            private final boolean toPrecomputeColorSchemes;
+
+            /**
+             * The watermark to compute the image for, or <code>null</code> if its image is
+             * computed when the skin is applied.
+             */
+            private final SubstanceWatermark watermark;
+
+            private volatile boolean isCancelled;
+
+            /**
+             * Indicates that {@link #watermark} has computed its image on the preparation
+             * thread.
+             */
+            private boolean isWatermarkUpdated;
+
+            /**
+             * The switch that is waiting for this preparation. Is only accessed on the Event
+             * Dispatch Thread, and is set to <code>null</code> when the preparation is
+             * cancelled or its result is delivered.
+             */
+            private AsyncSkinSwitch owner;
+
+            private SkinPreparation(SubstanceSkin skin, boolean toPrecomputeColorSchemes,
+                    SubstanceWatermark watermark, AsyncSkinSwitch owner) {
+                this.skin = skin;
+                this.toPrecomputeColorSchemes = toPrecomputeColorSchemes;
+                this.watermark = watermark;
+                this.owner = owner;
+            }
+
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                boolean isPrepared = !this.isCancelled;
+                boolean isWatermarkReady = false;
+                try {
+                    if (this.toPrecomputeColorSchemes && !this.isCancelled) {
+                        this.skin.precomputeColorSchemes();
+                    }
+                    if ((this.watermark != null) && !this.isCancelled) {
+                        this.isWatermarkUpdated = true;
+                        isPrepared = this.watermark.updateWatermarkImage(this.skin);
+                        isWatermarkReady = isPrepared;
+                    }
+                } catch (Throwable t) {
+                    t.printStackTrace(System.out);
+                    isPrepared = false;
+                }
+                long preparationTime = System.nanoTime() - start;
+
+                boolean toApply = isPrepared;
+                boolean toKeepWatermark = isWatermarkReady;
+                SwingUtilities.invokeLater(() -> {
+                    AsyncSkinSwitch skinSwitch = this.owner;
+                    this.owner = null;
+                    if (skinSwitch != null) {
+                        skinSwitch.prepared(toApply, toKeepWatermark, preparationTime);
+                    } else if (this.isWatermarkUpdated) {
+                        this.discardWatermarkImage();
+                    }
+                });
+            }
+
+            /**
+             * Discards the watermark image computed by this cancelled preparation. Some
+             * watermarks keep their image in a static field, so the image of the current
+             * watermark is computed again if it is of the same class, as the current skin may
+             * have been set while this preparation was running.
+             */
+            private void discardWatermarkImage() {
+                SubstanceWatermark currentWatermark = (currentSkin != null)
+                        ? currentSkin.getWatermark() : null;
+                if ((currentWatermark == null)
+                        || (currentWatermark.getClass() != this.watermark.getClass())) {
+                    if (!SubstanceRootPaneUI.hasCustomSkinOnAtLeastOneRootPane()) {
+                        this.watermark.dispose();
+                    }
+                    return;
+                }
+                if (currentSkin != this.skin) {
+                    currentWatermark.updateWatermarkImage(currentSkin);
+                    for (Window window : Window.getWindows()) {
+                        window.repaint();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Skin switch started by {@link #setSkinAsync(SubstanceSkin, SkinSwitchListener)}.
+         */
+        private static final class AsyncSkinSwitch {
+            private final SubstanceSkin newSkin;
+
+            private final SkinSwitchListener listener;
+
+            private boolean isCancelled;
+
+            private boolean isWatermarkReady;
+
+            /**
+             * The background preparation of the skin, or <code>null</code> if it has not been
+             * started or has been handed over to another switch.
+             */
+            private SkinPreparation preparation;
+
+            private long preparationTime;
+
+            private long updateTime;
+
+            private List<Window> windows;
+
+            private int updatedWindowCount;
+
+            private AsyncSkinSwitch(SubstanceSkin newSkin, SkinSwitchListener listener) {
+                this.newSkin = newSkin;
+                this.listener = listener;
+            }
+
+            private void start() {
+                // The color schemes of a skin that is already in use have already been
+                // resolved on the Event Dispatch Thread.
+                boolean toPrecomputeColorSchemes = (this.newSkin != currentSkin)
+                        && !SubstanceRootPaneUI.hasCustomSkinOnAtLeastOneRootPane();
+                // Some watermarks keep their image in a static field, so the watermark image
+                // is only computed on another thread if the current watermark is of a
+                // different class.
+                SubstanceWatermark newWatermark = this.newSkin.getWatermark();
+                SubstanceWatermark currentWatermark = (currentSkin != null)
+                        ? currentSkin.getWatermark() : null;
+                boolean toPrecomputeWatermark = (newWatermark != null)
+                        && ((currentWatermark == null)
+                        || (currentWatermark.getClass() != newWatermark.getClass()));
+
+                this.preparation = new SkinPreparation(this.newSkin, toPrecomputeColorSchemes,
+                        toPrecomputeWatermark ? newWatermark : null, this);
+                skinPreparationExecutor.execute(this.preparation);
+            }
+
+            /**
+             * Hands over the preparation of this switch to the specified switch if both
+             * switch to the same skin and the preparation is not over yet.
+             *
+             * @param successor Switch that supersedes this switch.
+             * @return <code>true</code> if the preparation has been handed over,
+             * <code>false</code> otherwise.
+             */
+            private boolean handOverPreparation(AsyncSkinSwitch successor) {
+                if ((this.preparation == null) || (this.preparation.owner != this)
+                        || (this.newSkin != successor.newSkin)) {
+                    return false;
+                }
+                successor.preparation = this.preparation;
+                this.preparation.owner = successor;
+                this.preparation = null;
+                return true;
+            }
+
+            private void prepared(boolean isPrepared, boolean isWatermarkReady,
+                    long preparationTime) {
+                this.preparation = null;
+                this.isWatermarkReady = isWatermarkReady;
+                this.preparationTime = preparationTime;
+                this.apply(isPrepared);
+            }
+
+            private void apply(boolean isPrepared) {
+                if (this.isCancelled) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                boolean isApplied = false;
+                if (isPrepared && (UIManager.getLookAndFeel() instanceof SubstanceLookAndFeel)) {
+                    try {
+                        isApplied = applySkin(this.newSkin, this.isWatermarkReady);
+                    } catch (NoClassDefFoundError ncdfe) {
+                        // this may happen when a skin references some class
+                        // that can't be found in the classpath.
+                        ncdfe.printStackTrace(System.out);
+                    } catch (Exception e) {
+                        e.printStackTrace(System.out);
+                    }
+                }
+                this.updateTime += System.nanoTime() - start;
+                if (!isApplied) {
+                    this.finish(false);
+                    return;
+                }
+
+                // the active window first, then the rest of the showing windows
+                this.windows = new ArrayList<>(Arrays.asList(Window.getWindows()));
+                this.windows.sort(Comparator.comparingInt((Window window) ->
+                        window.isActive() ? 0 : (window.isShowing() ? 1 : 2)));
+                SwingUtilities.invokeLater(this::updateNextWindow);
+            }
+
+            private void updateNextWindow() {
+                if (this.isCancelled) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                if (this.updatedWindowCount < this.windows.size()) {
+                    Window window = this.windows.get(this.updatedWindowCount++);
+                    SwingUtilities.updateComponentTreeUI(window);
+                    this.updateTime += System.nanoTime() - start;
+                    if (this.listener != null) {
+                        this.listener.windowUpdated(window, this.updatedWindowCount,
+                                this.windows.size());
+                    }
+                    SwingUtilities.invokeLater(this::updateNextWindow);
+                    return;
+                }
+
+                for (MenuElement menuElement : MenuSelectionManager.defaultManager()
+                        .getSelectedPath()) {
+                    if (menuElement instanceof JPopupMenu) {
+                        SwingUtilities.updateComponentTreeUI((JPopupMenu) menuElement);
+                    }
+                }
+                this.updateTime += System.nanoTime() - start;
+
+                for (SkinChangeListener skinChangeListener : skinChangeListeners) {
+                    skinChangeListener.skinChanged();
+                }
+                this.finish(true);
+            }
+
+            private void cancel() {
+                this.isCancelled = true;
+                if ((this.preparation != null) && (this.preparation.owner == this)) {
+                    this.preparation.owner = null;
+                    this.preparation.isCancelled = true;
+                }
+                this.preparation = null;
+                this.finish(false);
+            }
+
+            private void finish(boolean success) {
+                if (pendingSkinSwitch == this) {
+                    pendingSkinSwitch = null;
+                }
+                if (this.listener != null) {
+                    this.listener.skinSwitchCompleted(success,
+                            TimeUnit.NANOSECONDS.toMillis(this.preparationTime),
+                            TimeUnit.NANOSECONDS.toMillis(this.updateTime));
+                }
+            }
+        }
+
         /**
          * Returns the current global skin. If the current look-and-feel is not Substance, this
          * method returns <code>null</code>.
@@ -659,6 +1018,25 @@ public class SubstanceCortex {
             return AnimationConfigurationManager.getInstance().getTimelineDuration();
         }
 
+        /**
+         * Sets the animation budget. When the number of running timelines or the time it takes
+         * to complete the UI work of an animation pulse exceeds the budget, new animations are
+         * shortened and the {@link AnimationFacet#GHOSTING_ICON_ROLLOVER},
+         * {@link AnimationFacet#ICON_GLOW} and {@link AnimationFacet#FOCUS_LOOP_ANIMATION}
+         * facets are skipped. When the load exceeds twice the budget, new animations complete
+         * immediately. Pass non-positive values for both parameters to turn off the budget
+         * (which is the default).
+         *
+         * @param maxRunningTimelines Maximum number of running timelines. Non-positive value
+         *                            means no limit.
+         * @param maxFrameTimeMillis  Maximum time in milliseconds to complete the UI work of an
+         *                            animation pulse. Non-positive value means no limit.
+         */
+        public static void setAnimationBudget(int maxRunningTimelines, long maxFrameTimeMillis) {
+            AnimationConfigurationManager.getInstance().setAnimationBudget(maxRunningTimelines,
+                    maxFrameTimeMillis);
+        }
+
         /**
          * Registers a new listener on locale change.
          *
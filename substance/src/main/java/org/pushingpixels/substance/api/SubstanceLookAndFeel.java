@@ -235,6 +235,7 @@ public abstract class SubstanceLookAndFeel extends BasicLookAndFeel {
     public void initialize() {
         super.initialize();
         ShadowPopupFactory.install();
+        HierarchyResolutionCache.install();
 
         SubstanceCortex.GlobalScope.setSkin(this.skin, false);
 
@@ -294,6 +295,7 @@ public abstract class SubstanceLookAndFeel extends BasicLookAndFeel {
         SubstanceCortex.GlobalScope.unsetSkin();
 
         ShadowPopupFactory.uninstall();
+        HierarchyResolutionCache.uninstall();
 
         SubstanceCoreUtilities.stopThreads();
 
@@ -867,6 +867,26 @@ public abstract class SubstanceSkin implements SubstanceTrait {
         return true;
     }
 
+    /**
+     * Resolves the color schemes of all the registered decoration areas, association kinds and
+     * component states. This computes the derived color schemes and the best-fit state
+     * mappings that are otherwise computed on the first paint of every matching component.
+     * This method can be called on a background thread, as the color scheme bundles compute
+     * their lazily resolved state under a lock.
+     */
+    void precomputeColorSchemes() {
+        List<ComponentState> componentStates = new ArrayList<>(ComponentState.getAllStates());
+        for (DecorationAreaType decorationAreaType : this.colorSchemeBundleMap.keySet()) {
+            for (ColorSchemeAssociationKind associationKind : ColorSchemeAssociationKind
+                    .values()) {
+                for (ComponentState componentState : componentStates) {
+                    this.getColorScheme(decorationAreaType, associationKind, componentState);
+                }
+            }
+            this.getBackgroundColorScheme(decorationAreaType);
+        }
+    }
+
     /**
      * Contains information on color schemes loaded by the
      * {@link SubstanceSkin#getColorSchemes(URL)} and
@@ -40,7 +40,7 @@ import org.pushingpixels.substance.internal.utils.WidgetUtilities;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.util.Map;
 
 /**
  * Implementation of {@link SubstanceDecorationPainter} that uses an image source to paint on
@@ -61,8 +61,26 @@ public abstract class ImageWrapperDecorationPainter implements SubstanceDecorati
     protected SubstanceDecorationPainter baseDecorationPainter;
 
     /**
-     * Map of colorized tiles.
+     * Maximum number of colorized tiles kept by this painter.
      */
+    private static final int MAX_COLORIZED_TILES = 10;
+
+    /**
+     * Map of colorized tiles, keyed by color scheme identity. All access is synchronized on the
+     * map.
+     */
+    private final Map<SubstanceColorScheme, ColorizedTile> colorizedTiles;
+
+    /**
+     * Map of colorized tiles, keyed by color scheme display name.
+     *
+     * @deprecated The colorized tiles are kept per color scheme instance, as different schemes
+     * can share the same display name. This map is still filled with the created tiles for
+     * compatibility with existing subclasses, but is no longer consulted when painting. Use
+     * {@link #getColorizedTile(SubstanceColorScheme)} instead. This field will be removed in a
+     * future release.
+     */
+    @Deprecated
     protected LinkedHashMap<String, BufferedImage> colorizedTileMap;
 
     /**
@@ -71,16 +89,53 @@ public abstract class ImageWrapperDecorationPainter implements SubstanceDecorati
      */
     protected float textureAlpha;
 
+    /**
+     * Indicates whether the colorized tiles are painted with a {@link TexturePaint} instead of
+     * separate image draws.
+     */
+    private volatile boolean useTexturePaint;
+
+    /**
+     * Colorized image tile along with the texture paint for it.
+     */
+    private static class ColorizedTile {
+        private final BufferedImage image;
+
+        private final int width;
+
+        private final int height;
+
+        /**
+         * Texture paint for the tile, anchored at the origin of the root pane.
+         */
+        private final TexturePaint texturePaint;
+
+        private ColorizedTile(BufferedImage image, int width, int height) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+            this.texturePaint = new TexturePaint(image, new Rectangle(0, 0, width, height));
+        }
+    }
+
     /**
      * Creates a new image wrapper decoration painter.
      */
     public ImageWrapperDecorationPainter() {
         this.textureAlpha = 0.2f;
 
+        this.colorizedTiles = new LinkedHashMap<SubstanceColorScheme, ColorizedTile>(16, 0.75f,
+                true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<SubstanceColorScheme, ColorizedTile> eldest) {
+                return this.size() > MAX_COLORIZED_TILES;
+            }
+        };
         this.colorizedTileMap = new LinkedHashMap<String, BufferedImage>() {
             @Override
-            protected boolean removeEldestEntry(Entry<String, BufferedImage> eldest) {
-                return this.size() > 10;
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return this.size() > MAX_COLORIZED_TILES;
             }
         };
     }
@@ -205,28 +260,44 @@ public abstract class ImageWrapperDecorationPainter implements SubstanceDecorati
      */
     private void tileArea(Graphics2D g, Component comp, SubstanceColorScheme tileScheme,
             int offsetTextureX, int offsetTextureY, int width, int height) {
+        // only tile the part of the area that is inside the clip
+        Rectangle area = new Rectangle(0, 0, width, height);
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            area = area.intersection(clip);
+        }
+        if (area.isEmpty()) {
+            return;
+        }
+
         Graphics2D graphics = (Graphics2D) g.create();
         graphics.setComposite(WidgetUtilities.getAlphaComposite(comp, this.textureAlpha, g));
 
-        Image colorizedTile = this.getColorizedTile(tileScheme);
-        float scaleFactor = SubstanceCoreUtilities.isHiDpiAwareImage(this.originalTile)
-                ? (float) NeonCortex.getScaleFactor()
-                : 1;
-        int tileWidth = (int) (colorizedTile.getWidth(null) / scaleFactor);
-        int tileHeight = (int) (colorizedTile.getHeight(null) / scaleFactor);
-
-        offsetTextureX = offsetTextureX % tileWidth;
-        offsetTextureY = offsetTextureY % tileHeight;
-        int currTileTop = -offsetTextureY;
-        do {
-            int currTileLeft = -offsetTextureX;
-            do {
-                graphics.drawImage(colorizedTile, currTileLeft, currTileTop, tileWidth, tileHeight,
-                        null);
+        ColorizedTile colorizedTile = this.getColorizedTileInfo(tileScheme);
+        if (this.useTexturePaint) {
+            // the texture is anchored at the origin of the root pane
+            graphics.translate(-offsetTextureX, -offsetTextureY);
+            graphics.setPaint(colorizedTile.texturePaint);
+            graphics.fillRect(area.x + offsetTextureX, area.y + offsetTextureY, area.width,
+                    area.height);
+            graphics.dispose();
+            return;
+        }
+
+        int tileWidth = colorizedTile.width;
+        int tileHeight = colorizedTile.height;
+        // position of the top-left tile that intersects the area
+        int currTileTop = area.y - Math.floorMod(area.y + offsetTextureY, tileHeight);
+        int startTileLeft = area.x - Math.floorMod(area.x + offsetTextureX, tileWidth);
+        while (currTileTop < area.y + area.height) {
+            int currTileLeft = startTileLeft;
+            while (currTileLeft < area.x + area.width) {
+                graphics.drawImage(colorizedTile.image, currTileLeft, currTileTop, tileWidth,
+                        tileHeight, null);
                 currTileLeft += tileWidth;
-            } while (currTileLeft < width);
+            }
             currTileTop += tileHeight;
-        } while (currTileTop < height);
+        }
 
         graphics.dispose();
     }
@@ -251,6 +322,19 @@ public abstract class ImageWrapperDecorationPainter implements SubstanceDecorati
         this.textureAlpha = textureAlpha;
     }
 
+    /**
+     * Sets the tiling mode of this painter. By default, the colorized tiles are drawn one by one
+     * over the part of the decoration area that needs repainting. When this is set to
+     * <code>true</code>, that part is filled with a cached {@link TexturePaint} of the colorized
+     * tile instead.
+     * 
+     * @param useTexturePaint
+     *            If <code>true</code>, the colorized tiles are painted with a texture paint.
+     */
+    public void setUseTexturePaint(boolean useTexturePaint) {
+        this.useTexturePaint = useTexturePaint;
+    }
+
     /**
      * Returns a colorized image tile.
      * 
@@ -259,22 +343,42 @@ public abstract class ImageWrapperDecorationPainter implements SubstanceDecorati
      * @return Colorized tile.
      */
     protected BufferedImage getColorizedTile(SubstanceColorScheme scheme) {
-        BufferedImage result = this.colorizedTileMap.get(scheme.getDisplayName());
-        if (result == null) {
-            float scaleFactor = SubstanceCoreUtilities.isHiDpiAwareImage(this.originalTile)
-                    ? (float) NeonCortex.getScaleFactor()
-                    : 1;
-            int tileWidth = this.originalTile.getWidth(null);
-            int tileHeight = this.originalTile.getHeight(null);
-            BufferedImage tileBi = SubstanceCoreUtilities.getBlankImage((int) (tileWidth / scaleFactor),
-                    (int) (tileHeight / scaleFactor));
-            Graphics2D tile2D = tileBi.createGraphics();
-            tile2D.drawImage(this.originalTile, 0, 0, (int) (tileWidth / scaleFactor),
-                    (int) ( tileHeight / scaleFactor), null);
-            tile2D.dispose();
-            result = SubstanceImageCreator.getColorSchemeImage(tileBi, scheme, 0.0f);
-            this.colorizedTileMap.put(scheme.getDisplayName(), result);
+        return this.getColorizedTileInfo(scheme).image;
+    }
+
+    /**
+     * Returns a colorized image tile along with its size and texture paint.
+     * 
+     * @param scheme
+     *            Color scheme for the colorization.
+     * @return Colorized tile.
+     */
+    private ColorizedTile getColorizedTileInfo(SubstanceColorScheme scheme) {
+        synchronized (this.colorizedTiles) {
+            ColorizedTile result = this.colorizedTiles.get(scheme);
+            if (result == null) {
+                float scaleFactor = SubstanceCoreUtilities.isHiDpiAwareImage(this.originalTile)
+                        ? (float) NeonCortex.getScaleFactor()
+                        : 1;
+                int tileWidth = this.originalTile.getWidth(null);
+                int tileHeight = this.originalTile.getHeight(null);
+                BufferedImage tileBi = SubstanceCoreUtilities.getBlankImage(
+                        (int) (tileWidth / scaleFactor), (int) (tileHeight / scaleFactor));
+                Graphics2D tile2D = tileBi.createGraphics();
+                tile2D.drawImage(this.originalTile, 0, 0, (int) (tileWidth / scaleFactor),
+                        (int) (tileHeight / scaleFactor), null);
+                tile2D.dispose();
+                BufferedImage colorized = SubstanceImageCreator.getColorSchemeImage(tileBi,
+                        scheme, 0.0f);
+                result = new ColorizedTile(colorized,
+                        (int) (colorized.getWidth() / scaleFactor),
+                        (int) (colorized.getHeight() / scaleFactor));
+                this.colorizedTiles.put(scheme, result);
+                if (this.colorizedTileMap != null) {
+                    this.colorizedTileMap.put(scheme.getDisplayName(), colorized);
+                }
+            }
+            return result;
         }
-        return result;
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *  o Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer. 
+ *     
+ *  o Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution. 
+ *     
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of 
+ *    its contributors may be used to endorse or promote products derived 
+ *    from this software without specific prior written permission. 
+ *     
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR 
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; 
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, 
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE 
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, 
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package org.pushingpixels.substance.api.skin;
+
+import org.pushingpixels.substance.api.SubstanceCortex;
+import org.pushingpixels.substance.api.SubstanceSkin;
+
+import java.awt.*;
+
+/**
+ * The listener interface for tracking the progress of an asynchronous skin switch in
+ * <b>Substance</b> look and feel. All the methods are invoked on the Event Dispatch Thread.
+ * This class is part of officially supported API.
+ * 
+ * @author Kirill Grouchnikov
+ * @see SubstanceCortex.GlobalScope#setSkinAsync(SubstanceSkin, SkinSwitchListener)
+ */
+public interface SkinSwitchListener {
+	/**
+	 * Invoked after the UI of the specified window has been updated to the new skin.
+	 * 
+	 * @param window
+	 *            Updated window.
+	 * @param updatedWindowCount
+	 *            Number of windows updated so far.
+	 * @param windowCount
+	 *            Number of windows to update.
+	 */
+	public void windowUpdated(Window window, int updatedWindowCount, int windowCount);
+
+	/**
+	 * Invoked when the skin switch is over.
+	 * 
+	 * @param success
+	 *            <code>true</code> if the skin has been set and all the windows have been
+	 *            updated, <code>false</code> if the skin could not be set or if the switch has
+	 *            been superseded by another skin change.
+	 * @param preparationTime
+	 *            Time in milliseconds spent on preparing the skin on a background thread.
+	 * @param updateTime
+	 *            Time in milliseconds spent on applying the skin on the Event Dispatch Thread.
+	 */
+	public void skinSwitchCompleted(boolean success, long preparationTime, long updateTime);
+}
@@ -31,6 +31,7 @@ package org.pushingpixels.substance.internal;
 
 import org.pushingpixels.substance.api.SubstanceSlices.AnimationFacet;
 import org.pushingpixels.trident.Timeline;
+import org.pushingpixels.trident.TridentConfig;
 import org.pushingpixels.trident.ease.Spline;
 
 import java.awt.*;
@@ -38,6 +39,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Animation configuration manager. Note that while this class provides a variety of ways to enable
@@ -54,11 +57,42 @@ import java.util.Set;
  * Other, simpler animations such as rolling over a button can not be turned off with the APIs in
  * this class.
  * 
+ * In addition, an animation budget can be set with {@link #setAnimationBudget(int, long)}. When
+ * the number of running timelines or the measured frame time exceeds the budget, new timelines
+ * get shorter durations and non-essential animation facets are skipped. When the load exceeds
+ * twice the budget, new timelines complete on the next pulse.
+ * 
  * @author Kirill Grouchnikov
  */
 public class AnimationConfigurationManager {
     private static final Spline DEFAULT_EASE = new Spline(0.5f);
 
+    /**
+     * Degradation levels applied when the animation budget is exceeded.
+     */
+    public enum DegradationLevel {
+        /**
+         * Animations run with the configured durations.
+         */
+        NONE,
+
+        /**
+         * Timeline durations are halved and non-essential animation facets are skipped.
+         */
+        SHORTENED,
+
+        /**
+         * Timelines complete on the next pulse and non-essential animation facets are
+         * skipped.
+         */
+        SNAPPED
+    }
+
+    /**
+     * Minimal interval between two evaluations of the animation load.
+     */
+    private static final long LOAD_EVALUATION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     /**
      * Singleton instance.
      */
@@ -91,6 +125,30 @@ public class AnimationConfigurationManager {
      */
     private Map<AnimationFacet, Set<Component>> instanceDisallowed;
 
+    /**
+     * Maximum number of running timelines before animations are degraded. Non-positive value
+     * means no limit.
+     */
+    private volatile int maxRunningTimelines;
+
+    /**
+     * Maximum frame time in milliseconds before animations are degraded. Non-positive value
+     * means no limit.
+     */
+    private volatile long maxFrameTimeMillis;
+
+    private volatile DegradationLevel degradationLevel = DegradationLevel.NONE;
+
+    private volatile long lastLoadEvaluation;
+
+    private volatile int lastRunningTimelineCount;
+
+    private volatile double lastFrameTimeMillis;
+
+    private final LongAdder degradedTimelineCount = new LongAdder();
+
+    private final LongAdder skippedFacetCount = new LongAdder();
+
     /**
      * Returns the configuration manager instance.
      * 
@@ -265,7 +323,32 @@ public class AnimationConfigurationManager {
      * @return <code>true</code> if the specified animation facet is allowed on the specified
      *         component, <code>false</code> otherwise.
      */
-    public synchronized boolean isAnimationAllowed(AnimationFacet animationFacet, Component comp) {
+    public boolean isAnimationAllowed(AnimationFacet animationFacet, Component comp) {
+        if (!this.isAnimationConfigured(animationFacet, comp)) {
+            return false;
+        }
+        if (isNonEssential(animationFacet)
+                && (this.getDegradationLevel() != DegradationLevel.NONE)) {
+            this.skippedFacetCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns indication whether the specified animation facet is skipped when the animation
+     * budget is exceeded. The facets are not kept in a static set, as the
+     * {@link AnimationFacet} constants register themselves with this class during their own
+     * class initialization.
+     */
+    private static boolean isNonEssential(AnimationFacet animationFacet) {
+        return (animationFacet == AnimationFacet.GHOSTING_ICON_ROLLOVER)
+                || (animationFacet == AnimationFacet.ICON_GLOW)
+                || (animationFacet == AnimationFacet.FOCUS_LOOP_ANIMATION);
+    }
+
+    private synchronized boolean isAnimationConfigured(AnimationFacet animationFacet,
+            Component comp) {
         Set<Component> instanceDisallowed = this.instanceDisallowed.get(animationFacet);
         if (instanceDisallowed != null) {
             if (instanceDisallowed.contains(comp))
@@ -306,12 +389,12 @@ public class AnimationConfigurationManager {
     }
 
     public void configureTimeline(Timeline timeline) {
-        timeline.setDuration(this.timelineDuration);
+        timeline.setDuration(this.getBudgetedDuration(this.timelineDuration));
         timeline.setEase(DEFAULT_EASE);
     }
 
     public void configureModifiedTimeline(Timeline timeline) {
-        timeline.setDuration(5 * this.timelineDuration);
+        timeline.setDuration(this.getBudgetedDuration(5 * this.timelineDuration));
         timeline.setEase((float durationFraction) -> {
             if (durationFraction < 0.8f) {
                 return 0.0f;
@@ -319,4 +402,120 @@ public class AnimationConfigurationManager {
             return 5.0f * (durationFraction - 0.8f);
         });
     }
+
+    /**
+     * Sets the animation budget. Pass non-positive values for both parameters to turn off
+     * budget-driven degradation (which is the default).
+     * 
+     * @param maxRunningTimelines
+     *            Maximum number of running timelines. Non-positive value means no limit.
+     * @param maxFrameTimeMillis
+     *            Maximum time in milliseconds between the end of an animation pulse and the
+     *            completion of its UI callbacks. Non-positive value means no limit.
+     */
+    public void setAnimationBudget(int maxRunningTimelines, long maxFrameTimeMillis) {
+        this.maxRunningTimelines = maxRunningTimelines;
+        this.maxFrameTimeMillis = maxFrameTimeMillis;
+        this.lastLoadEvaluation = 0;
+    }
+
+    public int getMaxRunningTimelines() {
+        return this.maxRunningTimelines;
+    }
+
+    public long getMaxFrameTimeMillis() {
+        return this.maxFrameTimeMillis;
+    }
+
+    /**
+     * Returns the current degradation level. The animation load is evaluated at most once
+     * every 100 milliseconds.
+     * 
+     * @return The current degradation level.
+     */
+    public DegradationLevel getDegradationLevel() {
+        int maxRunning = this.maxRunningTimelines;
+        long maxFrameTime = this.maxFrameTimeMillis;
+        if ((maxRunning <= 0) && (maxFrameTime <= 0)) {
+            return DegradationLevel.NONE;
+        }
+
+        long now = System.nanoTime();
+        if ((this.lastLoadEvaluation != 0)
+                && ((now - this.lastLoadEvaluation) < LOAD_EVALUATION_INTERVAL_NANOS)) {
+            return this.degradationLevel;
+        }
+        this.lastLoadEvaluation = now;
+
+        TridentConfig tridentConfig = TridentConfig.getInstance();
+        int running = tridentConfig.getRunningTimelineCount();
+        double frameTime = tridentConfig.getRecentFrameTimeMillis();
+        this.lastRunningTimelineCount = running;
+        this.lastFrameTimeMillis = frameTime;
+
+        double load = 0.0;
+        if (maxRunning > 0) {
+            load = Math.max(load, (double) running / maxRunning);
+        }
+        if (maxFrameTime > 0) {
+            load = Math.max(load, frameTime / maxFrameTime);
+        }
+        DegradationLevel result = (load <= 1.0) ? DegradationLevel.NONE
+                : ((load <= 2.0) ? DegradationLevel.SHORTENED : DegradationLevel.SNAPPED);
+        this.degradationLevel = result;
+        return result;
+    }
+
+    private long getBudgetedDuration(long duration) {
+        switch (this.getDegradationLevel()) {
+        case SHORTENED:
+            this.degradedTimelineCount.increment();
+            return duration / 2;
+        case SNAPPED:
+            this.degradedTimelineCount.increment();
+            // shortest duration that the timeline engine can complete
+            return 1;
+        default:
+            return duration;
+        }
+    }
+
+    /**
+     * Returns the number of running timelines measured at the last evaluation of the
+     * animation load.
+     * 
+     * @return The number of running timelines at the last load evaluation.
+     */
+    public int getLastRunningTimelineCount() {
+        return this.lastRunningTimelineCount;
+    }
+
+    /**
+     * Returns the frame time measured at the last evaluation of the animation load.
+     * 
+     * @return The frame time in milliseconds at the last load evaluation.
+     */
+    public double getLastFrameTimeMillis() {
+        return this.lastFrameTimeMillis;
+    }
+
+    /**
+     * Returns the number of timelines that got shorter durations because the animation budget
+     * was exceeded.
+     * 
+     * @return The number of degraded timelines.
+     */
+    public long getDegradedTimelineCount() {
+        return this.degradedTimelineCount.sum();
+    }
+
+    /**
+     * Returns the number of times a non-essential animation facet was skipped because the
+     * animation budget was exceeded.
+     * 
+     * @return The number of skipped animation facets.
+     */
+    public long getSkippedFacetCount() {
+        return this.skippedFacetCount.sum();
+    }
 }
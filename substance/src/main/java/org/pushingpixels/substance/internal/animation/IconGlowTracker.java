@@ -45,35 +45,42 @@ public class IconGlowTracker {
 
 	public IconGlowTracker(Component component) {
 		this.component = component;
+	}
 
-		this.iconGlowTimeline = new SwingComponentTimeline(this.component);
-		AnimationConfigurationManager.getInstance().configureTimeline(
-				this.iconGlowTimeline);
-		this.iconGlowTimeline.setDuration(10 * this.iconGlowTimeline
-				.getDuration());
-		this.iconGlowTimeline.addCallback(new SwingRepaintCallback(component));
-		this.iconGlowTimeline.setName("Icon glow");
+	private Timeline getIconGlowTimeline() {
+		if (this.iconGlowTimeline == null) {
+			this.iconGlowTimeline = new SwingComponentTimeline(this.component);
+			AnimationConfigurationManager.getInstance().configureTimeline(
+					this.iconGlowTimeline);
+			this.iconGlowTimeline.setDuration(10 * this.iconGlowTimeline
+					.getDuration());
+			this.iconGlowTimeline.addCallback(new SwingRepaintCallback(component));
+			this.iconGlowTimeline.setName("Icon glow");
+		}
+		return this.iconGlowTimeline;
 	}
 
 	public void play() {
-		this.iconGlowTimeline.playLoop(RepeatBehavior.REVERSE);
+		this.getIconGlowTimeline().playLoop(RepeatBehavior.REVERSE);
 	}
 
 	public void play(int fullLoopCount) {
-		this.iconGlowTimeline.playLoop(fullLoopCount, RepeatBehavior.REVERSE);
+		this.getIconGlowTimeline().playLoop(fullLoopCount, RepeatBehavior.REVERSE);
 	}
 
 	public boolean isPlaying() {
-		return (this.iconGlowTimeline.getState() != TimelineState.IDLE);
+		return (this.iconGlowTimeline != null)
+				&& (this.iconGlowTimeline.getState() != TimelineState.IDLE);
 	}
 
 	public void cancel() {
-		if (this.iconGlowTimeline.getState() != TimelineState.IDLE) {
+		if (this.isPlaying()) {
 			this.iconGlowTimeline.cancelAtCycleBreak();
 		}
 	}
 
 	public float getIconGlowPosition() {
-		return this.iconGlowTimeline.getTimelinePosition();
+		return (this.iconGlowTimeline == null) ? 0.0f
+				: this.iconGlowTimeline.getTimelinePosition();
 	}
 }
@@ -55,6 +55,10 @@ public final class StateTransitionMultiTracker<T> {
 	}
 
 	public synchronized StateTransitionTracker getTracker(Comparable<T> id) {
+		// most lookups happen during painting with no running transitions
+		if (this.trackerMap.isEmpty()) {
+			return null;
+		}
 		return this.trackerMap.get(id);
 	}
 
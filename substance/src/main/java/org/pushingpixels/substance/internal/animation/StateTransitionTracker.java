@@ -58,17 +58,31 @@ public class StateTransitionTracker {
 
     private ChangeListener modelChangeListener;
 
+    /**
+     * Model transition timeline. Created on the first model transition and reused for all
+     * subsequent transitions.
+     */
     private Timeline transitionTimeline;
 
-    private float transitionPosition;
+    /**
+     * The repaint callback of the last model transition. Resolved again on every transition,
+     * as the repaint target can depend on the current ancestors of the component.
+     */
+    private TimelineCallback transitionRepaintTarget;
 
     /**
      * Listener on the focus gain and loss.
      */
     private FocusListener focusListener;
 
+    /**
+     * Focus timeline. Created on the first focus change.
+     */
     private Timeline focusTimeline;
 
+    /**
+     * Focus loop timeline. Created on the first focus gain.
+     */
     private Timeline focusLoopTimeline;
 
     private IconGlowTracker iconGlowTracker;
@@ -100,6 +114,12 @@ public class StateTransitionTracker {
             return curr;
         }
 
+        void set(float start, float end) {
+            this.start = start;
+            this.end = end;
+            this.curr = start;
+        }
+
         void updateContribution(float timelinePosition) {
             this.curr = this.start + timelinePosition * (this.end - this.start);
         }
@@ -161,13 +181,46 @@ public class StateTransitionTracker {
                 uiThreadingViolationError.printStackTrace(System.err);
                 throw uiThreadingViolationError;
             }
-            this.stateContributionMap.clear();
-            this.stateContributionMap.put(this.currState, new StateContributionInfo(1.0f, 1.0f));
-            this.stateNoSelectionContributionMap.clear();
-            this.stateNoSelectionContributionMap.put(this.currStateNoSelection,
-                    new StateContributionInfo(1.0f, 1.0f));
+            reset(this.stateContributionMap, this.currState);
+            reset(this.stateNoSelectionContributionMap, this.currStateNoSelection);
             this.sync();
         }
+
+        /**
+         * Resets the specified contribution map to have only the specified state at full
+         * strength, reusing the existing contribution info of that state if there is one.
+         */
+        private static void reset(Map<ComponentState, StateContributionInfo> contributionMap,
+                ComponentState state) {
+            StateContributionInfo info = contributionMap.get(state);
+            contributionMap.clear();
+            if (info == null) {
+                info = new StateContributionInfo(1.0f, 1.0f);
+            } else {
+                info.set(1.0f, 1.0f);
+            }
+            contributionMap.put(state, info);
+        }
+
+        /**
+         * Starts a transition to the specified state in the specified contribution map. The
+         * new state goes from its current contribution (or 0.0 if it is not in the map) to
+         * 1.0, and all the other states go from their current contribution to 0.0. The map
+         * and its contribution info objects are updated in place.
+         */
+        private static void startTransition(
+                Map<ComponentState, StateContributionInfo> contributionMap,
+                ComponentState newState) {
+            for (Map.Entry<ComponentState, StateContributionInfo> existing :
+                    contributionMap.entrySet()) {
+                StateContributionInfo currRange = existing.getValue();
+                float newEnd = (existing.getKey() == newState) ? 1.0f : 0.0f;
+                currRange.set(currRange.curr, newEnd);
+            }
+            if (!contributionMap.containsKey(newState)) {
+                contributionMap.put(newState, new StateContributionInfo(0.0f, 1.0f));
+            }
+        }
     }
 
     public StateTransitionTracker(final JComponent component, ButtonModel model) {
@@ -183,28 +236,40 @@ public class StateTransitionTracker {
         this.isAutoTrackingModelChanges = true;
         this.eventListenerList = new EventListenerList();
 
-        this.focusTimeline = new SwingComponentTimeline(this.component);
-        AnimationConfigurationManager.getInstance().configureTimeline(this.focusTimeline);
-        this.focusTimeline.addCallback(this.repaintCallback.getRepaintCallback());
-        // notify listeners on focus state transition
-        this.focusTimeline.addCallback(new TimelineCallbackAdapter() {
-            @Override
-            public void onTimelineStateChanged(TimelineState oldState,
-                    TimelineState newState, float durationFraction,
-                    float timelinePosition) {
-                SwingUtilities.invokeLater(() -> fireFocusStateTransitionEvent(oldState, newState));
-            }
-        });
-
-        this.focusLoopTimeline = new SwingComponentTimeline(this.component);
-        AnimationConfigurationManager.getInstance().configureTimeline(this.focusLoopTimeline);
-        this.focusLoopTimeline.addCallback(this.repaintCallback.getRepaintCallback());
-
+        // the icon glow tracker creates its timeline on the first use
         this.iconGlowTracker = new IconGlowTracker(this.component);
 
         this.name = "";
     }
 
+    private Timeline getFocusTimeline() {
+        if (this.focusTimeline == null) {
+            this.focusTimeline = new SwingComponentTimeline(this.component);
+            AnimationConfigurationManager.getInstance().configureTimeline(this.focusTimeline);
+            this.focusTimeline.addCallback(new SwingRepaintCallback(this.component));
+            // notify listeners on focus state transition
+            this.focusTimeline.addCallback(new TimelineCallbackAdapter() {
+                @Override
+                public void onTimelineStateChanged(TimelineState oldState,
+                        TimelineState newState, float durationFraction,
+                        float timelinePosition) {
+                    SwingUtilities.invokeLater(
+                            () -> fireFocusStateTransitionEvent(oldState, newState));
+                }
+            });
+        }
+        return this.focusTimeline;
+    }
+
+    private Timeline getFocusLoopTimeline() {
+        if (this.focusLoopTimeline == null) {
+            this.focusLoopTimeline = new SwingComponentTimeline(this.component);
+            AnimationConfigurationManager.getInstance().configureTimeline(this.focusLoopTimeline);
+            this.focusLoopTimeline.addCallback(new SwingRepaintCallback(this.component));
+        }
+        return this.focusLoopTimeline;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -253,7 +318,6 @@ public class StateTransitionTracker {
         this.model.removeChangeListener(this.modelChangeListener);
         if (this.transitionTimeline != null) {
             this.transitionTimeline.abort();
-            this.transitionPosition = 0.0f;
         }
 
         this.modelStateInfo.currState = ComponentState.getState(model, component);
@@ -321,136 +385,80 @@ public class StateTransitionTracker {
         if (this.transitionTimeline != null) {
             this.transitionTimeline.abort();
         }
-        this.transitionTimeline = new SwingComponentTimeline(this.component, true);
-        this.transitionTimeline.setName("Model transitions");
-        this.transitionTimeline.addCallback(this.repaintCallback.getRepaintCallback());
-        AnimationConfigurationManager.getInstance().configureTimeline(this.transitionTimeline);
+        Timeline transitionTimeline = this.getTransitionTimeline();
+        AnimationConfigurationManager.getInstance().configureTimeline(transitionTimeline);
         if (!this.modelStateInfo.currState.isFacetActive(ComponentStateFacet.SELECTION)
                 && newState.isFacetActive(ComponentStateFacet.SELECTION)) {
             // special handling for transition from non-selected to
             // selected state - make it twice faster
-            this.transitionTimeline.setDuration(this.transitionTimeline.getDuration() / 2);
+            transitionTimeline.setDuration(transitionTimeline.getDuration() / 2);
         }
-        long fullDuration = this.transitionTimeline.getDuration();
-        if (this.modelStateInfo.stateContributionMap.containsKey(newState)) {
+        StateContributionInfo newStateContribution =
+                this.modelStateInfo.stateContributionMap.get(newState);
+        if (newStateContribution != null) {
             // Going to a state that is already partially active. The
             // new timeline is going to be shorter. The new state will go to
-            // 1.0f, hence the transition position begins from its current
+            // 1.0f, hence the transition begins from its current
             // contribution.
-            this.transitionPosition = this.modelStateInfo.stateContributionMap
-                    .get(newState).getContribution();
-            this.transitionTimeline.addPropertyToInterpolate(
-                    Timeline.<Float>property("transitionPosition")
-                            .getWith((Object obj, String fieldName) -> transitionPosition)
-                            .setWith((Object obj, String fieldName, Float value) ->
-                                    transitionPosition = value)
-                            .from(this.transitionPosition)
-                            .to(1.0f));
-            this.transitionTimeline
-                    .setDuration((long) (fullDuration * (1.0f - this.transitionPosition)));
-            // if ((this.component instanceof JMenuItem)
-            // && "Check enabled unselected"
-            // .equals(((JMenuItem) this.component).getText())) {
-            // System.out.println("*******************************");
-            // System.out.println("Timeline will run from "
-            // + this.transitionPosition + " with state " + newState);
-            // for (Map.Entry<ComponentState, StateContributionInfo> existing :
-            // this.modelStateInfo.stateContributionMap
-            // .entrySet()) {
-            // System.out.println("\t" + existing.getKey() + " in ["
-            // + existing.getValue().start + ":"
-            // + existing.getValue().end + "]:"
-            // + existing.getValue().curr);
-            // }
-            // System.out.println("*******************************");
-            // }
-        } else {
-            this.transitionPosition = 0.0f;
-            this.transitionTimeline.addPropertyToInterpolate(
-                    Timeline.<Float>property("transitionPosition")
-                            .getWith((Object obj, String fieldName) -> transitionPosition)
-                            .setWith((Object obj, String fieldName, Float value) ->
-                                    transitionPosition = value)
-                            .from(0.0f).to(1.0f));
-            // if ((this.component instanceof JMenuItem)
-            // && "Check enabled unselected"
-            // .equals(((JMenuItem) this.component).getText())) {
-            // System.out.println("Timeline will run fully");
-            // }
-        }
-
-        Map<ComponentState, StateContributionInfo> newContributionMap = new HashMap<>();
-        if (this.modelStateInfo.stateContributionMap.containsKey(newState)) {
-            // 1. the new state goes from current value to 1.0
-            // 2. the rest go from current value to 0.0
-            for (Map.Entry<ComponentState, StateContributionInfo> existing : this.modelStateInfo
-                    .stateContributionMap
-                    .entrySet()) {
-                StateContributionInfo currRange = existing.getValue();
-                ComponentState state = existing.getKey();
-                float newEnd = (state == newState) ? 1.0f : 0.0f;
-                newContributionMap.put(state, new StateContributionInfo(
-                        currRange.curr, newEnd));
-            }
-        } else {
-            // 1. all existing states go from current value to 0.0
-            // 2. the new state goes from 0.0 to 1.0
-            for (Map.Entry<ComponentState, StateContributionInfo> existing : this.modelStateInfo
-                    .stateContributionMap
-                    .entrySet()) {
-                StateContributionInfo currRange = existing.getValue();
-                ComponentState state = existing.getKey();
-                newContributionMap.put(state, new StateContributionInfo(
-                        currRange.curr, 0.0f));
-            }
-            newContributionMap.put(newState, new StateContributionInfo(0.0f,
-                    1.0f));
+            transitionTimeline.setDuration((long) (transitionTimeline.getDuration()
+                    * (1.0f - newStateContribution.getContribution())));
         }
-        this.modelStateInfo.stateContributionMap = newContributionMap;
 
-        Map<ComponentState, StateContributionInfo> newNoSelectionContributionMap = new HashMap<>();
-        if (this.modelStateInfo.stateNoSelectionContributionMap
-                .containsKey(newStateNoSelection)) {
-            // 1. the new state goes from current value to 1.0
-            // 2. the rest go from current value to 0.0
-            for (Map.Entry<ComponentState, StateContributionInfo> existing :
-                    this.modelStateInfo.stateNoSelectionContributionMap.entrySet()) {
-                StateContributionInfo currRange = existing.getValue();
-                ComponentState state = existing.getKey();
-                float newEnd = (state == newStateNoSelection) ? 1.0f : 0.0f;
-                newNoSelectionContributionMap.put(state,
-                        new StateContributionInfo(currRange.curr, newEnd));
-            }
-        } else {
-            // 1. all existing states go from current value to 0.0
-            // 2. the new state goes from 0.0 to 1.0
-            for (Map.Entry<ComponentState, StateContributionInfo> existing :
-                    this.modelStateInfo.stateNoSelectionContributionMap.entrySet()) {
-                StateContributionInfo currRange = existing.getValue();
-                ComponentState state = existing.getKey();
-                newNoSelectionContributionMap.put(state,
-                        new StateContributionInfo(currRange.curr, 0.0f));
+        ModelStateInfo.startTransition(this.modelStateInfo.stateContributionMap, newState);
+        ModelStateInfo.startTransition(this.modelStateInfo.stateNoSelectionContributionMap,
+                newStateNoSelection);
+        this.modelStateInfo.sync();
+
+        this.modelStateInfo.currState = newState;
+        this.modelStateInfo.currStateNoSelection = newStateNoSelection;
+
+        transitionTimeline.play();
+
+        // track icon glowing. A running glow is always stopped, even if the
+        // animation has been disallowed since it was started
+        boolean isIconGlowAllowed = AnimationConfigurationManager.getInstance()
+                .isAnimationAllowed(AnimationFacet.ICON_GLOW, this.component);
+        boolean wasRollover = false;
+        for (Map.Entry<ComponentState, StateTransitionTracker.StateContributionInfo>
+                activeEntry : this.modelStateInfo.stateContributionMap.entrySet()) {
+            ComponentState activeState = activeEntry.getKey();
+            if (activeState == this.modelStateInfo.currState)
+                continue;
+
+            if (activeState.isFacetActive(ComponentStateFacet.ROLLOVER)) {
+                wasRollover = true;
+                break;
             }
-            newNoSelectionContributionMap.put(newStateNoSelection,
-                    new StateContributionInfo(0.0f, 1.0f));
         }
-        this.modelStateInfo.stateNoSelectionContributionMap = newNoSelectionContributionMap;
+        boolean isRollover = this.modelStateInfo.currState
+                .isFacetActive(ComponentStateFacet.ROLLOVER);
+        if ((wasRollover && !isRollover)
+                || (!isIconGlowAllowed && this.iconGlowTracker.isPlaying())) {
+            this.iconGlowTracker.cancel();
+        }
+        if (!wasRollover && isRollover && isIconGlowAllowed) {
+            this.iconGlowTracker.play();
+        }
+    }
 
-        this.modelStateInfo.sync();
+    private Timeline getTransitionTimeline() {
+        if (this.transitionTimeline == null) {
+            this.transitionTimeline = this.createTransitionTimeline();
+        }
 
-        // if (this.component instanceof SubstanceScrollButton) {
-        // System.out.println("New contribution map for "
-        // + this.transitionTimeline.getDuration() + "ms");
-        // for (Map.Entry<ComponentState, StateContributionInfo> existing :
-        // this.modelStateInfo.stateContributionMap
-        // .entrySet()) {
-        // System.out.println("\t" + existing.getKey() + " in ["
-        // + existing.getValue().start + ":"
-        // + existing.getValue().end + "]");
-        // }
-        // }
+        // the transition timeline is idle at this point
+        if (this.transitionRepaintTarget != null) {
+            this.transitionTimeline.removeCallback(this.transitionRepaintTarget);
+        }
+        this.transitionRepaintTarget = this.repaintCallback.getRepaintCallback();
+        this.transitionTimeline.addCallback(this.transitionRepaintTarget);
+        return this.transitionTimeline;
+    }
 
-        this.transitionTimeline.addCallback(new TimelineCallbackAdapter() {
+    private Timeline createTransitionTimeline() {
+        Timeline transitionTimeline = new SwingComponentTimeline(this.component, true);
+        transitionTimeline.setName("Model transitions");
+        transitionTimeline.addCallback(new TimelineCallbackAdapter() {
             @Override
             public void onTimelineStateChanged(final TimelineState oldState,
                     final TimelineState newState, final float durationFraction,
@@ -468,7 +476,7 @@ public class StateTransitionTracker {
             }
         });
         // notify listeners on model state transition
-        this.transitionTimeline.addCallback(new TimelineCallbackAdapter() {
+        transitionTimeline.addCallback(new TimelineCallbackAdapter() {
             @Override
             public void onTimelineStateChanged(final TimelineState oldState,
                     final TimelineState newState, float durationFraction,
@@ -478,7 +486,7 @@ public class StateTransitionTracker {
         });
         // Add fix for issue 297 - menu items partially covered by lightweight
         // popups (such as tooltips).
-        this.transitionTimeline.addCallback(new TimelineCallbackAdapter() {
+        transitionTimeline.addCallback(new TimelineCallbackAdapter() {
             @Override
             public void onTimelineStateChanged(TimelineState oldState,
                     TimelineState newState, float durationFraction,
@@ -517,7 +525,7 @@ public class StateTransitionTracker {
             }
         });
 
-        this.transitionTimeline.addCallback(new TimelineCallbackAdapter() {
+        transitionTimeline.addCallback(new TimelineCallbackAdapter() {
             @Override
             public void onTimelineStateChanged(TimelineState oldState,
                     TimelineState newState, float durationFraction,
@@ -546,41 +554,7 @@ public class StateTransitionTracker {
             }
 
         });
-
-        this.modelStateInfo.currState = newState;
-        this.modelStateInfo.currStateNoSelection = newStateNoSelection;
-
-        // if (this.component instanceof JMenuItem) {
-        // System.out.println("Running timeline on "
-        // + ((JMenuItem) this.component).getText() + " for "
-        // + this.transitionTimeline.getDuration());
-        // }
-        this.transitionTimeline.play();
-
-        // track icon glowing
-        if (AnimationConfigurationManager.getInstance().isAnimationAllowed(
-                AnimationFacet.ICON_GLOW, this.component)) {
-            boolean wasRollover = false;
-            for (Map.Entry<ComponentState, StateTransitionTracker.StateContributionInfo>
-                    activeEntry : this.modelStateInfo.stateContributionMap.entrySet()) {
-                ComponentState activeState = activeEntry.getKey();
-                if (activeState == this.modelStateInfo.currState)
-                    continue;
-
-                if (activeState.isFacetActive(ComponentStateFacet.ROLLOVER)) {
-                    wasRollover = true;
-                    break;
-                }
-            }
-            boolean isRollover = this.modelStateInfo.currState
-                    .isFacetActive(ComponentStateFacet.ROLLOVER);
-            if (wasRollover && !isRollover) {
-                this.iconGlowTracker.cancel();
-            }
-            if (!wasRollover && isRollover) {
-                this.iconGlowTracker.play();
-            }
-        }
+        return transitionTimeline;
     }
 
     public float getFocusStrength(boolean hasFocus) {
@@ -685,15 +659,17 @@ public class StateTransitionTracker {
 
     public void setFocusState(boolean hasFocus) {
         if (hasFocus) {
-            this.focusTimeline.play();
+            this.getFocusTimeline().play();
             if (AnimationConfigurationManager.getInstance().isAnimationAllowed(
                     AnimationFacet.FOCUS_LOOP_ANIMATION, this.component)) {
-                this.focusLoopTimeline.playLoop(RepeatBehavior.LOOP);
+                this.getFocusLoopTimeline().playLoop(RepeatBehavior.LOOP);
+            } else if (this.focusLoopTimeline != null) {
+                // the loop may have been started before the animation was disallowed
+                this.focusLoopTimeline.cancel();
             }
         } else {
-            this.focusTimeline.playReverse();
-            if (AnimationConfigurationManager.getInstance().isAnimationAllowed(
-                    AnimationFacet.FOCUS_LOOP_ANIMATION, this.component)) {
+            this.getFocusTimeline().playReverse();
+            if (this.focusLoopTimeline != null) {
                 this.focusLoopTimeline.cancel();
             }
         }
@@ -35,6 +35,7 @@ import org.pushingpixels.substance.api.SubstanceSlices.DecorationAreaType;
 import org.pushingpixels.substance.api.colorscheme.SubstanceColorScheme;
 import org.pushingpixels.substance.api.painter.decoration.SubstanceDecorationPainter;
 import org.pushingpixels.substance.api.watermark.SubstanceWatermark;
+import org.pushingpixels.substance.internal.utils.HierarchyResolutionCache;
 import org.pushingpixels.substance.internal.utils.SubstanceCoreUtilities;
 import org.pushingpixels.substance.internal.utils.WidgetUtilities;
 
@@ -68,6 +69,7 @@ public class DecorationPainterUtils {
      */
     public static void setDecorationType(JComponent comp, DecorationAreaType type) {
         comp.putClientProperty(DECORATION_AREA_TYPE, type);
+        HierarchyResolutionCache.invalidate();
     }
 
     /**
@@ -79,9 +81,25 @@ public class DecorationPainterUtils {
     public static void clearDecorationType(JComponent comp) {
         if (comp != null) {
             comp.putClientProperty(DECORATION_AREA_TYPE, null);
+            HierarchyResolutionCache.invalidate();
         }
     }
 
+    /**
+     * Sets the link to the invoker of the popup that contains the specified component. The
+     * decoration area type of the component is resolved from the popup invoker if neither the
+     * component nor any one of its parent components has a decoration area type.
+     *
+     * @param comp
+     *            Component.
+     * @param popupInvokerLink
+     *            Link to the popup invoker. Can be <code>null</code>.
+     */
+    public static void setPopupInvokerLink(JComponent comp, PopupInvokerLink popupInvokerLink) {
+        comp.putClientProperty(POPUP_INVOKER_LINK, popupInvokerLink);
+        HierarchyResolutionCache.invalidate();
+    }
+
     /**
      * Returns the decoration area type of the specified component. The component and its ancestor
      * hierarchy are scanned for the registered decoration area type. If
@@ -97,6 +115,11 @@ public class DecorationPainterUtils {
      * @return Decoration area type of the component.
      */
     public static DecorationAreaType getDecorationType(Component comp) {
+        return HierarchyResolutionCache.getDecorationType(comp,
+                DecorationPainterUtils::resolveDecorationType);
+    }
+
+    private static DecorationAreaType resolveDecorationType(Component comp) {
         JPopupMenu popupMenu = null;
         JComponent popupInvoker = null;
         Component c = comp;
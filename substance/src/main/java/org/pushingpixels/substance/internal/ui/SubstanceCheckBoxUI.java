@@ -128,17 +128,20 @@ public class SubstanceCheckBoxUI extends SubstanceRadioButtonUI {
         int fontSize = SubstanceSizeUtils.getComponentFontSize(button);
         int checkMarkSize = SubstanceSizeUtils.getCheckBoxMarkSize(fontSize);
 
-        HashMapKey keyBase = SubstanceCoreUtilities.getHashKey(fontSize, checkMarkSize,
-                fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                baseFillColorScheme.getDisplayName(), baseMarkColorScheme.getDisplayName(),
-                baseBorderColorScheme.getDisplayName(), visibility, isCheckMarkFadingOut, alpha);
+        TypedHashMapKey keyBase = TypedHashMapKey.lookup().with(fontSize).with(checkMarkSize)
+                .with(fillPainter.getDisplayName()).with(borderPainter.getDisplayName())
+                .with(baseFillColorScheme.getDisplayName())
+                .with(baseMarkColorScheme.getDisplayName())
+                .with(baseBorderColorScheme.getDisplayName()).with(visibility)
+                .with(isCheckMarkFadingOut).with(alpha);
         NeonIconUIResource iconBase = icons.get(keyBase);
         if (iconBase == null) {
+            HashMapKey storedKeyBase = keyBase.copy();
             iconBase = new NeonIconUIResource(
                     SubstanceImageCreator.getCheckBox(button, fillPainter, borderPainter,
                             checkMarkSize, currState, baseFillColorScheme, baseMarkColorScheme,
                             baseBorderColorScheme, visibility, isCheckMarkFadingOut, alpha));
-            icons.put(keyBase, iconBase);
+            icons.put(storedKeyBase, iconBase);
         }
         if (currState.isDisabled() || (activeStates.size() == 1)) {
             return iconBase;
@@ -170,17 +173,20 @@ public class SubstanceCheckBoxUI extends SubstanceRadioButtonUI {
                 SubstanceColorScheme borderColorScheme = SubstanceColorSchemeUtilities
                         .getColorScheme(button, ColorSchemeAssociationKind.BORDER, activeState);
 
-                HashMapKey keyLayer = SubstanceCoreUtilities.getHashKey(fontSize, checkMarkSize,
-                        fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                        fillColorScheme.getDisplayName(), markColorScheme.getDisplayName(),
-                        borderColorScheme.getDisplayName(), visibility);
+                TypedHashMapKey keyLayer = TypedHashMapKey.lookup().with(fontSize)
+                        .with(checkMarkSize).with(fillPainter.getDisplayName())
+                        .with(borderPainter.getDisplayName())
+                        .with(fillColorScheme.getDisplayName())
+                        .with(markColorScheme.getDisplayName())
+                        .with(borderColorScheme.getDisplayName()).with(visibility);
                 NeonIconUIResource iconLayer = icons.get(keyLayer);
                 if (iconLayer == null) {
+                    HashMapKey storedKeyLayer = keyLayer.copy();
                     iconLayer = new NeonIconUIResource(
                             SubstanceImageCreator.getCheckBox(button, fillPainter, borderPainter,
                                     checkMarkSize, currState, fillColorScheme, markColorScheme,
                                     borderColorScheme, visibility, isCheckMarkFadingOut, alpha));
-                    icons.put(keyLayer, iconLayer);
+                    icons.put(storedKeyLayer, iconLayer);
                 }
 
                 iconLayer.paintIcon(button, g2d, 0, 0);
@@ -166,16 +166,18 @@ public class SubstanceRadioButtonUI extends BasicRadioButtonUI implements Transi
         float visibility = stateTransitionTracker.getFacetStrength(ComponentStateFacet.SELECTION);
         float alpha = SubstanceColorSchemeUtilities.getAlpha(button, currState);
 
-        HashMapKey keyBase = SubstanceCoreUtilities.getHashKey(fontSize, checkMarkSize,
-                fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                baseFillColorScheme.getDisplayName(), baseMarkColorScheme.getDisplayName(),
-                baseBorderColorScheme.getDisplayName(), visibility, alpha);
+        TypedHashMapKey keyBase = TypedHashMapKey.lookup().with(fontSize).with(checkMarkSize)
+                .with(fillPainter.getDisplayName()).with(borderPainter.getDisplayName())
+                .with(baseFillColorScheme.getDisplayName())
+                .with(baseMarkColorScheme.getDisplayName())
+                .with(baseBorderColorScheme.getDisplayName()).with(visibility).with(alpha);
         NeonIconUIResource iconBase = icons.get(keyBase);
         if (iconBase == null) {
+            HashMapKey storedKeyBase = keyBase.copy();
             iconBase = new NeonIconUIResource(SubstanceImageCreator.getRadioButton(button, fillPainter,
                     borderPainter, checkMarkSize, currState, 0, baseFillColorScheme,
                     baseMarkColorScheme, baseBorderColorScheme, visibility, alpha));
-            icons.put(keyBase, iconBase);
+            icons.put(storedKeyBase, iconBase);
         }
         if (currState.isDisabled() || (activeStates.size() == 1)) {
             return iconBase;
@@ -206,17 +208,20 @@ public class SubstanceRadioButtonUI extends BasicRadioButtonUI implements Transi
                 SubstanceColorScheme borderColorScheme = SubstanceColorSchemeUtilities
                         .getColorScheme(button, ColorSchemeAssociationKind.BORDER, activeState);
 
-                HashMapKey keyLayer = SubstanceCoreUtilities.getHashKey(fontSize, checkMarkSize,
-                        fillPainter.getDisplayName(), borderPainter.getDisplayName(),
-                        fillColorScheme.getDisplayName(), markColorScheme.getDisplayName(),
-                        borderColorScheme.getDisplayName(), visibility, alpha);
+                TypedHashMapKey keyLayer = TypedHashMapKey.lookup().with(fontSize)
+                        .with(checkMarkSize).with(fillPainter.getDisplayName())
+                        .with(borderPainter.getDisplayName())
+                        .with(fillColorScheme.getDisplayName())
+                        .with(markColorScheme.getDisplayName())
+                        .with(borderColorScheme.getDisplayName()).with(visibility).with(alpha);
                 NeonIconUIResource iconLayer = icons.get(keyLayer);
                 if (iconLayer == null) {
+                    HashMapKey storedKeyLayer = keyLayer.copy();
                     iconLayer = new NeonIconUIResource(
                             SubstanceImageCreator.getRadioButton(button, fillPainter, borderPainter,
                                     checkMarkSize, currState, 0, fillColorScheme, markColorScheme,
                                     borderColorScheme, visibility, alpha));
-                    icons.put(keyLayer, iconLayer);
+                    icons.put(storedKeyLayer, iconLayer);
                 }
 
                 iconLayer.paintIcon(button, g2d, 0, 0);
@@ -783,6 +783,7 @@ public class SubstanceRootPaneUI extends BasicRootPaneUI {
         }
 
         if (propertyName.equals(SubstanceSynapse.ROOT_PANE_SKIN)) {
+            HierarchyResolutionCache.invalidate();
             SubstanceSkin oldValue = (SubstanceSkin) e.getOldValue();
             SubstanceSkin newValue = (SubstanceSkin) e.getNewValue();
             if ((oldValue == null) && (newValue != null)) {
@@ -248,11 +248,13 @@ public class SubstanceScrollBarUI extends BasicScrollBarUI implements Transition
         SubstanceFillPainter painter = SubstanceCoreUtilities.getFillPainter(scrollBar);
         SubstanceButtonShaper shaper = SubstanceCoreUtilities.getButtonShaper(scrollBar);
         SubstanceBorderPainter borderPainter = SubstanceCoreUtilities.getBorderPainter(scrollBar);
-        HashMapKey key = SubstanceCoreUtilities.getHashKey(width, height, scheme.getDisplayName(),
-                borderScheme.getDisplayName(), painter.getDisplayName(), shaper.getDisplayName(),
-                borderPainter.getDisplayName());
+        TypedHashMapKey key = TypedHashMapKey.lookup().with(width).with(height)
+                .with(scheme.getDisplayName()).with(borderScheme.getDisplayName())
+                .with(painter.getDisplayName()).with(shaper.getDisplayName())
+                .with(borderPainter.getDisplayName());
         BufferedImage result = SubstanceScrollBarUI.thumbVerticalMap.get(key);
         if (result == null) {
+            HashMapKey storedKey = key.copy();
             // System.out.println("Cache miss - computing");
             // System.out.println("New image for vertical thumb");
             float radius = width / 2;
@@ -269,7 +271,7 @@ public class SubstanceScrollBarUI extends BasicScrollBarUI implements Transition
                     borderScheme);
             result = SubstanceImageCreator.getRotated(result, 3, false);
             // System.out.println(key);
-            SubstanceScrollBarUI.thumbVerticalMap.put(key, result);
+            SubstanceScrollBarUI.thumbVerticalMap.put(storedKey, result);
         }
 
         return result;
@@ -362,9 +364,10 @@ public class SubstanceScrollBarUI extends BasicScrollBarUI implements Transition
         SubstanceFillPainter painter = SubstanceCoreUtilities.getFillPainter(scrollBar);
         SubstanceButtonShaper shaper = SubstanceCoreUtilities.getButtonShaper(scrollBar);
         SubstanceBorderPainter borderPainter = SubstanceCoreUtilities.getBorderPainter(scrollBar);
-        HashMapKey key = SubstanceCoreUtilities.getHashKey(width, height, scheme.getDisplayName(),
-                borderScheme.getDisplayName(), painter.getDisplayName(), shaper.getDisplayName(),
-                borderPainter.getDisplayName());
+        TypedHashMapKey key = TypedHashMapKey.lookup().with(width).with(height)
+                .with(scheme.getDisplayName()).with(borderScheme.getDisplayName())
+                .with(painter.getDisplayName()).with(shaper.getDisplayName())
+                .with(borderPainter.getDisplayName());
 
         float radius = height / 2;
         float borderDelta = SubstanceSizeUtils.getBorderStrokeWidth() / 2.0f;
@@ -372,6 +375,7 @@ public class SubstanceScrollBarUI extends BasicScrollBarUI implements Transition
                 borderDelta);
         BufferedImage opaque = SubstanceScrollBarUI.thumbHorizontalMap.get(key);
         if (opaque == null) {
+            HashMapKey storedKey = key.copy();
             // System.out.println("New image for horizontal thumb");
 
             opaque = SubstanceCoreUtilities.getBlankImage(width, height);
@@ -380,7 +384,7 @@ public class SubstanceScrollBarUI extends BasicScrollBarUI implements Transition
 
             borderPainter.paintBorder(opaque.getGraphics(), scrollBar, width, height, contour, null,
                     borderScheme);
-            SubstanceScrollBarUI.thumbHorizontalMap.put(key, opaque);
+            SubstanceScrollBarUI.thumbHorizontalMap.put(storedKey, opaque);
         }
 
         return opaque;
@@ -769,8 +769,9 @@ public class SubstanceTabbedPaneUI extends BasicTabbedPaneUI {
                             fade, skin.getTabFadeStart(), skin.getTabFadeEnd());
             }
             SubstanceTabbedPaneUI.backgroundMap.put(key, backgroundImage);
+            result = backgroundImage;
         }
-        return backgroundMap.get(key);
+        return result;
     }
 
     /**
@@ -68,15 +68,16 @@ import java.util.List;
 /**
  * UI for tables in <b>Substance</b> look and feel. Unfortunately, the entire painting stack has
  * been copied from {@link BasicTableUI} since the methods are private. The animation effects are
- * implemented in the {@link #paintCell(Graphics, Rectangle, int, int)}.
+ * implemented in the {@link #paintCell(Graphics, Rectangle, Rectangle, int, int)}.
  * 
  * @author Kirill Grouchnikov
  */
 public class SubstanceTableUI extends BasicTableUI implements UpdateOptimizationAware {
     /**
-     * Holds the list of currently selected row-column indexes.
+     * Holds the currently selected row-column indexes. Is only maintained when the table has
+     * selection animations.
      */
-    private Map<TableCellId, Object> selectedIndices;
+    private SelectedCells selectedCells;
 
     /**
      * Holds the currently rolled-over row-column index, or <code>null</code> if none such.
@@ -139,12 +140,13 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
      */
     private SubstanceTableUI() {
         super();
-        this.selectedIndices = new HashMap<TableCellId, Object>();
+        this.selectedCells = new SelectedCells();
         this.rolledOverIndices = new HashSet<TableCellId>();
         this.stateTransitionMultiTracker = new StateTransitionMultiTracker<TableCellId>();
         this.rolledOverColumn = -1;
 
         this.cellId = new TableCellId(-1, -1);
+        this.paintedCellId = new TableCellId(-1, -1);
     }
 
     static class BooleanEditor extends DefaultCellEditor {
@@ -219,13 +221,17 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
         }
         this.installEditorIfNecessary(Boolean.class, new BooleanEditor());
 
-        int rows = this.table.getRowCount();
-        int cols = this.table.getColumnCount();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (this.table.isCellSelected(i, j)) {
-                    TableCellId cellId = new TableCellId(i, j);
-                    this.selectedIndices.put(cellId, this.table.getValueAt(i, j));
+        // The selection snapshot is only consulted on tables with selection
+        // animations. Large tables skip it altogether.
+        if (this._hasSelectionAnimations()) {
+            int rows = this.table.getRowCount();
+            int cols = this.table.getColumnCount();
+            this.selectedCells.reset(cols);
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    if (this.table.isCellSelected(i, j)) {
+                        this.selectedCells.add(i, j, this.table.getValueAt(i, j));
+                    }
                 }
             }
         }
@@ -328,7 +334,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             this.uninstallEditorIfNecessary(entry.getKey(), entry.getValue());
         }
 
-        this.selectedIndices.clear();
+        this.selectedCells.clear();
         // this.table.putClientProperty(SubstanceTableUI.SELECTED_INDICES,
         // null);
 
@@ -398,7 +404,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                 }
                 // fix for defect 291 - track changes to the table.
                 table.getModel().addTableModelListener(substanceTableStateListener);
-                selectedIndices.clear();
+                selectedCells.clear();
                 stateTransitionMultiTracker.clear();
                 SubstanceTableUI.this.syncSelection(true);
             }
@@ -411,7 +417,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                 }
                 table.getColumnModel().getSelectionModel()
                         .addListSelectionListener(substanceTableStateListener);
-                selectedIndices.clear();
+                selectedCells.clear();
                 stateTransitionMultiTracker.clear();
                 SubstanceTableUI.this.syncSelection(true);
 
@@ -435,7 +441,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                     old.removeListSelectionListener(substanceTableStateListener);
                 }
                 table.getSelectionModel().addListSelectionListener(substanceTableStateListener);
-                selectedIndices.clear();
+                selectedCells.clear();
                 stateTransitionMultiTracker.clear();
                 SubstanceTableUI.this.syncSelection(true);
             }
@@ -451,7 +457,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                 if (newSorter != null) {
                     newSorter.addRowSorterListener(substanceTableStateListener);
                 }
-                selectedIndices.clear();
+                selectedCells.clear();
                 stateTransitionMultiTracker.clear();
                 SubstanceTableUI.this.syncSelection(true);
             }
@@ -933,7 +939,11 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
         // alpha composite applied to it.
         g2d.setComposite(WidgetUtilities.getAlphaComposite(this.table, g));
 
-        TableCellId cellId = new TableCellId(row, column);
+        // reuse the same ID instance for all painted cells. It is only
+        // used for lookups and is never stored
+        TableCellId cellId = this.paintedCellId;
+        cellId.row = row;
+        cellId.column = column;
 
         StateTransitionTracker.ModelStateInfo modelStateInfo = this.getModelStateInfo(cellId);
         Map<ComponentState, StateTransitionTracker.StateContributionInfo> activeStates = ((modelStateInfo == null)
@@ -991,7 +1001,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             }
             if (row > 1) {
                 ComponentState upperNeighbourState = this
-                        .getCellState(new TableCellId(row - 1, column));
+                        .getCellState(this.getId(row - 1, column));
                 if (currState == upperNeighbourState) {
                     // the cell above it is in the same state
                     highlightOpenSides.add(SubstanceSlices.Side.TOP);
@@ -999,7 +1009,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             }
             if (column > 1) {
                 ComponentState leftNeighbourState = this
-                        .getCellState(new TableCellId(row, column - 1));
+                        .getCellState(this.getId(row, column - 1));
                 if (currState == leftNeighbourState) {
                     // the cell to the left is in the same state
                     highlightOpenSides.add(SubstanceSlices.Side.LEFT);
@@ -1169,7 +1179,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                 // starts the fade sequence. So, we use the UI delegate to
                 // compute the selection status.
                 boolean isSelected = updateInfo.hasSelectionAnimations
-                        ? this.selectedIndices.containsKey(cellId)
+                        ? this.selectedCells.isSelected(row, column)
                         : this.table.isCellSelected(row, column);
                 boolean newOpaque = !(isSelected || isRollover || hasHighlights);
 
@@ -1536,6 +1546,79 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
         }
     }
 
+    /**
+     * Snapshot of the selected cells. The selection is kept in a bit set indexed by
+     * <code>row * columnCount + column</code>, along with the cell values at the time of
+     * selection. The values are used to tell a deselection from a change of the cell content.
+     *
+     * @author Kirill Grouchnikov
+     */
+    private static final class SelectedCells {
+        private final BitSet selected = new BitSet();
+
+        private Object[] values = new Object[0];
+
+        /**
+         * Column count of the snapshot, or <code>-1</code> if there is no snapshot.
+         */
+        private int columnCount = -1;
+
+        boolean isTracking(int columnCount) {
+            return (this.columnCount >= 0) && (this.columnCount == columnCount);
+        }
+
+        void reset(int columnCount) {
+            this.clear();
+            this.columnCount = columnCount;
+        }
+
+        void clear() {
+            this.selected.clear();
+            Arrays.fill(this.values, null);
+            this.columnCount = -1;
+        }
+
+        boolean isSelected(int row, int column) {
+            if ((row < 0) || (column < 0) || (column >= this.columnCount)) {
+                return false;
+            }
+            return this.selected.get(row * this.columnCount + column);
+        }
+
+        Object getValue(int row, int column) {
+            int index = row * this.columnCount + column;
+            return (index < this.values.length) ? this.values[index] : null;
+        }
+
+        void add(int row, int column, Object value) {
+            int index = row * this.columnCount + column;
+            this.selected.set(index);
+            if (index >= this.values.length) {
+                this.values = Arrays.copyOf(this.values,
+                        Math.max(index + 1, 2 * this.values.length));
+            }
+            this.values[index] = value;
+        }
+
+        void remove(int row, int column) {
+            int index = row * this.columnCount + column;
+            this.selected.clear(index);
+            if (index < this.values.length) {
+                this.values[index] = null;
+            }
+        }
+
+        void removeRowsFrom(int row) {
+            int from = row * this.columnCount;
+            int to = this.selected.length();
+            if (from < to) {
+                this.selected.clear(from, to);
+                Arrays.fill(this.values, Math.min(from, this.values.length),
+                        Math.min(to, this.values.length), null);
+            }
+        }
+    }
+
     /**
      * ID of a single table cell.
      * 
@@ -1577,14 +1660,17 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
         @Override
         public boolean equals(Object obj) {
             if (obj instanceof TableCellId) {
-                return this.compareTo((TableCellId) obj) == 0;
+                TableCellId other = (TableCellId) obj;
+                return (this.row == other.row) && (this.column == other.column);
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            return (this.row ^ (this.row << 16)) & (this.column ^ (this.column << 16));
+            // pack row and column into a single long and spread its bits
+            long key = ((long) this.row << 32) | (this.column & 0xFFFFFFFFL);
+            return Long.hashCode(key * 0x9E3779B97F4A7C15L);
         }
 
         @Override
@@ -1602,6 +1688,8 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             implements ListSelectionListener, TableModelListener, RowSorterListener {
         List<SortKey> oldSortKeys = null;
 
+        boolean needsFullSync = false;
+
         private boolean isSameSorter(List<? extends SortKey> sortKeys1,
                 List<? extends SortKey> sortKeys2) {
             int size1 = (sortKeys1 == null) ? 0 : sortKeys1.size();
@@ -1632,8 +1720,12 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             List<? extends SortKey> sortKeys = (table.getRowSorter() == null) ? null
                     : table.getRowSorter().getSortKeys();
             boolean isDifferentSorter = !isSameSorter(sortKeys, oldSortKeys);
-            if (e.getValueIsAdjusting() && isDifferentSorter)
+            if (e.getValueIsAdjusting() && isDifferentSorter) {
+                // the changed range of this event is lost, so the next
+                // sync needs to go over the whole table
+                needsFullSync = true;
                 return;
+            }
             if (sortKeys == null) {
                 oldSortKeys = null;
             } else {
@@ -1643,7 +1735,24 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                     oldSortKeys.add(copy);
                 }
             }
-            syncSelection(isDifferentSorter);
+            if (isDifferentSorter || needsFullSync || (table == null)) {
+                needsFullSync = false;
+                syncSelection(isDifferentSorter);
+                return;
+            }
+
+            // only sync the cells in the changed range of the selection model
+            // that has fired this event
+            int rows = table.getRowCount();
+            int cols = table.getColumnCount();
+            int first = Math.max(0, e.getFirstIndex());
+            if (e.getSource() == table.getSelectionModel()) {
+                syncSelection(false, first, Math.min(e.getLastIndex(), rows - 1), 0, cols - 1);
+            } else if (e.getSource() == table.getColumnModel().getSelectionModel()) {
+                syncSelection(false, 0, rows - 1, first, Math.min(e.getLastIndex(), cols - 1));
+            } else {
+                syncSelection(false);
+            }
         }
 
         @Override
@@ -1659,7 +1768,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                 // internal selection and focus tracking
                 // when the event is table update.
                 if (e.getType() != TableModelEvent.UPDATE) {
-                    selectedIndices.clear();
+                    selectedCells.clear();
                     stateTransitionMultiTracker.clear();
                     focusedCellId = null;
                 }
@@ -1923,19 +2032,50 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
 
     TableCellId cellId;
 
+    /**
+     * Reusable ID of the cell that is being painted in
+     * {@link #paintCell(Graphics, Rectangle, Rectangle, int, int)}.
+     */
+    private TableCellId paintedCellId;
+
     /**
      * Synchronizes the current selection state.
-     * 
-     * @param e
-     *            Selection event.
+     *
+     * @param enforceNoAnimations
+     *            If <code>true</code>, no selection and focus animations are initiated.
      */
-    // @SuppressWarnings("unchecked")
     protected void syncSelection(boolean enforceNoAnimations) {
         if (this.table == null) {
             // fix for defect 270 - if the UI delegate is updated
             // by another selection listener, ignore this
             return;
         }
+        this.syncSelection(enforceNoAnimations, 0, this.table.getRowCount() - 1, 0,
+                this.table.getColumnCount() - 1);
+    }
+
+    /**
+     * Synchronizes the current selection state of the cells in the specified range. All other
+     * cells are assumed to have kept their selection state.
+     *
+     * @param enforceNoAnimations
+     *            If <code>true</code>, no selection and focus animations are initiated.
+     * @param rowFrom
+     *            First row of the range (inclusive).
+     * @param rowTo
+     *            Last row of the range (inclusive).
+     * @param colFrom
+     *            First column of the range (inclusive).
+     * @param colTo
+     *            Last column of the range (inclusive).
+     */
+    private void syncSelection(boolean enforceNoAnimations, int rowFrom, int rowTo, int colFrom,
+            int colTo) {
+        if (this.table == null) {
+            // fix for defect 270 - if the UI delegate is updated
+            // by another selection listener, ignore this
+            return;
+        }
 
         int rows = this.table.getRowCount();
         int cols = this.table.getColumnCount();
@@ -1950,7 +2090,9 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
         // cells.
         if (!this._hasSelectionAnimations()) {
             stateTransitionMultiTracker.clear();
-            // this.prevStateMap.clear();
+            // the snapshot is not consulted without selection animations. It
+            // is rebuilt if the table gets selection animations again
+            this.selectedCells.clear();
             table.repaint();
 
             // fix for issue 414 - track focus on tables
@@ -1961,25 +2103,35 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
             return;
         }
 
+        if (!this.selectedCells.isTracking(cols)) {
+            // the snapshot is missing or was taken for a different column
+            // layout. Rebuild it for the whole table without animations
+            this.selectedCells.reset(cols);
+            enforceNoAnimations = true;
+            rowFrom = 0;
+            rowTo = rows - 1;
+            colFrom = 0;
+            colTo = cols - 1;
+        }
+        if ((rowFrom == 0) && (rowTo == rows - 1) && (colFrom == 0) && (colTo == cols - 1)) {
+            // drop the rows that are no longer in the table
+            this.selectedCells.removeRowsFrom(rows);
+        }
+
         Set<StateTransitionTracker> initiatedTrackers = new HashSet<StateTransitionTracker>();
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                TableCellId cellId = new TableCellId(i, j);
+        for (int i = rowFrom; i <= rowTo; i++) {
+            for (int j = colFrom; j <= colTo; j++) {
+                boolean wasSelected = this.selectedCells.isSelected(i, j);
                 if (this.table.isCellSelected(i, j)) {
                     // check if was selected before
-                    if (!this.selectedIndices.containsKey(cellId)) {
+                    if (!wasSelected) {
                         // start fading in
                         if (!enforceNoAnimations) {
-                            // System.out
-                            // .println("Getting selection/in tracker for "
-                            // + cellId);
+                            TableCellId cellId = new TableCellId(i, j);
                             StateTransitionTracker tracker = getTracker(cellId, getCellState(cellId)
                                     .isFacetActive(ComponentStateFacet.ROLLOVER), false);
                             tracker.getModel().setSelected(true);
-                            // System.out
-                            // .println("Selecting previously unselected "
-                            // + i + ":" + j);
                             initiatedTrackers.add(tracker);
                             if (initiatedTrackers.size() > 20) {
                                 stateTransitionMultiTracker.clear();
@@ -1988,107 +2140,93 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                             }
                         }
 
-                        this.selectedIndices.put(cellId, this.table.getValueAt(i, j));
+                        this.selectedCells.add(i, j, this.table.getValueAt(i, j));
                     }
-                } else {
+                } else if (wasSelected) {
                     // check if was selected before and still points
                     // to the same element
-                    if (this.selectedIndices.containsKey(cellId)) {
-                        // corner case when the model returns null
-                        Object oldValue = this.selectedIndices.get(cellId);
-                        if ((i >= this.table.getModel().getRowCount())
-                                || (j >= this.table.getModel().getColumnCount())) {
-                            // not only the content changed, but the model
-                            // dimensions as well
-                            continue;
-                        }
-                        Object currValue = this.table.getValueAt(i, j);
-                        boolean isSame = false;
-                        if (oldValue == null) {
-                            isSame = (currValue == null);
-                        } else {
-                            isSame = oldValue.equals(currValue);
-                        }
-                        if (isSame) {
-                            // start fading out
-                            if (!enforceNoAnimations) {
-                                // System.out
-                                // .println("Getting selection/out tracker for "
-                                // + cellId);
-                                StateTransitionTracker tracker = getTracker(cellId,
-                                        getCellState(cellId)
-                                                .isFacetActive(ComponentStateFacet.ROLLOVER),
-                                        true);
-                                tracker.getModel().setSelected(false);
-                                // System.out
-                                // .println("Unselecting previously selected "
-                                // + i + ":" + j);
-
-                                initiatedTrackers.add(tracker);
-                                if (initiatedTrackers.size() > 20) {
-                                    stateTransitionMultiTracker.clear();
-                                    initiatedTrackers.clear();
-                                    enforceNoAnimations = true;
-                                }
-                            }
-                        }
-                        this.selectedIndices.remove(cellId);
+                    if ((i >= this.table.getModel().getRowCount())
+                            || (j >= this.table.getModel().getColumnCount())) {
+                        // not only the content changed, but the model
+                        // dimensions as well
+                        continue;
                     }
-                }
-
-                // handle focus animations
-                boolean cellHasFocus = isFocusOwner && (i == rowLeadIndex) && (j == colLeadIndex);
-                if (cellHasFocus) {
-                    // check if it's a different cell
-                    if ((this.focusedCellId == null) || !this.focusedCellId.equals(cellId)) {
+                    // corner case when the model returns null
+                    Object oldValue = this.selectedCells.getValue(i, j);
+                    Object currValue = this.table.getValueAt(i, j);
+                    boolean isSame = false;
+                    if (oldValue == null) {
+                        isSame = (currValue == null);
+                    } else {
+                        isSame = oldValue.equals(currValue);
+                    }
+                    if (isSame) {
+                        // start fading out
                         if (!enforceNoAnimations) {
-                            if (this.focusedCellId != null) {
-                                // fade out the previous focus holder
-
-                                ComponentState cellState = getCellState(this.focusedCellId);
-                                // System.out.println("Getting focus/out tracker for "
-                                // + cellId);
-                                StateTransitionTracker tracker = getTracker(this.focusedCellId,
-                                        cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
-                                        cellState.isFacetActive(ComponentStateFacet.SELECTION));
-                                tracker.setFocusState(false);
-                            }
-
-                            // fade in the current cell (new focus holder)
-                            ComponentState cellState = getCellState(cellId);
-
-                            // System.out.println("Getting focus/in tracker for "
-                            // + currId);
+                            TableCellId cellId = new TableCellId(i, j);
                             StateTransitionTracker tracker = getTracker(cellId,
-                                    cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
-                                    cellState.isFacetActive(ComponentStateFacet.SELECTION));
-                            tracker.setFocusState(true);
-                        }
+                                    getCellState(cellId)
+                                            .isFacetActive(ComponentStateFacet.ROLLOVER),
+                                    true);
+                            tracker.getModel().setSelected(false);
 
-                        if (AnimationConfigurationManager.getInstance()
-                                .isAnimationAllowed(AnimationFacet.FOCUS, this.table)) {
-                            // and store it for future checks
-                            this.focusedCellId = new TableCellId(i, j);
+                            initiatedTrackers.add(tracker);
+                            if (initiatedTrackers.size() > 20) {
+                                stateTransitionMultiTracker.clear();
+                                initiatedTrackers.clear();
+                                enforceNoAnimations = true;
+                            }
                         }
                     }
-                } else {
-                    // check if previously it held focus
-                    if (cellId.equals(this.focusedCellId)) {
-                        if (!enforceNoAnimations) {
-                            // fade it out
-                            ComponentState cellState = getCellState(cellId);
-                            // System.out.println("Getting focus/out tracker for "
-                            // + cellId);
-                            StateTransitionTracker tracker = getTracker(cellId,
-                                    cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
-                                    cellState.isFacetActive(ComponentStateFacet.SELECTION));
-                            tracker.setFocusState(false);
-                        }
+                    this.selectedCells.remove(i, j);
+                }
+            }
+        }
 
-                        this.focusedCellId = null;
+        // handle focus animations
+        boolean leadHasFocus = isFocusOwner && (rowLeadIndex >= 0) && (rowLeadIndex < rows)
+                && (colLeadIndex >= 0) && (colLeadIndex < cols);
+        if (leadHasFocus) {
+            // check if it's a different cell
+            if ((this.focusedCellId == null) || (this.focusedCellId.row != rowLeadIndex)
+                    || (this.focusedCellId.column != colLeadIndex)) {
+                TableCellId cellId = new TableCellId(rowLeadIndex, colLeadIndex);
+                if (!enforceNoAnimations) {
+                    if (this.focusedCellId != null) {
+                        // fade out the previous focus holder
+                        ComponentState cellState = getCellState(this.focusedCellId);
+                        StateTransitionTracker tracker = getTracker(this.focusedCellId,
+                                cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
+                                cellState.isFacetActive(ComponentStateFacet.SELECTION));
+                        tracker.setFocusState(false);
                     }
+
+                    // fade in the current cell (new focus holder)
+                    ComponentState cellState = getCellState(cellId);
+                    StateTransitionTracker tracker = getTracker(cellId,
+                            cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
+                            cellState.isFacetActive(ComponentStateFacet.SELECTION));
+                    tracker.setFocusState(true);
                 }
+
+                // and store it for future checks
+                this.focusedCellId = AnimationConfigurationManager.getInstance()
+                        .isAnimationAllowed(AnimationFacet.FOCUS, this.table) ? cellId : null;
+            }
+        } else if (this.focusedCellId != null) {
+            // check if previously it held focus
+            if (!enforceNoAnimations && (this.focusedCellId.row >= 0)
+                    && (this.focusedCellId.row < rows) && (this.focusedCellId.column >= 0)
+                    && (this.focusedCellId.column < cols)) {
+                // fade it out
+                ComponentState cellState = getCellState(this.focusedCellId);
+                StateTransitionTracker tracker = getTracker(this.focusedCellId,
+                        cellState.isFacetActive(ComponentStateFacet.ROLLOVER),
+                        cellState.isFacetActive(ComponentStateFacet.SELECTION));
+                tracker.setFocusState(false);
             }
+
+            this.focusedCellId = null;
         }
     }
 
@@ -2114,7 +2252,7 @@ public class SubstanceTableUI extends BasicTableUI implements UpdateOptimization
                     : this._hasSelectionAnimations();
             if (hasSelectionAnimations && AnimationConfigurationManager.getInstance()
                     .isAnimationAllowed(AnimationFacet.SELECTION, table))
-                isSelected = this.selectedIndices.containsKey(cellId);
+                isSelected = this.selectedCells.isSelected(row, column);
             else {
                 isSelected = this.table.isCellSelected(row, column);
             }
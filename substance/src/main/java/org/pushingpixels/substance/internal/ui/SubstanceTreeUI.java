@@ -521,7 +521,12 @@ public class SubstanceTreeUI extends BasicTreeUI {
 		/**
 		 * Tree path.
 		 */
-		protected TreePath path;
+		protected final TreePath path;
+
+		/**
+		 * Hash code of the path, computed once on creation.
+		 */
+		private final int hash;
 
 		/**
 		 * Creates a tree path ID.
@@ -531,6 +536,14 @@ public class SubstanceTreeUI extends BasicTreeUI {
 		 */
 		public TreePathId(TreePath path) {
 			this.path = path;
+			// walk the parent chain instead of TreePath.getPath() which
+			// allocates a new array. The hash depends on the order of the
+			// path elements so that sibling permutations don't collide.
+			int result = 0;
+			for (TreePath curr = path; curr != null; curr = curr.getParentPath()) {
+				result = 31 * result + Objects.hashCode(curr.getLastPathComponent());
+			}
+			this.hash = result;
 		}
 
 		@Override
@@ -541,32 +554,40 @@ public class SubstanceTreeUI extends BasicTreeUI {
 					return 1;
 				if ((otherId.path == null) && (this.path != null))
 					return -1;
-				Object[] path1Objs = this.path.getPath();
-				Object[] path2Objs = otherId.path.getPath();
-				if (path1Objs.length != path2Objs.length)
-					return 1;
-				for (int i = 0; i < path1Objs.length; i++)
-					if (!path1Objs[i].equals(path2Objs[i]))
-						return 1;
-				return 0;
+				return this.equals(otherId) ? 0 : 1;
 			}
 			return -1;
 		}
 
 		@Override
 		public boolean equals(Object obj) {
-			return this.compareTo(obj) == 0;
+			if (this == obj)
+				return true;
+			if (!(obj instanceof TreePathId))
+				return false;
+			TreePathId otherId = (TreePathId) obj;
+			if (this.hash != otherId.hash)
+				return false;
+			TreePath path1 = this.path;
+			TreePath path2 = otherId.path;
+			if ((path1 == null) || (path2 == null))
+				return (path1 == path2);
+			if (path1.getPathCount() != path2.getPathCount())
+				return false;
+			while (path1 != null) {
+				if (path1 == path2)
+					return true;
+				if (!Objects.equals(path1.getLastPathComponent(), path2.getLastPathComponent()))
+					return false;
+				path1 = path1.getParentPath();
+				path2 = path2.getParentPath();
+			}
+			return true;
 		}
 
 		@Override
 		public int hashCode() {
-			if (this.path == null)
-				return 0;
-			Object[] pathObjs = this.path.getPath();
-			int result = pathObjs[0].hashCode();
-			for (int i = 1; i < pathObjs.length; i++)
-				result = result ^ pathObjs[i].hashCode();
-			return result;
+			return this.hash;
 		}
 	}
 
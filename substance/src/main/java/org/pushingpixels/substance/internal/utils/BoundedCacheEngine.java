@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache engine that keeps the estimated size of its values under a fixed byte budget,
+ * evicting the least recently used entries first. The key space is split across a
+ * number of independently locked segments, so that lookups from the Event Dispatch
+ * Thread do not contend with background icon loaders working on other keys. A value that
+ * is heavier than the budget of a single segment is kept next to the other entries of its
+ * segment until the next value is put in that segment, so that callers can still read it
+ * back right after putting it.
+ *
+ * @param <T> Class for the stored values.
+ * @author Kirill Grouchnikov
+ */
+class BoundedCacheEngine<T> implements CacheEngine<T> {
+    /**
+     * Number of segments. Must be a power of two.
+     */
+    private static final int SEGMENT_COUNT = 8;
+
+    /**
+     * Weight of values that are neither images nor icons.
+     */
+    private static final int DEFAULT_WEIGHT = 256;
+
+    private final Segment<T>[] segments;
+
+    private final LongAdder evictionCount;
+
+    /**
+     * Creates a new bounded engine.
+     *
+     * @param maxWeight Maximum number of bytes retained by the values of the new engine.
+     */
+    @SuppressWarnings("unchecked")
+    BoundedCacheEngine(long maxWeight) {
+        this.evictionCount = new LongAdder();
+        this.segments = (Segment<T>[]) new Segment<?>[SEGMENT_COUNT];
+        long segmentMaxWeight = Math.max(1, maxWeight / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment<>(segmentMaxWeight, this.evictionCount);
+        }
+    }
+
+    private Segment<T> getSegment(HashMapKey key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return this.segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    @Override
+    public T get(HashMapKey key) {
+        return this.getSegment(key).get(key);
+    }
+
+    @Override
+    public void put(HashMapKey key, T value) {
+        this.getSegment(key).put(key, value, weigh(value));
+    }
+
+    @Override
+    public boolean containsKey(HashMapKey key) {
+        return this.getSegment(key).containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        int result = 0;
+        for (Segment<T> segment : this.segments) {
+            result += segment.size();
+        }
+        return result;
+    }
+
+    @Override
+    public long getWeight() {
+        long result = 0;
+        for (Segment<T> segment : this.segments) {
+            result += segment.getWeight();
+        }
+        return result;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<T> segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the specified value.
+     *
+     * @param value Cached value.
+     * @return The estimated number of bytes retained by the specified value.
+     */
+    static long weigh(Object value) {
+        if (value instanceof BufferedImage) {
+            BufferedImage image = (BufferedImage) value;
+            return 4L * image.getWidth() * image.getHeight();
+        }
+        if (value instanceof Icon) {
+            Icon icon = (Icon) value;
+            return Math.max(DEFAULT_WEIGHT, 4L * icon.getIconWidth() * icon.getIconHeight());
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    /**
+     * A single independently locked LRU segment.
+     *
+     * @param <T> Class for the stored values.
+     */
+    private static class Segment<T> {
+        private final LinkedHashMap<HashMapKey, WeightedValue<T>> map;
+
+        private final long maxWeight;
+
+        private final LongAdder evictionCount;
+
+        private long weight;
+
+        /**
+         * Key of the entry that is heavier than the budget of this segment, or
+         * <code>null</code> if there is none.
+         */
+        private HashMapKey oversizedKey;
+
+        private Segment(long maxWeight, LongAdder evictionCount) {
+            // access order so that the iteration starts from the least recently used entry
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+            this.maxWeight = maxWeight;
+            this.evictionCount = evictionCount;
+        }
+
+        private synchronized T get(HashMapKey key) {
+            WeightedValue<T> entry = this.map.get(key);
+            return (entry == null) ? null : entry.value;
+        }
+
+        private synchronized void put(HashMapKey key, T value, long valueWeight) {
+            // The oversized entry only stays until the next put
+            if ((this.oversizedKey != null) && !this.oversizedKey.equals(key)) {
+                WeightedValue<T> oversized = this.map.remove(this.oversizedKey);
+                if (oversized != null) {
+                    this.weight -= oversized.weight;
+                    this.evictionCount.increment();
+                }
+            }
+            this.oversizedKey = null;
+
+            WeightedValue<T> previous = this.map.put(key, new WeightedValue<>(value, valueWeight));
+            if (previous != null) {
+                this.weight -= previous.weight;
+            }
+            this.weight += valueWeight;
+
+            if (valueWeight > this.maxWeight) {
+                // A value that does not fit in the segment is kept without evicting
+                // the rest of the segment to make room for it
+                this.oversizedKey = key;
+                return;
+            }
+
+            // Evict from the least recently used end. As the new value fits in
+            // the segment, the entry that has just been added is never evicted
+            Iterator<Map.Entry<HashMapKey, WeightedValue<T>>> iterator =
+                    this.map.entrySet().iterator();
+            while ((this.weight > this.maxWeight) && (this.map.size() > 1)) {
+                WeightedValue<T> eldest = iterator.next().getValue();
+                iterator.remove();
+                this.weight -= eldest.weight;
+                this.evictionCount.increment();
+            }
+        }
+
+        private synchronized boolean containsKey(HashMapKey key) {
+            return this.map.containsKey(key);
+        }
+
+        private synchronized int size() {
+            return this.map.size();
+        }
+
+        private synchronized long getWeight() {
+            return this.weight;
+        }
+
+        private synchronized void clear() {
+            this.map.clear();
+            this.weight = 0;
+            this.oversizedKey = null;
+        }
+    }
+
+    private static class WeightedValue<T> {
+        private final T value;
+
+        private final long weight;
+
+        private WeightedValue(T value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -125,36 +125,16 @@ public class ButtonBackgroundDelegate {
                     SubstanceColorScheme colorScheme = SubstanceColorSchemeUtilities.ORANGE;
                     float cyclePos = modificationTimeline.getTimelinePosition();
 
-                    HashMapKey key1 = SubstanceCoreUtilities.getHashKey(width, height,
-                            colorScheme.getDisplayName(), baseBorderScheme.getDisplayName(),
-                            shaper.getDisplayName(), fillPainter.getDisplayName(),
-                            borderPainter.getDisplayName(), straightSides, openSides,
-                            button.getClass().getName(), isRoundButton, radius, isContentAreaFilled,
-                            isBorderPainted, SubstanceSizeUtils.getComponentFontSize(button));
-                    BufferedImage layer1 = regularBackgrounds.get(key1);
-                    if (layer1 == null) {
-                        layer1 = createBackgroundImage(button, shaper, fillPainter, borderPainter,
-                                width, height, colorScheme, baseBorderScheme, openSides,
-                                isContentAreaFilled, isBorderPainted);
-
-                        regularBackgrounds.put(key1, layer1);
-                    }
-                    HashMapKey key2 = SubstanceCoreUtilities.getHashKey(width, height,
-                            colorScheme2.getDisplayName(), baseBorderScheme.getDisplayName(),
-                            shaper.getDisplayName(), fillPainter.getDisplayName(),
-                            borderPainter.getDisplayName(), straightSides, openSides,
-                            button.getClass().getName(), isRoundButton, radius, isContentAreaFilled,
-                            isBorderPainted, SubstanceSizeUtils.getComponentFontSize(button));
-                    BufferedImage layer2 = regularBackgrounds.get(key2);
-                    if (layer2 == null) {
-                        layer2 = createBackgroundImage(button, shaper, fillPainter, borderPainter,
-                                width, height, colorScheme2, baseBorderScheme, openSides,
-                                isContentAreaFilled, isBorderPainted);
-
-                        regularBackgrounds.put(key2, layer2);
-                    }
+                    BufferedImage layer1 = getLayer(button, shaper, fillPainter, borderPainter,
+                            width, height, colorScheme, baseBorderScheme, straightSides,
+                            openSides, isRoundButton, radius, isContentAreaFilled,
+                            isBorderPainted);
+                    BufferedImage layer2 = getLayer(button, shaper, fillPainter, borderPainter,
+                            width, height, colorScheme2, baseBorderScheme, straightSides,
+                            openSides, isRoundButton, radius, isContentAreaFilled,
+                            isBorderPainted);
 
-                    BufferedImage result = SubstanceCoreUtilities.getBlankUnscaledImage(layer1);
+                    BufferedImage result = ScratchImagePool.getBlankUnscaledImage(layer1);
                     Graphics2D g2d = result.createGraphics();
                     if (cyclePos < 1.0f)
                         g2d.drawImage(layer1, 0, 0, layer1.getWidth(), layer1.getHeight(), null);
@@ -177,25 +157,14 @@ public class ButtonBackgroundDelegate {
 
         SubstanceColorScheme baseFillScheme = SubstanceColorSchemeUtilities.getColorScheme(button,
                 currState);
-        HashMapKey keyBase = SubstanceCoreUtilities.getHashKey(width, height,
-                baseFillScheme.getDisplayName(), baseBorderScheme.getDisplayName(),
-                shaper.getDisplayName(), fillPainter.getDisplayName(),
-                borderPainter.getDisplayName(), straightSides, openSides,
-                button.getClass().getName(), isRoundButton, (int) (1000 * radius),
-                isContentAreaFilled, isBorderPainted,
-                SubstanceSizeUtils.getComponentFontSize(button));
-        BufferedImage layerBase = regularBackgrounds.get(keyBase);
-        if (layerBase == null) {
-            layerBase = createBackgroundImage(button, shaper, fillPainter, borderPainter, width,
-                    height, baseFillScheme, baseBorderScheme, openSides, isContentAreaFilled,
-                    isBorderPainted);
-            regularBackgrounds.put(keyBase, layerBase);
-        }
+        BufferedImage layerBase = getLayer(button, shaper, fillPainter, borderPainter, width,
+                height, baseFillScheme, baseBorderScheme, straightSides, openSides,
+                isRoundButton, radius, isContentAreaFilled, isBorderPainted);
         if (currState.isDisabled() || (activeStates.size() == 1)) {
             return layerBase;
         }
 
-        BufferedImage result = SubstanceCoreUtilities.getBlankUnscaledImage(layerBase);
+        BufferedImage result = ScratchImagePool.getBlankUnscaledImage(layerBase);
         Graphics2D g2d = result.createGraphics();
         // draw the base layer
         g2d.drawImage(layerBase, 0, 0, layerBase.getWidth(), layerBase.getHeight(), null);
@@ -219,20 +188,9 @@ public class ButtonBackgroundDelegate {
                         .getColorScheme(button, activeState);
                 SubstanceColorScheme borderScheme = SubstanceColorSchemeUtilities
                         .getColorScheme(button, ColorSchemeAssociationKind.BORDER, activeState);
-                HashMapKey key = SubstanceCoreUtilities.getHashKey(width, height,
-                        fillScheme.getDisplayName(), borderScheme.getDisplayName(),
-                        shaper.getDisplayName(), fillPainter.getDisplayName(),
-                        borderPainter.getDisplayName(), straightSides, openSides,
-                        button.getClass().getName(), isRoundButton, (int) (1000 * radius),
-                        isContentAreaFilled, isBorderPainted,
-                        SubstanceSizeUtils.getComponentFontSize(button));
-                BufferedImage layer = regularBackgrounds.get(key);
-                if (layer == null) {
-                    layer = createBackgroundImage(button, shaper, fillPainter, borderPainter, width,
-                            height, fillScheme, borderScheme, openSides, isContentAreaFilled,
-                            isBorderPainted);
-                    regularBackgrounds.put(key, layer);
-                }
+                BufferedImage layer = getLayer(button, shaper, fillPainter, borderPainter, width,
+                        height, fillScheme, borderScheme, straightSides, openSides, isRoundButton,
+                        radius, isContentAreaFilled, isBorderPainted);
                 g2d.drawImage(layer, 0, 0, layer.getWidth(), layer.getHeight(), null);
             }
         }
@@ -240,6 +198,35 @@ public class ButtonBackgroundDelegate {
         return result;
     }
 
+    /**
+     * Retrieves a single background layer for the specified button, creating and caching
+     * it if necessary. The cache lookup does not allocate.
+     *
+     * @return Background layer.
+     */
+    private static BufferedImage getLayer(AbstractButton button, SubstanceButtonShaper shaper,
+            SubstanceFillPainter fillPainter, SubstanceBorderPainter borderPainter, int width,
+            int height, SubstanceColorScheme fillScheme, SubstanceColorScheme borderScheme,
+            Set<Side> straightSides, Set<Side> openSides, boolean isRoundButton, float radius,
+            boolean isContentAreaFilled, boolean isBorderPainted) {
+        TypedHashMapKey key = TypedHashMapKey.lookup().with(width).with(height)
+                .with(fillScheme.getDisplayName()).with(borderScheme.getDisplayName())
+                .with(shaper.getDisplayName()).with(fillPainter.getDisplayName())
+                .with(borderPainter.getDisplayName()).withSides(straightSides)
+                .withSides(openSides).with(button.getClass()).with(isRoundButton)
+                .with(radius).with(isContentAreaFilled).with(isBorderPainted)
+                .with(SubstanceSizeUtils.getComponentFontSize(button));
+        BufferedImage layer = regularBackgrounds.get(key);
+        if (layer == null) {
+            HashMapKey storedKey = key.copy();
+            layer = createBackgroundImage(button, shaper, fillPainter, borderPainter, width,
+                    height, fillScheme, borderScheme, openSides, isContentAreaFilled,
+                    isBorderPainted);
+            regularBackgrounds.put(storedKey, layer);
+        }
+        return layer;
+    }
+
     private static BufferedImage createBackgroundImage(AbstractButton button,
             SubstanceButtonShaper shaper, SubstanceFillPainter fillPainter,
             SubstanceBorderPainter borderPainter, int width, int height,
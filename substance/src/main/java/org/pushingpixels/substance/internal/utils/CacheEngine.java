@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+/**
+ * Storage engine behind a {@link LazyResettableHashMap}. Implementations must be
+ * safe for concurrent use from the Event Dispatch Thread and background icon
+ * loaders.
+ *
+ * @param <T> Class for the stored values.
+ * @author Kirill Grouchnikov
+ */
+interface CacheEngine<T> {
+    /**
+     * Returns the value registered for the specified key.
+     *
+     * @param key Key.
+     * @return Registered value or <code>null</code> if none.
+     */
+    T get(HashMapKey key);
+
+    /**
+     * Puts a new key-value pair in this engine, possibly evicting other entries.
+     *
+     * @param key   Pair key.
+     * @param value Pair value.
+     */
+    void put(HashMapKey key, T value);
+
+    /**
+     * Checks whether there is a value associated with the specified key.
+     *
+     * @param key Key.
+     * @return <code>true</code> if there is an associated value,
+     * <code>false</code> otherwise.
+     */
+    boolean containsKey(HashMapKey key);
+
+    /**
+     * Returns the number of key-value pairs in this engine.
+     *
+     * @return The number of key-value pairs in this engine.
+     */
+    int size();
+
+    /**
+     * Returns the estimated number of bytes retained by the values of this engine.
+     *
+     * @return The estimated number of bytes retained by the values of this engine.
+     */
+    long getWeight();
+
+    /**
+     * Returns the number of entries evicted by this engine since its creation.
+     *
+     * @return The number of entries evicted by this engine since its creation.
+     */
+    long getEvictionCount();
+
+    /**
+     * Removes all the entries from this engine.
+     */
+    void clear();
+}
@@ -42,6 +42,18 @@ public class HashMapKey {
 	 */
 	private Object[] keyFields;
 
+	/**
+	 * Hash code of this key object.
+	 */
+	private int hashCode;
+
+	/**
+	 * Creates a key object for subclasses that provide their own
+	 * {@link #hashCode()} and {@link #equals(Object)}.
+	 */
+	protected HashMapKey() {
+	}
+
 	/**
 	 * Creates a new key object.
 	 * 
@@ -50,16 +62,17 @@ public class HashMapKey {
 	 */
 	public HashMapKey(Object... fields) {
 		this.keyFields = fields;
+		this.hashCode = Arrays.deepHashCode(fields);
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.deepHashCode(this.keyFields);
+		return this.hashCode;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		if (!(obj instanceof HashMapKey)) {
+		if ((obj == null) || (obj.getClass() != HashMapKey.class)) {
 			return false;
 		}
 		HashMapKey key2 = (HashMapKey) obj;
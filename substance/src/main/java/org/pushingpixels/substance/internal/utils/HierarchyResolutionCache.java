@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import org.pushingpixels.substance.api.SubstanceSkin;
+import org.pushingpixels.substance.api.SubstanceSlices.DecorationAreaType;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.ContainerEvent;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of the values that are resolved by walking the ancestor chain of a component - the
+ * decoration area type and the root pane skin. Cached values are tagged with a generation
+ * counter that is bumped on every change that can affect them: a component added to or removed
+ * from any container, a decoration area type or popup invoker set on a component, or a skin set
+ * on a root pane. Renderers that are added to and removed from a {@link CellRendererPane} on
+ * every cell paint only invalidate the cache when they move to another renderer pane.
+ * Nothing is cached unless the container events can be tracked, which is the
+ * case between {@link #install()} and {@link #uninstall()}. This class is <b>for internal use
+ * only</b>.
+ *
+ * @author Kirill Grouchnikov
+ */
+public final class HierarchyResolutionCache {
+    private static final Map<Component, Entry> entries = new WeakHashMap<>();
+
+    private static int generation;
+
+    private static AWTEventListener containerListener;
+
+    /**
+     * The renderer pane that each renderer component was last added to.
+     */
+    private static final Map<Component, Container> rendererPanes = new WeakHashMap<>();
+
+    private static final class Entry {
+        private int decorationTypeGeneration = -1;
+
+        private DecorationAreaType decorationType;
+
+        private int skinGeneration = -1;
+
+        private SubstanceSkin skin;
+    }
+
+    private HierarchyResolutionCache() {
+    }
+
+    /**
+     * Starts tracking the container events of the application.
+     */
+    public static synchronized void install() {
+        if (containerListener != null) {
+            return;
+        }
+        AWTEventListener listener = (AWTEvent event) -> onContainerEvent((ContainerEvent) event);
+        try {
+            Toolkit.getDefaultToolkit().addAWTEventListener(listener,
+                    AWTEvent.CONTAINER_EVENT_MASK);
+        } catch (SecurityException se) {
+            // the hierarchy changes cannot be tracked - resolve the values
+            // on every call
+            return;
+        }
+        containerListener = listener;
+        generation++;
+    }
+
+    /**
+     * Stops tracking the container events of the application and clears the cache.
+     */
+    public static synchronized void uninstall() {
+        if (containerListener == null) {
+            return;
+        }
+        Toolkit.getDefaultToolkit().removeAWTEventListener(containerListener);
+        containerListener = null;
+        entries.clear();
+        rendererPanes.clear();
+    }
+
+    private static synchronized void onContainerEvent(ContainerEvent event) {
+        if (event.getContainer() instanceof CellRendererPane) {
+            // Renderer panes remove all their renderers after painting and add them back
+            // on the next cell paint. The ancestors of a renderer only change when it is
+            // added to another renderer pane, and a removed renderer is not painted
+            if ((event.getID() == ContainerEvent.COMPONENT_REMOVED)
+                    || (rendererPanes.put(event.getChild(), event.getContainer())
+                    == event.getContainer())) {
+                return;
+            }
+        } else if (event.getID() == ContainerEvent.COMPONENT_ADDED) {
+            rendererPanes.remove(event.getChild());
+        }
+        generation++;
+    }
+
+    /**
+     * Invalidates all the cached values. Needs to be called on every change that affects the
+     * resolved values and is not signaled with a container event.
+     */
+    public static synchronized void invalidate() {
+        generation++;
+    }
+
+    /**
+     * Returns the decoration area type of the specified component.
+     *
+     * @param comp     Component.
+     * @param resolver Resolves the decoration area type if it is not cached.
+     * @return The decoration area type of the specified component.
+     */
+    public static DecorationAreaType getDecorationType(Component comp,
+            Function<Component, DecorationAreaType> resolver) {
+        int resolvedGeneration;
+        synchronized (HierarchyResolutionCache.class) {
+            if ((containerListener == null) || (comp == null)) {
+                return resolver.apply(comp);
+            }
+            Entry entry = entries.get(comp);
+            if ((entry != null) && (entry.decorationTypeGeneration == generation)) {
+                return entry.decorationType;
+            }
+            resolvedGeneration = generation;
+        }
+
+        // Resolve outside the lock. If anything is invalidated in the meantime, the stored
+        // value is tagged with an outdated generation and resolved again on the next call
+        DecorationAreaType decorationType = resolver.apply(comp);
+        synchronized (HierarchyResolutionCache.class) {
+            if (containerListener != null) {
+                Entry entry = entries.computeIfAbsent(comp, (Component c) -> new Entry());
+                entry.decorationType = decorationType;
+                entry.decorationTypeGeneration = resolvedGeneration;
+            }
+        }
+        return decorationType;
+    }
+
+    /**
+     * Returns the custom skin of the root pane of the specified component.
+     *
+     * @param comp     Component.
+     * @param resolver Resolves the root pane skin if it is not cached. Returns
+     *                 <code>null</code> if the root pane has no custom skin.
+     * @return The custom skin of the root pane of the specified component, or
+     * <code>null</code> if the root pane has no custom skin.
+     */
+    public static SubstanceSkin getRootPaneSkin(Component comp,
+            Function<Component, SubstanceSkin> resolver) {
+        int resolvedGeneration;
+        synchronized (HierarchyResolutionCache.class) {
+            if ((containerListener == null) || (comp == null)) {
+                return resolver.apply(comp);
+            }
+            Entry entry = entries.get(comp);
+            if ((entry != null) && (entry.skinGeneration == generation)) {
+                return entry.skin;
+            }
+            resolvedGeneration = generation;
+        }
+
+        SubstanceSkin skin = resolver.apply(comp);
+        synchronized (HierarchyResolutionCache.class) {
+            if (containerListener != null) {
+                Entry entry = entries.computeIfAbsent(comp, (Component c) -> new Entry());
+                entry.skin = skin;
+                entry.skinGeneration = resolvedGeneration;
+            }
+        }
+        return skin;
+    }
+}
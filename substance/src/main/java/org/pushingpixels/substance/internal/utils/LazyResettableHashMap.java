@@ -32,31 +32,65 @@ package org.pushingpixels.substance.internal.utils;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Lazily initialized hash map for caching images. 
+ * Lazily initialized hash map for caching images. The entries are stored in a
+ * {@link CacheEngine} that is created on the first {@link #put(HashMapKey, Object)}.
+ * Unless the <code>substance.cacheEngine=soft</code> VM flag is set, the engine
+ * keeps the estimated size of the cached values under a fixed byte budget,
+ * evicting the least recently used entries first. The default budget can be
+ * changed with the <code>substance.cacheBudgetKB</code> VM flag.
  * 
  * @author Kirill Grouchnikov
  * @param <T>
  *            Class for the stored values.
  */
 public class LazyResettableHashMap<T> {
+	/**
+	 * Default maximum number of bytes retained by the values of a single map.
+	 */
+	private static final long DEFAULT_MAX_WEIGHT = getDefaultMaxWeight();
+
+	/**
+	 * Indicates whether the maps should use the soft-reference based engine.
+	 */
+	private static final boolean USE_SOFT_ENGINE = "soft".equals(
+			SubstanceCoreUtilities.getVmParameter("substance.cacheEngine"));
+
 	/**
 	 * List of all existing maps.
 	 */
-	private static List<LazyResettableHashMap<?>> all;
+	private static final Queue<LazyResettableHashMap<?>> all = new ConcurrentLinkedQueue<>();
 
 	/**
 	 * The delegate cache.
 	 */
-	private Map<HashMapKey, T> cache;
+	private volatile CacheEngine<T> cache;
 
 	/**
 	 * Display name of this hash map. Is used for tracking the statistics.
 	 */
 	private String displayName;
 
+	/**
+	 * Maximum number of bytes retained by the values of this hash map.
+	 */
+	private long maxWeight;
+
+	/**
+	 * Number of lookups that found a value.
+	 */
+	private final LongAdder hitCount;
+
+	/**
+	 * Number of lookups that did not find a value.
+	 */
+	private final LongAdder missCount;
+
 	/**
 	 * Creates a new hash map.
 	 * 
@@ -64,19 +98,61 @@ public class LazyResettableHashMap<T> {
 	 *            Display name of the new hash map.
 	 */
 	public LazyResettableHashMap(String displayName) {
+		this(displayName, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Creates a new hash map.
+	 * 
+	 * @param displayName
+	 *            Display name of the new hash map.
+	 * @param maxWeight
+	 *            Maximum number of bytes retained by the values of the new
+	 *            hash map.
+	 */
+	public LazyResettableHashMap(String displayName, long maxWeight) {
 		this.displayName = displayName;
-		if (all == null) {
-			all = new LinkedList<>();
-		}
+		this.maxWeight = maxWeight;
+		this.hitCount = new LongAdder();
+		this.missCount = new LongAdder();
 		all.add(this);
 	}
 
+	/**
+	 * Returns the default maximum number of bytes retained by the values of a
+	 * single hash map.
+	 * 
+	 * @return The default maximum number of bytes retained by the values of a
+	 *         single hash map.
+	 */
+	private static long getDefaultMaxWeight() {
+		String budget = SubstanceCoreUtilities.getVmParameter("substance.cacheBudgetKB");
+		if (budget != null) {
+			try {
+				return 1024L * Long.parseLong(budget.trim());
+			} catch (NumberFormatException nfe) {
+				// fall through to the default budget
+			}
+		}
+		return 4L * 1024 * 1024;
+	}
+
 	/**
 	 * Creates the delegate cache if necessary.
 	 */
-	private void createIfNecessary() {
-		if (this.cache == null)
-			this.cache = new SoftHashMap<>();
+	private CacheEngine<T> createIfNecessary() {
+		CacheEngine<T> result = this.cache;
+		if (result == null) {
+			synchronized (this) {
+				result = this.cache;
+				if (result == null) {
+					result = USE_SOFT_ENGINE ? new SoftCacheEngine<>()
+							: new BoundedCacheEngine<>(this.maxWeight);
+					this.cache = result;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -87,9 +163,8 @@ public class LazyResettableHashMap<T> {
 	 * @param entry
 	 *            Pair value.
 	 */
-	public synchronized void put(HashMapKey key, T entry) {
-		this.createIfNecessary();
-		this.cache.put(key, entry);
+	public void put(HashMapKey key, T entry) {
+		this.createIfNecessary().put(key, entry);
 	}
 
 	/**
@@ -99,10 +174,15 @@ public class LazyResettableHashMap<T> {
 	 *            Key.
 	 * @return Registered value or <code>null</code> if none.
 	 */
-	public synchronized T get(HashMapKey key) {
-		if (this.cache == null)
-			return null;
-		return this.cache.get(key);
+	public T get(HashMapKey key) {
+		CacheEngine<T> engine = this.cache;
+		T result = (engine == null) ? null : engine.get(key);
+		if (result == null) {
+			this.missCount.increment();
+		} else {
+			this.hitCount.increment();
+		}
+		return result;
 	}
 
 	/**
@@ -114,10 +194,11 @@ public class LazyResettableHashMap<T> {
 	 *         <code>false</code> otherwise.
 	 */
 	public boolean containsKey(HashMapKey key) {
-		if (this.cache == null) {
+		CacheEngine<T> engine = this.cache;
+		if (engine == null) {
 			return false;
 		}
-		return this.cache.containsKey(key);
+		return engine.containsKey(key);
 	}
 
 	/**
@@ -126,21 +207,62 @@ public class LazyResettableHashMap<T> {
 	 * @return The number of key-value pairs of this hash map.
 	 */
 	public int size() {
-		if (this.cache == null) {
+		CacheEngine<T> engine = this.cache;
+		if (engine == null) {
             return 0;
         }
-		return this.cache.size();
+		return engine.size();
+	}
+
+	/**
+	 * Returns the estimated number of bytes retained by the values of this hash
+	 * map.
+	 * 
+	 * @return The estimated number of bytes retained by the values of this hash
+	 *         map.
+	 */
+	public long getWeight() {
+		CacheEngine<T> engine = this.cache;
+		return (engine == null) ? 0 : engine.getWeight();
+	}
+
+	/**
+	 * Returns the number of lookups on this hash map that found a value.
+	 * 
+	 * @return The number of lookups on this hash map that found a value.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Returns the number of lookups on this hash map that did not find a value.
+	 * 
+	 * @return The number of lookups on this hash map that did not find a value.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Returns the number of entries evicted from this hash map to stay under its
+	 * byte budget.
+	 * 
+	 * @return The number of entries evicted from this hash map.
+	 */
+	public long getEvictionCount() {
+		CacheEngine<T> engine = this.cache;
+		return (engine == null) ? 0 : engine.getEvictionCount();
 	}
 
 	/**
 	 * Resets all existing hash maps.
 	 */
 	public static void reset() {
-		if (all != null) {
-			for (LazyResettableHashMap<?> map : all) {
-				if (map.cache != null) {
-                    map.cache.clear();
-                }
+		for (LazyResettableHashMap<?> map : all) {
+			CacheEngine<?> engine = map.cache;
+			if (engine != null) {
+				engine.clear();
 			}
 		}
 	}
@@ -151,30 +273,28 @@ public class LazyResettableHashMap<T> {
 	 * @return Statistical information of the existing hash maps.
 	 */
 	public static List<String> getStats() {
-		if (all != null) {
-			List<String> result = new LinkedList<>();
+		List<String> result = new LinkedList<>();
 
-			Map<String, Integer> mapCounter = new TreeMap<>();
-			Map<String, Integer> entryCounter = new TreeMap<>();
-
-			for (LazyResettableHashMap<?> map : all) {
-				String key = map.displayName;
-				if (!mapCounter.containsKey(key)) {
-					mapCounter.put(key, 0);
-					entryCounter.put(key, 0);
-				}
-				mapCounter.put(key, mapCounter.get(key) + 1);
-				entryCounter.put(key, entryCounter.get(key) + map.size());
-			}
-
-			for (Map.Entry<String, Integer> entry : mapCounter.entrySet()) {
-				String key = entry.getKey();
-				result.add(entry.getValue() + " " + key + " with "
-						+ entryCounter.get(key) + " entries total");
-			}
+		Map<String, long[]> counters = new TreeMap<>();
+		for (LazyResettableHashMap<?> map : all) {
+			long[] mapCounters = counters.computeIfAbsent(map.displayName,
+					(String key) -> new long[6]);
+			mapCounters[0]++;
+			mapCounters[1] += map.size();
+			mapCounters[2] += map.getWeight();
+			mapCounters[3] += map.getHitCount();
+			mapCounters[4] += map.getMissCount();
+			mapCounters[5] += map.getEvictionCount();
+		}
 
-			return result;
+		for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+			long[] mapCounters = entry.getValue();
+			result.add(mapCounters[0] + " " + entry.getKey() + " with "
+					+ mapCounters[1] + " entries total, " + (mapCounters[2] / 1024)
+					+ " KB, " + mapCounters[3] + " hits, " + mapCounters[4]
+					+ " misses, " + mapCounters[5] + " evictions");
 		}
-		return null;
+
+		return result;
 	}
 }
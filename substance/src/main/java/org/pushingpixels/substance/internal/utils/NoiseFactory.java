@@ -35,9 +35,7 @@ import org.pushingpixels.substance.api.colorscheme.SubstanceColorScheme;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
 import java.awt.image.DataBufferInt;
-import java.awt.image.Kernel;
 
 /**
  * Factory for creating noise images. This class is part of officially supported
@@ -87,30 +85,12 @@ public class NoiseFactory {
 				.getData();
 		// System.out.println((dstBuffer[0] >>> 24) & 0xFF);
 
-		double m2 = xFactor * width * xFactor * width + yFactor * height
-				* yFactor * height;
-		int pos = 0;
-		for (int j = 0; j < height; j++) {
-			double jj = yFactor * j;
-			for (int i = 0; i < width; i++) {
-				double ii = xFactor * i;
-				double z = hasConstantZ ? 1.0 : Math.sqrt(m2 - ii * ii - jj * jj);
-				double noise = 0.5 + 0.5 * PerlinNoiseGenerator.noise(ii, jj, z);
-
-				double likeness = Math.max(0.0, Math.min(1.0, 2.0 * noise));
-				// likeness = 0.0;
-				dstBuffer[pos++] = SubstanceColorUtilities.getInterpolatedRGB(
-						c3, c1, likeness);
-			}
-		}
-		// System.out.println((dstBuffer[0] >>> 24) & 0xFF);
-		if (toBlur) {
-			// and staying here with non-hi DPI aware image for blurred noise
-			ConvolveOp convolve = new ConvolveOp(new Kernel(3, 3, new float[] {
-					.08f, .08f, .08f, .08f, .38f, .08f, .08f, .08f, .08f }),
-					ConvolveOp.EDGE_NO_OP, null);
-			dst = convolve.filter(dst, null);
-		}
+		// the blur is applied as the noise is computed, staying here with
+		// non-hi DPI aware image for blurred noise
+		float[] blurKernel = toBlur ? new float[] { .08f, .08f, .08f, .08f,
+				.38f, .08f, .08f, .08f, .08f } : null;
+		new NoiseRenderer(width, height, xFactor, yFactor, hasConstantZ, null,
+				c3, c1, blurKernel).render(dstBuffer, 0, 0, width, height);
 		
 		// and now returning an image that is hi DPI aware if needed
 		if (NeonCortex.getScaleFactor() > 1.0) {
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import java.awt.*;
+import java.util.stream.IntStream;
+
+/**
+ * Renders Perlin noise images. The rows of the rendered area are split into
+ * bands that are computed in parallel, and the optional blur is applied to
+ * every band as it is computed, without an intermediate image. Any region of a
+ * noise image can be rendered on its own, and the regions stitch into the
+ * same image as rendering the whole image at once.
+ * 
+ * @author Kirill Grouchnikov
+ */
+public final class NoiseRenderer {
+	/**
+	 * Filter applied to the noise value of every pixel. Is called from
+	 * multiple threads at the same time.
+	 */
+	public interface Filter {
+		/**
+		 * Applies filter on the noise at the specified location.
+		 * 
+		 * @param x
+		 *            X coordinate.
+		 * @param y
+		 *            Y coordinate.
+		 * @param z
+		 *            Z coordinate.
+		 * @param origValue
+		 *            The original noise value.
+		 * @return New noise value.
+		 */
+		double apply(double x, double y, double z, double origValue);
+	}
+
+	/**
+	 * The number of rows in a single band.
+	 */
+	private static final int BAND_HEIGHT = 32;
+
+	/**
+	 * The number of steps in the precomputed color ramp.
+	 */
+	private static final int COLOR_STEPS = 1024;
+
+	private final int width;
+
+	private final int height;
+
+	private final double xFactor;
+
+	private final double yFactor;
+
+	private final boolean hasConstantZ;
+
+	private final Filter filter;
+
+	/**
+	 * Colors for the noise values, from the dark color to the light color.
+	 */
+	private final int[] colors;
+
+	/**
+	 * 3*3 blur kernel, or <code>null</code> for no blur.
+	 */
+	private final float[] blurKernel;
+
+	private final double m2;
+
+	/**
+	 * Creates a new noise renderer.
+	 * 
+	 * @param width
+	 *            Width of the full noise image.
+	 * @param height
+	 *            Height of the full noise image.
+	 * @param xFactor
+	 *            X stretch factor.
+	 * @param yFactor
+	 *            Y stretch factor.
+	 * @param hasConstantZ
+	 *            Indication whether the Z is constant.
+	 * @param filter
+	 *            Noise filter to apply. Can be <code>null</code>.
+	 * @param lightColor
+	 *            Color for the highest noise values.
+	 * @param darkColor
+	 *            Color for the lowest noise values.
+	 * @param blurKernel
+	 *            3*3 blur kernel in row-major order, or <code>null</code> for
+	 *            no blur. The pixels on the edges of the full noise image are
+	 *            not blurred, matching {@link java.awt.image.ConvolveOp#EDGE_NO_OP}.
+	 */
+	public NoiseRenderer(int width, int height, double xFactor, double yFactor,
+			boolean hasConstantZ, Filter filter, Color lightColor,
+			Color darkColor, float[] blurKernel) {
+		if ((blurKernel != null) && (blurKernel.length != 9)) {
+			throw new IllegalArgumentException("Blur kernel must be 3*3");
+		}
+		this.width = width;
+		this.height = height;
+		this.xFactor = xFactor;
+		this.yFactor = yFactor;
+		this.hasConstantZ = hasConstantZ;
+		this.filter = filter;
+		this.blurKernel = (blurKernel == null) ? null : blurKernel.clone();
+		this.m2 = xFactor * width * xFactor * width + yFactor * height
+				* yFactor * height;
+
+		this.colors = new int[COLOR_STEPS + 1];
+		for (int i = 0; i <= COLOR_STEPS; i++) {
+			this.colors[i] = SubstanceColorUtilities.getInterpolatedRGB(
+					lightColor, darkColor, (double) i / COLOR_STEPS);
+		}
+	}
+
+	/**
+	 * Renders the specified region of the noise image.
+	 * 
+	 * @param buffer
+	 *            ARGB pixels of the region in row-major order, with
+	 *            <code>regionWidth</code> pixels in every row.
+	 * @param x
+	 *            X coordinate of the region in the full noise image.
+	 * @param y
+	 *            Y coordinate of the region in the full noise image.
+	 * @param regionWidth
+	 *            Region width.
+	 * @param regionHeight
+	 *            Region height.
+	 */
+	public void render(int[] buffer, int x, int y, int regionWidth,
+			int regionHeight) {
+		int bandCount = (regionHeight + BAND_HEIGHT - 1) / BAND_HEIGHT;
+		IntStream.range(0, bandCount).parallel().forEach((int band) -> {
+			int fromRow = y + band * BAND_HEIGHT;
+			int toRow = Math.min(y + regionHeight, fromRow + BAND_HEIGHT);
+			if (this.blurKernel == null) {
+				this.renderBand(buffer, x, y, regionWidth, fromRow, toRow);
+			} else {
+				this.renderBlurredBand(buffer, x, y, regionWidth, fromRow,
+						toRow);
+			}
+		});
+	}
+
+	private void renderBand(int[] buffer, int x, int y, int regionWidth,
+			int fromRow, int toRow) {
+		int[] rowPixels = new int[regionWidth];
+		for (int row = fromRow; row < toRow; row++) {
+			this.computeRow(row, x, rowPixels);
+			System.arraycopy(rowPixels, 0, buffer, (row - y) * regionWidth,
+					regionWidth);
+		}
+	}
+
+	private void renderBlurredBand(int[] buffer, int x, int y,
+			int regionWidth, int fromRow, int toRow) {
+		// unblurred pixels of the rows above, at and below the current row,
+		// with an extra column on each side
+		int[] above = new int[regionWidth + 2];
+		int[] current = new int[regionWidth + 2];
+		int[] below = new int[regionWidth + 2];
+		float[] sums = new float[4];
+		this.computeRow(fromRow - 1, x - 1, above);
+		this.computeRow(fromRow, x - 1, current);
+		for (int row = fromRow; row < toRow; row++) {
+			this.computeRow(row + 1, x - 1, below);
+			boolean isEdgeRow = (row == 0) || (row == this.height - 1);
+			int offset = (row - y) * regionWidth;
+			for (int i = 0; i < regionWidth; i++) {
+				int column = x + i;
+				if (isEdgeRow || (column == 0) || (column == this.width - 1)) {
+					buffer[offset + i] = current[i + 1];
+				} else {
+					buffer[offset + i] = this.blur(above, current, below,
+							i + 1, sums);
+				}
+			}
+			int[] temp = above;
+			above = current;
+			current = below;
+			below = temp;
+		}
+	}
+
+	/**
+	 * Computes the unblurred pixels of the specified row. Pixels outside the
+	 * full noise image are left untouched.
+	 * 
+	 * @param row
+	 *            Row in the full noise image.
+	 * @param fromColumn
+	 *            Column in the full noise image of the first pixel.
+	 * @param rowPixels
+	 *            Array to put the pixels in.
+	 */
+	private void computeRow(int row, int fromColumn, int[] rowPixels) {
+		if ((row < 0) || (row >= this.height)) {
+			return;
+		}
+		double jj = this.yFactor * row;
+		int first = Math.max(0, -fromColumn);
+		int last = Math.min(rowPixels.length, this.width - fromColumn);
+		for (int i = first; i < last; i++) {
+			int column = fromColumn + i;
+			double ii = this.xFactor * column;
+			double z = this.hasConstantZ ? 1.0 : Math.sqrt(this.m2 - ii * ii
+					- jj * jj);
+			double noise = 0.5 + 0.5 * PerlinNoiseGenerator.noise((float) ii,
+					(float) jj, (float) z);
+			if (this.filter != null)
+				noise = this.filter.apply(column, row, z, noise);
+
+			double likeness = Math.max(0.0, Math.min(1.0, 2.0 * noise));
+			rowPixels[i] = this.colors[(int) (likeness * COLOR_STEPS + 0.5)];
+		}
+	}
+
+	/**
+	 * Returns the blurred pixel at the specified index of the current row. As
+	 * {@link java.awt.image.ConvolveOp}, all four channels are convolved
+	 * separately, and the results are truncated to the 0-255 range.
+	 */
+	private int blur(int[] above, int[] current, int[] below, int index,
+			float[] sums) {
+		sums[0] = sums[1] = sums[2] = sums[3] = 0.0f;
+		this.accumulate(above, index, 0, sums);
+		this.accumulate(current, index, 3, sums);
+		this.accumulate(below, index, 6, sums);
+		return (clamp(sums[0]) << 24) | (clamp(sums[1]) << 16)
+				| (clamp(sums[2]) << 8) | clamp(sums[3]);
+	}
+
+	private void accumulate(int[] rowPixels, int index, int kernelOffset,
+			float[] sums) {
+		for (int dx = -1; dx <= 1; dx++) {
+			int argb = rowPixels[index + dx];
+			float weight = this.blurKernel[kernelOffset + dx + 1];
+			sums[0] += weight * (argb >>> 24);
+			sums[1] += weight * ((argb >>> 16) & 0xFF);
+			sums[2] += weight * ((argb >>> 8) & 0xFF);
+			sums[3] += weight * (argb & 0xFF);
+		}
+	}
+
+	private static int clamp(float channel) {
+		return Math.max(0, Math.min(255, (int) channel));
+	}
+}
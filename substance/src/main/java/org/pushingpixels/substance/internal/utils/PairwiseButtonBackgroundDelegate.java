@@ -111,7 +111,7 @@ public class PairwiseButtonBackgroundDelegate {
         if (currState.isDisabled() || (activeStates.size() == 1)) {
             fullOpacity = baseLayer;
         } else {
-            fullOpacity = SubstanceCoreUtilities.getBlankUnscaledImage(baseLayer);
+            fullOpacity = ScratchImagePool.getBlankUnscaledImage(baseLayer);
             Graphics2D g2fullOpacity = fullOpacity.createGraphics();
 
             // draw the base layer
@@ -210,13 +210,15 @@ public class PairwiseButtonBackgroundDelegate {
                 && shaper instanceof RectangularButtonShaper) {
             radius = ((RectangularButtonShaper) shaper).getCornerRadius(button, 0.0f);
         }
-        HashMapKey key = SubstanceCoreUtilities.getHashKey(width, height, straightSides, openSides,
-                colorScheme.getDisplayName(), borderScheme.getDisplayName(),
-                button.getClass().getName(), fillPainter.getDisplayName(), shaper.getDisplayName(),
-                isBorderPainted, isContentAreaFilled, radius);
+        TypedHashMapKey key = TypedHashMapKey.lookup().with(width).with(height)
+                .withSides(straightSides).withSides(openSides).with(colorScheme.getDisplayName())
+                .with(borderScheme.getDisplayName()).with(button.getClass().getName())
+                .with(fillPainter.getDisplayName()).with(shaper.getDisplayName())
+                .with(isBorderPainted).with(isContentAreaFilled).with(radius);
         // System.out.println("\tKey " + key);
         BufferedImage finalBackground = pairwiseBackgrounds.get(key);
         if (finalBackground == null) {
+            HashMapKey storedKey = key.copy();
             // System.out.println("\tNot found");
 
             int deltaLeft = (openSides != null) && openSides.contains(Side.LEFT) ? 3 : 0;
@@ -280,7 +282,7 @@ public class PairwiseButtonBackgroundDelegate {
                 }
             }
 
-            pairwiseBackgrounds.put(key, finalBackground);
+            pairwiseBackgrounds.put(storedKey, finalBackground);
         }
         return finalBackground;
     }
@@ -71,6 +71,53 @@ public class PerlinNoiseGenerator {
 								p[BB + 1], x - 1, y - 1, z - 1))));
 	}
 
+	/**
+	 * Returns noise for the specified coordinates. This is a single-precision
+	 * variant of {@link #noise(double, double, double)} that looks up the
+	 * gradients in a precomputed table. It is meant for rendering large noise
+	 * images, where the precision of the result is not important.
+	 * 
+	 * @param x
+	 *            X coordinate.
+	 * @param y
+	 *            Y coordinate.
+	 * @param z
+	 *            Z coordinate.
+	 * @return Noise for the specified coordinates.
+	 */
+	static public float noise(float x, float y, float z) {
+		int xFloor = floor(x), yFloor = floor(y), zFloor = floor(z);
+		int X = xFloor & 255, Y = yFloor & 255, Z = zFloor & 255;
+		x -= xFloor;
+		y -= yFloor;
+		z -= zFloor;
+		float u = fade(x), v = fade(y), w = fade(z);
+		int A = p[X] + Y, AA = p[A] + Z, AB = p[A + 1] + Z;
+		int B = p[X + 1] + Y, BA = p[B] + Z, BB = p[B + 1] + Z;
+
+		return lerp(w, lerp(v, lerp(u, grad(p[AA], x, y, z),
+				grad(p[BA], x - 1, y, z)),
+				lerp(u, grad(p[AB], x, y - 1, z),
+						grad(p[BB], x - 1, y - 1, z))),
+				lerp(v, lerp(u, grad(p[AA + 1], x, y, z - 1),
+						grad(p[BA + 1], x - 1, y, z - 1)),
+						lerp(u, grad(p[AB + 1], x, y - 1, z - 1), grad(
+								p[BB + 1], x - 1, y - 1, z - 1))));
+	}
+
+	/**
+	 * Returns the largest integer that is not greater than the specified
+	 * value.
+	 * 
+	 * @param t
+	 *            Value.
+	 * @return The floor of the value.
+	 */
+	private static int floor(float t) {
+		int result = (int) t;
+		return (t < result) ? result - 1 : result;
+	}
+
 	/**
 	 * Fades the specified value.
 	 * 
@@ -111,6 +158,39 @@ public class PerlinNoiseGenerator {
 		return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
 	}
 
+	/**
+	 * Single-precision variant of {@link #fade(double)}.
+	 */
+	static float fade(float t) {
+		return t * t * t * (t * (t * 6 - 15) + 10);
+	}
+
+	/**
+	 * Single-precision variant of {@link #lerp(double, double, double)}.
+	 */
+	static float lerp(float t, float a, float b) {
+		return a + t * (b - a);
+	}
+
+	/**
+	 * Single-precision variant of {@link #grad(int, double, double, double)}
+	 * that uses the precomputed gradient table.
+	 */
+	static float grad(int hash, float x, float y, float z) {
+		int h = hash & 15;
+		return gradientX[h] * x + gradientY[h] * y + gradientZ[h] * z;
+	}
+
+	/**
+	 * Gradient directions for the low 4 bits of the hash code, as computed by
+	 * {@link #grad(int, double, double, double)}.
+	 */
+	static final float gradientX[] = new float[16];
+
+	static final float gradientY[] = new float[16];
+
+	static final float gradientZ[] = new float[16];
+
 	/**
 	 * Permutations.
 	 */
@@ -140,5 +220,10 @@ public class PerlinNoiseGenerator {
 	static {
 		for (int i = 0; i < 256; i++)
 			p[256 + i] = p[i] = permutation[i];
+		for (int h = 0; h < 16; h++) {
+			gradientX[h] = (float) grad(h, 1.0, 0.0, 0.0);
+			gradientY[h] = (float) grad(h, 0.0, 1.0, 0.0);
+			gradientZ[h] = (float) grad(h, 0.0, 0.0, 1.0);
+		}
 	}
 }
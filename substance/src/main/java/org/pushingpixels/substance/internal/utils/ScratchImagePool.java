@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import org.pushingpixels.neon.NeonCortex;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Per-thread pool of scratch images used to composite the layers of state transitions.
+ * Without the pool, every animation pulse of every transitioning control allocates a new
+ * image that is drawn once and discarded. A scratch image returned by this class is only
+ * valid until the next request for an image of the same dimensions on the same thread,
+ * and must not be retained by the caller. This class is <b>for internal use only</b>.
+ *
+ * @author Kirill Grouchnikov
+ */
+public final class ScratchImagePool {
+    /**
+     * Number of scratch images kept for each thread.
+     */
+    private static final int SLOT_COUNT = 8;
+
+    private static final ThreadLocal<ScratchImagePool> POOLS =
+            ThreadLocal.withInitial(ScratchImagePool::new);
+
+    private final BufferedImage[] images = new BufferedImage[SLOT_COUNT];
+
+    private final int[] widths = new int[SLOT_COUNT];
+
+    private final int[] heights = new int[SLOT_COUNT];
+
+    private final boolean[] isUnscaled = new boolean[SLOT_COUNT];
+
+    private final double[] scaleFactors = new double[SLOT_COUNT];
+
+    private int nextSlot;
+
+    private ScratchImagePool() {
+    }
+
+    /**
+     * Returns a cleared scratch image with the same pixel dimensions as the specified image.
+     * This is the pooled counterpart of
+     * {@link SubstanceCoreUtilities#getBlankUnscaledImage(BufferedImage)}.
+     *
+     * @param image Image.
+     * @return Cleared scratch image.
+     */
+    public static BufferedImage getBlankUnscaledImage(BufferedImage image) {
+        return POOLS.get().getImage(image.getWidth(), image.getHeight(), true);
+    }
+
+    /**
+     * Returns a cleared scratch image of the specified logical dimensions. This is the
+     * pooled counterpart of {@link SubstanceCoreUtilities#getBlankImage(int, int)}.
+     *
+     * @param width  Image width.
+     * @param height Image height.
+     * @return Cleared scratch image.
+     */
+    public static BufferedImage getBlankImage(int width, int height) {
+        return POOLS.get().getImage(width, height, false);
+    }
+
+    private BufferedImage getImage(int width, int height, boolean unscaled) {
+        double scaleFactor = NeonCortex.getScaleFactor();
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            BufferedImage image = this.images[i];
+            if ((image != null) && (this.isUnscaled[i] == unscaled)
+                    && (this.scaleFactors[i] == scaleFactor)
+                    && (this.widths[i] == width) && (this.heights[i] == height)) {
+                Graphics2D g2d = image.createGraphics();
+                g2d.setComposite(AlphaComposite.Clear);
+                g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g2d.dispose();
+                return image;
+            }
+        }
+
+        BufferedImage result = unscaled
+                ? SubstanceCoreUtilities.getBlankUnscaledImage(width, height)
+                : SubstanceCoreUtilities.getBlankImage(width, height);
+        this.images[this.nextSlot] = result;
+        this.widths[this.nextSlot] = width;
+        this.heights[this.nextSlot] = height;
+        this.isUnscaled[this.nextSlot] = unscaled;
+        this.scaleFactors[this.nextSlot] = scaleFactor;
+        this.nextSlot = (this.nextSlot + 1) % SLOT_COUNT;
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import java.util.Map;
+
+/**
+ * Cache engine that relies on the garbage collector clearing soft references to
+ * its values. This is the engine that was used by all the
+ * {@link LazyResettableHashMap}s before the introduction of
+ * {@link BoundedCacheEngine}, and can be selected with the
+ * <code>substance.cacheEngine=soft</code> VM flag.
+ *
+ * @param <T> Class for the stored values.
+ * @author Kirill Grouchnikov
+ */
+class SoftCacheEngine<T> implements CacheEngine<T> {
+    private final SoftHashMap<HashMapKey, T> map = new SoftHashMap<>();
+
+    @Override
+    public synchronized T get(HashMapKey key) {
+        return this.map.get(key);
+    }
+
+    @Override
+    public synchronized void put(HashMapKey key, T value) {
+        this.map.put(key, value);
+    }
+
+    @Override
+    public synchronized boolean containsKey(HashMapKey key) {
+        return this.map.containsKey(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public synchronized long getWeight() {
+        long result = 0;
+        for (Map.Entry<HashMapKey, T> entry : this.map.entrySet()) {
+            result += BoundedCacheEngine.weigh(entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        // Values are cleared by the garbage collector without notification
+        return 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.map.clear();
+    }
+}
@@ -46,7 +46,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilities related to color schemes. This class is for internal use only.
@@ -60,6 +63,16 @@ public class SubstanceColorSchemeUtilities {
     private final static LazyResettableHashMap<SubstanceColorScheme> shiftedCache =
             new LazyResettableHashMap<>("ShiftColorScheme.shiftedSchemes");
 
+    /**
+     * Color schemes parsed from <code>.colorschemes</code> resources, keyed by the external form
+     * of the resource URL. Unlike the other scheme caches, this one is not reset on skin change,
+     * so that constructing a skin instance does not read and parse its resources again. The
+     * cached schemes are immutable and are shared between all {@link SubstanceSkin.ColorSchemes}
+     * instances returned for the same resource.
+     */
+    private final static Map<String, List<SubstanceColorScheme>> parsedSchemes =
+            new ConcurrentHashMap<>();
+
     private enum ColorSchemeKind {
         LIGHT, DARK
     }
@@ -397,7 +410,22 @@ public class SubstanceColorSchemeUtilities {
         };
     }
 
+    /**
+     * Returns the color schemes described by the specified resource. The resource is only read
+     * and parsed on the first call for the specific URL. The returned collection can be modified
+     * by the caller without affecting the results of subsequent calls.
+     *
+     * @param url
+     *            URL of the resource with the color scheme descriptions.
+     * @return The color schemes described by the specified resource.
+     */
     public static SubstanceSkin.ColorSchemes getColorSchemes(URL url) {
+        List<SubstanceColorScheme> schemes = parsedSchemes.computeIfAbsent(url.toExternalForm(),
+                (String key) -> parseColorSchemes(url));
+        return new SubstanceSkin.ColorSchemes(schemes);
+    }
+
+    private static List<SubstanceColorScheme> parseColorSchemes(URL url) {
         List<SubstanceColorScheme> schemes = new ArrayList<>();
 
         Color ultraLight = null;
@@ -464,12 +492,13 @@ public class SubstanceColorSchemeUtilities {
                     continue;
                 }
 
-                String[] split = line.split("=");
-                if (split.length != 2) {
+                int separator = line.indexOf('=');
+                if ((separator < 0) || (separator == line.length() - 1)
+                        || (line.indexOf('=', separator + 1) >= 0)) {
                     throw new IllegalArgumentException("Unsupported format in line " + line);
                 }
-                String key = split[0].trim();
-                String value = split[1].trim();
+                String key = line.substring(0, separator).trim();
+                String value = line.substring(separator + 1).trim();
                 if ("kind".equals(key)) {
                     if (kind == null) {
                         if ("Light".equals(value)) {
@@ -539,7 +568,7 @@ public class SubstanceColorSchemeUtilities {
         } catch (IOException ioe) {
             throw new IllegalArgumentException(ioe);
         }
-        return new SubstanceSkin.ColorSchemes(schemes);
+        return Collections.unmodifiableList(schemes);
     }
 
     /**
@@ -1635,12 +1635,28 @@ public class SubstanceCoreUtilities {
         if (!SubstanceRootPaneUI.hasCustomSkinOnAtLeastOneRootPane())
             return SubstanceCortex.GlobalScope.getCurrentSkin();
 
+        SubstanceSkin rootPaneSkin = HierarchyResolutionCache.getRootPaneSkin(c,
+                SubstanceCoreUtilities::resolveRootPaneSkin);
+        return (rootPaneSkin != null) ? rootPaneSkin
+                : SubstanceCortex.GlobalScope.getCurrentSkin();
+    }
+
+    /**
+     * Returns the custom skin set on the root pane of the specified component.
+     * 
+     * @param c
+     *            Component.
+     * @return The custom skin set on the root pane of the specified component, or
+     *         <code>null</code> if there is none.
+     */
+    private static SubstanceSkin resolveRootPaneSkin(Component c) {
         SubstanceComboPopup comboPopup = (SubstanceComboPopup) SwingUtilities
                 .getAncestorOfClass(SubstanceComboPopup.class, c);
         if (comboPopup != null) {
             // special case for combobox popup - take the skin
             // of the combobox itself - issue 439
-            return getSkin(comboPopup.getCombobox());
+            return HierarchyResolutionCache.getRootPaneSkin(comboPopup.getCombobox(),
+                    SubstanceCoreUtilities::resolveRootPaneSkin);
         }
 
         JRootPane rootPane = SwingUtilities.getRootPane(c);
@@ -1666,7 +1682,7 @@ public class SubstanceCoreUtilities {
             if (skinProp instanceof SubstanceSkin)
                 return (SubstanceSkin) skinProp;
         }
-        return SubstanceCortex.GlobalScope.getCurrentSkin();
+        return null;
     }
 
     /**
@@ -50,8 +50,7 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
+import java.awt.image.DataBufferInt;
 import java.util.Map;
 
 /**
@@ -62,6 +61,22 @@ import java.util.Map;
 public class SubstanceTextUtilities {
     public static final String ENFORCE_FG_COLOR = "substancelaf.internal.textUtilities.enforceFgColor";
 
+    /**
+     * Cache of blurred drop shadows of text.
+     */
+    private static final LazyResettableHashMap<BufferedImage> dropShadows = new LazyResettableHashMap<BufferedImage>(
+            "SubstanceTextUtilities.dropShadows");
+
+    /**
+     * Weight of the drop shadow blur kernel in its center and corners.
+     */
+    private static final float SHADOW_CORNER_WEIGHT = 0.04f;
+
+    /**
+     * Weight of the drop shadow blur kernel in the middle of its sides.
+     */
+    private static final float SHADOW_SIDE_WEIGHT = 0.06f;
+
     /**
      * Paints text with drop shadow.
      * 
@@ -87,26 +102,28 @@ public class SubstanceTextUtilities {
         Graphics2D graphics = (Graphics2D) g.create();
         NeonCortex.installDesktopHints(graphics, c);
 
-        // blur the text shadow
-        BufferedImage blurred = SubstanceCoreUtilities.getBlankImage(width, height);
-        Graphics2D gBlurred = (Graphics2D) blurred.getGraphics();
-        gBlurred.setFont(graphics.getFont());
-        gBlurred.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
-        float luminFactor = SubstanceColorUtilities.getColorStrength(foregroundColor);
-        gBlurred.setColor(echoColor);
-        ConvolveOp convolve = new ConvolveOp(
-                new Kernel(3, 3,
-                        new float[] { .04f, .06f, .04f, .06f, .04f, .06f, .04f, .06f, .04f }),
-                ConvolveOp.EDGE_NO_OP, null);
-        gBlurred.drawString(text, xOffset, yOffset);
-        blurred = convolve.filter(blurred, null);
-
-        graphics.setComposite(WidgetUtilities.getAlphaComposite(c, luminFactor, g));
+        // the blurred text shadow only depends on the text, font and echo
+        // color, and is reused across repaints
+        Font font = graphics.getFont();
+        FontMetrics shadowMetrics = c.getFontMetrics(font);
+        int margin = getDropShadowMargin(font);
         double scaleFactor = NeonCortex.getScaleFactor();
-        graphics.drawImage(blurred, 0, 0, (int) (blurred.getWidth() / scaleFactor),
-                (int) (blurred.getHeight() / scaleFactor), null);
-        graphics.setComposite(WidgetUtilities.getAlphaComposite(c, g));
+        HashMapKey key = SubstanceCoreUtilities.getHashKey(text, font, echoColor.getRGB(),
+                scaleFactor);
+        BufferedImage blurred = dropShadows.get(key);
+        if (blurred == null) {
+            blurred = getBlurredDropShadow(font, shadowMetrics, echoColor, text, margin);
+            dropShadows.put(key, blurred);
+        }
+
+        float luminFactor = SubstanceColorUtilities.getColorStrength(foregroundColor);
+        Graphics2D gShadow = (Graphics2D) graphics.create();
+        gShadow.clipRect(0, 0, width, height);
+        gShadow.setComposite(WidgetUtilities.getAlphaComposite(c, luminFactor, g));
+        gShadow.drawImage(blurred, xOffset - margin, yOffset - shadowMetrics.getAscent() - margin,
+                (int) (blurred.getWidth() / scaleFactor), (int) (blurred.getHeight() / scaleFactor),
+                null);
+        gShadow.dispose();
 
         FontMetrics fm = graphics.getFontMetrics();
         SubstanceTextUtilities.paintText(graphics, c,
@@ -116,6 +133,105 @@ public class SubstanceTextUtilities {
         graphics.dispose();
     }
 
+    /**
+     * Returns the margin around the text in the drop shadow image. The margin leaves room for the
+     * blur and for glyphs that extend beyond their advance, such as italic glyphs.
+     * 
+     * @param font
+     *            Font.
+     * @return Margin around the text in the drop shadow image.
+     */
+    private static int getDropShadowMargin(Font font) {
+        return 2 + font.getSize() / 4;
+    }
+
+    /**
+     * Returns a blurred drop shadow of the specified text. The text is painted with its baseline
+     * at the ascent of the font, and the shadow has a margin on all sides.
+     * 
+     * @param font
+     *            Font.
+     * @param fontMetrics
+     *            Metrics of the font.
+     * @param echoColor
+     *            Color of the drop shadow.
+     * @param text
+     *            Text.
+     * @param margin
+     *            Margin around the text.
+     * @return Blurred drop shadow.
+     */
+    private static BufferedImage getBlurredDropShadow(Font font, FontMetrics fontMetrics,
+            Color echoColor, String text, int margin) {
+        int width = fontMetrics.stringWidth(text) + 2 * margin;
+        int height = fontMetrics.getAscent() + fontMetrics.getDescent() + 2 * margin;
+        BufferedImage result = SubstanceCoreUtilities.getBlankImage(width, height);
+        Graphics2D gBlurred = result.createGraphics();
+        gBlurred.setFont(font);
+        gBlurred.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        gBlurred.setColor(echoColor);
+        gBlurred.drawString(text, margin, margin + fontMetrics.getAscent());
+        gBlurred.dispose();
+
+        blurDropShadow(((DataBufferInt) result.getRaster().getDataBuffer()).getData(),
+                result.getWidth(), result.getHeight());
+        return result;
+    }
+
+    /**
+     * Blurs the drop shadow pixels in place. This has the same result as a
+     * {@link java.awt.image.ConvolveOp} with {@link java.awt.image.ConvolveOp#EDGE_NO_OP} and
+     * the 3*3 kernel that has {@link #SHADOW_CORNER_WEIGHT} in its center and corners, and
+     * {@link #SHADOW_SIDE_WEIGHT} elsewhere. The top and bottom rows of that kernel are the same,
+     * so it is applied as two horizontal passes (one for the top and bottom kernel rows and one
+     * for the middle kernel row) followed by a vertical pass that adds them up.
+     * 
+     * @param pixels
+     *            ARGB pixels.
+     * @param width
+     *            Width of the pixel area.
+     * @param height
+     *            Height of the pixel area.
+     */
+    private static void blurDropShadow(int[] pixels, int width, int height) {
+        if ((width < 3) || (height < 3)) {
+            return;
+        }
+        // channel sums of the horizontal passes, four per pixel
+        float[] outerRows = new float[4 * width * height];
+        float[] middleRow = new float[4 * width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int pos = y * width + x;
+                for (int channel = 0; channel < 4; channel++) {
+                    int shift = 8 * channel;
+                    int left = (pixels[pos - 1] >>> shift) & 0xFF;
+                    int center = (pixels[pos] >>> shift) & 0xFF;
+                    int right = (pixels[pos + 1] >>> shift) & 0xFF;
+                    outerRows[4 * pos + channel] = SHADOW_CORNER_WEIGHT * (left + right)
+                            + SHADOW_SIDE_WEIGHT * center;
+                    middleRow[4 * pos + channel] = SHADOW_SIDE_WEIGHT * (left + right)
+                            + SHADOW_CORNER_WEIGHT * center;
+                }
+            }
+        }
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int pos = y * width + x;
+                int argb = 0;
+                for (int channel = 0; channel < 4; channel++) {
+                    float sum = outerRows[4 * (pos - width) + channel]
+                            + middleRow[4 * pos + channel]
+                            + outerRows[4 * (pos + width) + channel];
+                    int value = Math.max(0, Math.min(255, (int) sum));
+                    argb |= value << (8 * channel);
+                }
+                pixels[pos] = argb;
+            }
+        }
+    }
+
     /**
      * Paints the specified text.
      * 
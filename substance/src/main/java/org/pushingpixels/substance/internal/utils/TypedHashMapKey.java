@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2005-2018 Substance Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Substance Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.substance.internal.utils;
+
+import org.pushingpixels.substance.api.SubstanceSlices.Side;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Key for the {@link LazyResettableHashMap} that is built from typed fields. Unlike
+ * {@link HashMapKey}, primitive fields are stored without boxing and the hash code is
+ * accumulated as the fields are added. Paint paths should obtain the reusable
+ * per-thread instance with {@link #lookup()}, use it for the cache lookup and call
+ * {@link #copy()} only on a cache miss, so that the cache hit path does not allocate:
+ *
+ * <pre>
+ * TypedHashMapKey key = TypedHashMapKey.lookup().with(width).with(height)
+ *         .with(scheme.getDisplayName());
+ * BufferedImage result = cache.get(key);
+ * if (result == null) {
+ *     HashMapKey storedKey = key.copy();
+ *     result = ...;
+ *     cache.put(storedKey, result);
+ * }
+ * </pre>
+ *
+ * The lookup instance is shared by all the caches used on the same thread, and must be
+ * copied before any code that can do another cache lookup.
+ *
+ * @author Kirill Grouchnikov
+ */
+public final class TypedHashMapKey extends HashMapKey {
+    /**
+     * Reusable lookup keys.
+     */
+    private static final ThreadLocal<TypedHashMapKey> LOOKUP_KEYS =
+            ThreadLocal.withInitial(() -> new TypedHashMapKey(new int[16], new Object[16]));
+
+    /**
+     * All the sides, used to compute side masks without allocating iterators.
+     */
+    private static final Side[] SIDES = Side.values();
+
+    private int[] primitives;
+
+    private int primitiveCount;
+
+    private Object[] references;
+
+    private int referenceCount;
+
+    /**
+     * Bit per field, set for reference fields, so that keys with the same values
+     * added in different order are not equal.
+     */
+    private long layout;
+
+    private int fieldCount;
+
+    private int hash;
+
+    private TypedHashMapKey(int[] primitives, Object[] references) {
+        this.primitives = primitives;
+        this.references = references;
+    }
+
+    /**
+     * Returns the cleared reusable lookup key for the current thread.
+     *
+     * @return The cleared reusable lookup key for the current thread.
+     */
+    public static TypedHashMapKey lookup() {
+        TypedHashMapKey result = LOOKUP_KEYS.get();
+        result.clear();
+        return result;
+    }
+
+    private void clear() {
+        // release references to painters and schemes
+        Arrays.fill(this.references, 0, this.referenceCount, null);
+        this.primitiveCount = 0;
+        this.referenceCount = 0;
+        this.layout = 0;
+        this.fieldCount = 0;
+        this.hash = 1;
+    }
+
+    /**
+     * Adds an <code>int</code> field to this key.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(int value) {
+        if (this.primitiveCount == this.primitives.length) {
+            this.primitives = Arrays.copyOf(this.primitives, 2 * this.primitiveCount);
+        }
+        this.primitives[this.primitiveCount++] = value;
+        this.fieldCount++;
+        this.hash = 31 * this.hash + value;
+        return this;
+    }
+
+    /**
+     * Adds a <code>long</code> field to this key.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(long value) {
+        return this.with((int) (value >>> 32)).with((int) value);
+    }
+
+    /**
+     * Adds a <code>double</code> field to this key.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(double value) {
+        return this.with(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Adds a <code>float</code> field to this key.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(float value) {
+        return this.with(Float.floatToIntBits(value));
+    }
+
+    /**
+     * Adds a <code>boolean</code> field to this key.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(boolean value) {
+        return this.with(value ? 1 : 0);
+    }
+
+    /**
+     * Adds an object field to this key. The field is compared with
+     * {@link Object#equals(Object)}.
+     *
+     * @param value Field value.
+     * @return This key.
+     */
+    public TypedHashMapKey with(Object value) {
+        if (this.referenceCount == this.references.length) {
+            this.references = Arrays.copyOf(this.references, 2 * this.referenceCount);
+        }
+        this.references[this.referenceCount++] = value;
+        if (this.fieldCount < Long.SIZE) {
+            this.layout |= (1L << this.fieldCount);
+        }
+        this.fieldCount++;
+        this.hash = 31 * this.hash + ((value == null) ? 0 : value.hashCode());
+        return this;
+    }
+
+    /**
+     * Adds a set of sides to this key as a bit mask.
+     *
+     * @param sides Sides. Can be <code>null</code>.
+     * @return This key.
+     */
+    public TypedHashMapKey withSides(Set<Side> sides) {
+        if (sides == null) {
+            return this.with(-1);
+        }
+        int mask = 0;
+        for (Side side : SIDES) {
+            if (sides.contains(side)) {
+                mask |= (1 << side.ordinal());
+            }
+        }
+        return this.with(mask);
+    }
+
+    /**
+     * Returns an immutable copy of this key, to be used for storing a new entry in
+     * the cache.
+     *
+     * @return An immutable copy of this key.
+     */
+    public TypedHashMapKey copy() {
+        TypedHashMapKey result = new TypedHashMapKey(
+                Arrays.copyOf(this.primitives, this.primitiveCount),
+                Arrays.copyOf(this.references, this.referenceCount));
+        result.primitiveCount = this.primitiveCount;
+        result.referenceCount = this.referenceCount;
+        result.layout = this.layout;
+        result.fieldCount = this.fieldCount;
+        result.hash = this.hash;
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TypedHashMapKey)) {
+            return false;
+        }
+        TypedHashMapKey key2 = (TypedHashMapKey) obj;
+        if ((this.hash != key2.hash) || (this.layout != key2.layout)
+                || (this.fieldCount != key2.fieldCount)
+                || (this.primitiveCount != key2.primitiveCount)
+                || (this.referenceCount != key2.referenceCount)) {
+            return false;
+        }
+        for (int i = 0; i < this.primitiveCount; i++) {
+            if (this.primitives[i] != key2.primitives[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < this.referenceCount; i++) {
+            if (!Objects.equals(this.references[i], key2.references[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
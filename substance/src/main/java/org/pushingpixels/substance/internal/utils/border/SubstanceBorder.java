@@ -174,18 +174,19 @@ public class SubstanceBorder implements Border, UIResource {
 				finalAlpha, g));
 
 		if (width * height < 100000) {
-			HashMapKey hashKey = SubstanceCoreUtilities.getHashKey(
-					SubstanceCoreUtilities.getBorderPainter(c).getDisplayName(),
-					SubstanceSizeUtils.getComponentFontSize(c), width, height, radius,
-					borderColorScheme.getDisplayName());
+			TypedHashMapKey hashKey = TypedHashMapKey.lookup()
+					.with(SubstanceCoreUtilities.getBorderPainter(c).getDisplayName())
+					.with(SubstanceSizeUtils.getComponentFontSize(c)).with(width).with(height)
+					.with(radius).with(borderColorScheme.getDisplayName());
 			BufferedImage result = smallImageCache.get(hashKey);
 			if (result == null) {
+				HashMapKey storedKey = hashKey.copy();
 				result = SubstanceCoreUtilities.getBlankImage(width, height);
 				Graphics2D g2d = result.createGraphics();
 				SubstanceImageCreator.paintBorder(c, g2d, 0, 0, width, height,
 						radius, borderColorScheme);
 				g2d.dispose();
-				smallImageCache.put(hashKey, result);
+				smallImageCache.put(storedKey, result);
 			}
 			NeonCortex.drawImage(graphics, result, x, y);
 		} else {
@@ -59,6 +59,25 @@ public class ComboBoxBackgroundDelegate {
     private static LazyResettableHashMap<BufferedImage> regularBackgrounds = new LazyResettableHashMap<BufferedImage>(
             "ComboBoxBackgroundDelegate");
 
+    /**
+     * Retrieves the background for the specified combobox.
+     * 
+     * @param combo
+     *            Combobox.
+     * @param model
+     *            Combobox model.
+     * @param fillPainter
+     *            Combobox fill painter.
+     * @param borderPainter
+     *            Combobox border painter.
+     * @param width
+     *            Combobox width.
+     * @param height
+     *            Combobox height.
+     * @return Combobox background. During state transitions this is a pooled
+     *         scratch image that is only valid until the next call on the same
+     *         thread and must not be retained.
+     */
     public static BufferedImage getFullAlphaBackground(JComboBox combo, ButtonModel model,
             SubstanceFillPainter fillPainter, SubstanceBorderPainter borderPainter, int width,
             int height) {
@@ -93,7 +112,7 @@ public class ComboBoxBackgroundDelegate {
             return layerBase;
         }
 
-        BufferedImage result = SubstanceCoreUtilities.getBlankUnscaledImage(layerBase);
+        BufferedImage result = ScratchImagePool.getBlankUnscaledImage(layerBase);
         Graphics2D g2d = result.createGraphics();
         // draw the base layer
         g2d.drawImage(layerBase, 0, 0, layerBase.getWidth(), layerBase.getHeight(), null);
@@ -42,6 +42,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * @author Romain Guy <romain.guy@mac.com>
@@ -49,10 +50,43 @@ import java.util.List;
  */
 
 public class ColorSchemeFilter extends NeonAbstractFilter {
-    private int[] interpolated;
-
     private static final int MAPSTEPS = 512;
 
+    /**
+     * Maximum number of pixels processed in a single band.
+     */
+    private static final int BAND_PIXELS = 16 * 1024;
+
+    /**
+     * Images with at least this many pixels are processed in parallel bands.
+     */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /**
+     * Reusable per-thread pixel buffers, each holding at most one band.
+     */
+    private static final ThreadLocal<int[]> bandBuffers =
+            ThreadLocal.withInitial(() -> new int[BAND_PIXELS]);
+
+    /**
+     * For each of the 256 source brightness values, the HSB brightness of the matching
+     * color scheme color.
+     */
+    private final float[] schemeBrightness = new float[256];
+
+    /**
+     * For each of the 256 source brightness values, the red, green and blue multipliers of
+     * the hue and saturation of the matching color scheme color. A pixel with HSB brightness
+     * <code>v</code> in that hue and saturation has channel values of
+     * <code>(int) (v * multiplier * 255 + 0.5)</code>, which is how
+     * {@link Color#HSBtoRGB(float, float, float)} computes them.
+     */
+    private final float[] redMultipliers = new float[256];
+
+    private final float[] greenMultipliers = new float[256];
+
+    private final float[] blueMultipliers = new float[256];
+
     private final static LazyResettableHashMap<ColorSchemeFilter> filters =
             new LazyResettableHashMap<>("ColorSchemeFilter");
 
@@ -60,12 +94,13 @@ public class ColorSchemeFilter extends NeonAbstractFilter {
 
     public static ColorSchemeFilter getColorSchemeFilter(SubstanceColorScheme scheme,
             float originalBrightnessFactor) {
-        HashMapKey key = SubstanceCoreUtilities.getHashKey(scheme.getDisplayName(),
-                originalBrightnessFactor);
+        TypedHashMapKey key = TypedHashMapKey.lookup().with(scheme.getDisplayName())
+                .with(originalBrightnessFactor);
         ColorSchemeFilter filter = filters.get(key);
         if (filter == null) {
+            HashMapKey storedKey = key.copy();
             filter = new ColorSchemeFilter(scheme, originalBrightnessFactor);
-            filters.put(key, filter);
+            filters.put(storedKey, filter);
         }
         return filter;
     }
@@ -119,14 +154,14 @@ public class ColorSchemeFilter extends NeonAbstractFilter {
         schemeBrightness = new ArrayList<>(stretchedColorMapping.keySet());
         Collections.sort(schemeBrightness);
 
-        this.interpolated = new int[MAPSTEPS];
+        int[] interpolated = new int[MAPSTEPS];
         for (int i = 0; i < MAPSTEPS; i++) {
             int brightness = (int) (256.0 * i / MAPSTEPS);
             if (schemeBrightness.contains(brightness)) {
-                this.interpolated[i] = stretchedColorMapping.get(brightness).getRGB();
+                interpolated[i] = stretchedColorMapping.get(brightness).getRGB();
             } else {
                 if (hasSameBrightness) {
-                    this.interpolated[i] = stretchedColorMapping.get(lowestSchemeBrightness)
+                    interpolated[i] = stretchedColorMapping.get(lowestSchemeBrightness)
                             .getRGB();
                 } else {
                     int currIndex = 0;
@@ -137,7 +172,7 @@ public class ColorSchemeFilter extends NeonAbstractFilter {
                             // interpolate
                             Color currStopColor = stretchedColorMapping.get(currStopValue);
                             Color nextStopColor = stretchedColorMapping.get(nextStopValue);
-                            this.interpolated[i] = SubstanceColorUtilities.getInterpolatedRGB(
+                            interpolated[i] = SubstanceColorUtilities.getInterpolatedRGB(
                                     currStopColor, nextStopColor,
                                     1.0 - (double) (brightness - currStopValue)
                                             / (double) (nextStopValue - currStopValue));
@@ -148,6 +183,61 @@ public class ColorSchemeFilter extends NeonAbstractFilter {
                 }
             }
         }
+
+        float[] hsb = new float[3];
+        for (int brightness = 0; brightness < 256; brightness++) {
+            int pixelColor = interpolated[brightness * MAPSTEPS / 256];
+            Color.RGBtoHSB((pixelColor >>> 16) & 0xFF, (pixelColor >>> 8) & 0xFF,
+                    pixelColor & 0xFF, hsb);
+            this.schemeBrightness[brightness] = hsb[2];
+            this.setMultipliers(brightness, hsb[0], hsb[1]);
+        }
+    }
+
+    /**
+     * Computes the channel multipliers for the specified hue and saturation, following the
+     * same steps as {@link Color#HSBtoRGB(float, float, float)}.
+     */
+    private void setMultipliers(int index, float hue, float saturation) {
+        float red = 1.0f;
+        float green = 1.0f;
+        float blue = 1.0f;
+        if (saturation != 0.0f) {
+            float h = (hue - (float) Math.floor(hue)) * 6.0f;
+            float f = h - (float) Math.floor(h);
+            float p = 1.0f - saturation;
+            float q = 1.0f - saturation * f;
+            float t = 1.0f - (saturation * (1.0f - f));
+            switch ((int) h) {
+                case 0:
+                    green = t;
+                    blue = p;
+                    break;
+                case 1:
+                    red = q;
+                    blue = p;
+                    break;
+                case 2:
+                    red = p;
+                    blue = t;
+                    break;
+                case 3:
+                    red = p;
+                    green = q;
+                    break;
+                case 4:
+                    red = t;
+                    green = p;
+                    break;
+                case 5:
+                    green = p;
+                    blue = q;
+                    break;
+            }
+        }
+        this.redMultipliers[index] = red;
+        this.greenMultipliers[index] = green;
+        this.blueMultipliers[index] = blue;
     }
 
     @Override
@@ -158,46 +248,66 @@ public class ColorSchemeFilter extends NeonAbstractFilter {
 
         int width = src.getWidth();
         int height = src.getHeight();
+        if ((width == 0) || (height == 0)) {
+            return dst;
+        }
 
-        int[] pixels = new int[width * height];
-        getPixels(src, 0, 0, width, height, pixels);
-        mixColor(pixels);
-        setPixels(dst, 0, 0, width, height, pixels);
+        int bandHeight = Math.max(1, BAND_PIXELS / width);
+        int bandCount = (height + bandHeight - 1) / bandHeight;
+        BufferedImage target = dst;
+        if ((bandCount > 1) && (width * height >= PARALLEL_THRESHOLD)) {
+            IntStream.range(0, bandCount).parallel().forEach(
+                    (int band) -> filterBand(src, target, band * bandHeight, bandHeight));
+        } else {
+            for (int band = 0; band < bandCount; band++) {
+                filterBand(src, target, band * bandHeight, bandHeight);
+            }
+        }
 
         return dst;
     }
 
-    private void mixColor(int[] pixels) {
-        for (int i = 0; i < pixels.length; i++) {
-            int argb = pixels[i];
+    private void filterBand(BufferedImage src, BufferedImage dst, int y, int bandHeight) {
+        int width = src.getWidth();
+        int rows = Math.min(bandHeight, src.getHeight() - y);
+        int count = width * rows;
+        int[] pixels = bandBuffers.get();
+        if (pixels.length < count) {
+            // single rows wider than the default band
+            pixels = new int[count];
+            bandBuffers.set(pixels);
+        }
+        getPixels(src, 0, y, width, rows, pixels);
+        mixColor(pixels, count);
+        setPixels(dst, 0, y, width, rows, pixels);
+    }
 
-            int brightness = SubstanceColorUtilities.getColorBrightness(argb);
+    private void mixColor(int[] pixels, int count) {
+        for (int i = 0; i < count; i++) {
+            int argb = pixels[i];
 
             int r = (argb >>> 16) & 0xFF;
             int g = (argb >>> 8) & 0xFF;
             int b = (argb >>> 0) & 0xFF;
 
-            float[] hsb = Color.RGBtoHSB(r, g, b, null);
-            int pixelColor = interpolated[brightness * MAPSTEPS / 256];
-
-            int ri = (pixelColor >>> 16) & 0xFF;
-            int gi = (pixelColor >>> 8) & 0xFF;
-            int bi = (pixelColor >>> 0) & 0xFF;
-            float[] hsbi = Color.RGBtoHSB(ri, gi, bi, null);
+            int brightness = (222 * r + 707 * g + 71 * b) / 1000;
+            float originalBrightness = Math.max(r, Math.max(g, b)) / 255.0f;
+            float schemeBrightness = this.schemeBrightness[brightness];
 
-            hsb[0] = hsbi[0];
-            hsb[1] = hsbi[1];
+            float finalBrightness;
             if (this.originalBrightnessFactor >= 0.0f) {
-                hsb[2] = this.originalBrightnessFactor * hsb[2]
-                        + (1.0f - this.originalBrightnessFactor) * hsbi[2];
+                finalBrightness = this.originalBrightnessFactor * originalBrightness
+                        + (1.0f - this.originalBrightnessFactor) * schemeBrightness;
             } else {
-                hsb[2] = hsb[2] * hsbi[2] * (1.0f + this.originalBrightnessFactor);
+                finalBrightness = originalBrightness * schemeBrightness
+                        * (1.0f + this.originalBrightnessFactor);
             }
 
-            int result = Color.HSBtoRGB(hsb[0], hsb[1], hsb[2]);
+            int ri = (int) (finalBrightness * this.redMultipliers[brightness] * 255.0f + 0.5f);
+            int gi = (int) (finalBrightness * this.greenMultipliers[brightness] * 255.0f + 0.5f);
+            int bi = (int) (finalBrightness * this.blueMultipliers[brightness] * 255.0f + 0.5f);
 
-            pixels[i] = (argb & 0xFF000000) | ((result >> 16) & 0xFF) << 16
-                    | ((result >> 8) & 0xFF) << 8 | (result & 0xFF);
+            pixels[i] = (argb & 0xFF000000) | (ri & 0xFF) << 16 | (gi & 0xFF) << 8 | (bi & 0xFF);
         }
     }
 }
@@ -39,8 +39,12 @@ import org.pushingpixels.trident.Timeline.TimelineState;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Utility class that implements the ghost effects.
@@ -78,87 +82,275 @@ public class GhostPaintingUtils {
     public static float DECAY_FACTOR = 1.0f;
 
     /**
-     * Cache of component ghost images. Used to speed up the rendering of the ghost effects.
+     * Cache of component ghost images, keyed by the timeline of the ghost effect. The images are
+     * painted once per button press at the component size, and scaled as they are drawn.
      */
-    private static LinkedHashMap<String, BufferedImage> componentGhostCache = new LinkedHashMap<String, BufferedImage>() {
+    private static LinkedHashMap<Timeline, BufferedImage> componentGhostCache = new LinkedHashMap<Timeline, BufferedImage>() {
         @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<String, BufferedImage> eldest) {
+        protected boolean removeEldestEntry(Map.Entry<Timeline, BufferedImage> eldest) {
             return this.size() > 50;
         }
     };
 
     /**
-     * Cache of icon ghost images. Used to speed up the rendering of the ghost effects.
+     * Cache of icon ghost images, keyed by the timeline of the ghost effect. The images are
+     * painted once per icon rollover at the icon size, and scaled as they are drawn.
      */
-    private static LinkedHashMap<String, BufferedImage> iconGhostCache = new LinkedHashMap<String, BufferedImage>() {
+    private static LinkedHashMap<Timeline, IconGhost> iconGhostCache = new LinkedHashMap<Timeline, IconGhost>() {
         @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<String, BufferedImage> eldest) {
+        protected boolean removeEldestEntry(Map.Entry<Timeline, IconGhost> eldest) {
             return this.size() > 50;
         }
     };
 
     /**
-     * Returns a scaled ghost image of the specified component.
+     * Screen regions of the running ghost effects, grouped by the window of the ghosted
+     * component.
+     */
+    private static Map<Window, WindowGhostRegions> ghostRegions = new WeakHashMap<Window, WindowGhostRegions>();
+
+    /**
+     * Ghost image of an icon.
+     */
+    private static class IconGhost {
+        private final Icon icon;
+
+        private final BufferedImage image;
+
+        private IconGhost(Icon icon, BufferedImage image) {
+            this.icon = icon;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Screen region of a single running ghost effect.
+     */
+    static class GhostRegion {
+        /**
+         * The ghosted component.
+         */
+        final JComponent comp;
+
+        /**
+         * Timeline of the ghost effect.
+         */
+        final Timeline timeline;
+
+        /**
+         * <code>true</code> for button press ghosting, <code>false</code> for icon rollover
+         * ghosting.
+         */
+        final boolean isPress;
+
+        /**
+         * Screen bounds of the ghosted component.
+         */
+        final Rectangle compBounds;
+
+        /**
+         * Screen region painted by the ghost effect - the component bounds doubled around its
+         * center.
+         */
+        final Rectangle region;
+
+        GhostRegion(JComponent comp, Timeline timeline, boolean isPress, Rectangle compBounds) {
+            this.comp = comp;
+            this.timeline = timeline;
+            this.isPress = isPress;
+            this.compBounds = new Rectangle(compBounds);
+            this.region = new Rectangle(compBounds.x - compBounds.width / 2,
+                    compBounds.y - compBounds.height / 2, compBounds.width * 2,
+                    compBounds.height * 2);
+        }
+    }
+
+    /**
+     * Screen regions of the running ghost effects of a single window.
+     */
+    private static class WindowGhostRegions {
+        private final Map<Timeline, GhostRegion> regions = new LinkedHashMap<Timeline, GhostRegion>();
+
+        /**
+         * Union of all the regions.
+         */
+        private Rectangle bounds;
+
+        private void updateBounds() {
+            this.bounds = null;
+            for (GhostRegion ghostRegion : this.regions.values()) {
+                this.bounds = (this.bounds == null) ? new Rectangle(ghostRegion.region)
+                        : this.bounds.union(ghostRegion.region);
+            }
+        }
+    }
+
+    /**
+     * Updates the screen region of a running ghost effect. Is called on every pulse of the ghost
+     * timeline.
+     * 
+     * @param window
+     *            Window of the ghosted component.
+     * @param ghostRegion
+     *            Screen region of the ghost effect.
+     */
+    static synchronized void updateGhostRegion(Window window, GhostRegion ghostRegion) {
+        removeGhostRegion(ghostRegion.timeline);
+        WindowGhostRegions windowRegions = ghostRegions.get(window);
+        if (windowRegions == null) {
+            windowRegions = new WindowGhostRegions();
+            ghostRegions.put(window, windowRegions);
+        }
+        windowRegions.regions.put(ghostRegion.timeline, ghostRegion);
+        windowRegions.updateBounds();
+    }
+
+    /**
+     * Removes the screen region of a ghost effect that is no longer running.
+     * 
+     * @param timeline
+     *            Timeline of the ghost effect.
+     */
+    static synchronized void removeGhostRegion(Timeline timeline) {
+        for (Iterator<WindowGhostRegions> it = ghostRegions.values().iterator(); it.hasNext();) {
+            WindowGhostRegions windowRegions = it.next();
+            if (windowRegions.regions.remove(timeline) != null) {
+                if (windowRegions.regions.isEmpty()) {
+                    it.remove();
+                } else {
+                    windowRegions.updateBounds();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns indication whether any running ghost effect paints in the specified screen area.
+     * 
+     * @param screenRect
+     *            Screen area.
+     * @return <code>true</code> if any running ghost effect paints in the specified screen area.
+     */
+    private static synchronized boolean hasGhostRegions(Rectangle screenRect) {
+        for (WindowGhostRegions windowRegions : ghostRegions.values()) {
+            if (windowRegions.bounds.intersects(screenRect)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the running ghost effects that paint in the specified screen area.
+     * 
+     * @param screenRect
+     *            Screen area.
+     * @return The running ghost effects that paint in the specified screen area.
+     */
+    private static synchronized List<GhostRegion> getGhostRegions(Rectangle screenRect) {
+        List<GhostRegion> result = new ArrayList<GhostRegion>();
+        for (WindowGhostRegions windowRegions : ghostRegions.values()) {
+            if (!windowRegions.bounds.intersects(screenRect))
+                continue;
+            for (GhostRegion ghostRegion : windowRegions.regions.values()) {
+                if (ghostRegion.region.intersects(screenRect)) {
+                    result.add(ghostRegion);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the cached ghost images of the specified ghost effect. Is called when the effect
+     * starts and ends.
+     * 
+     * @param timeline
+     *            Timeline of the ghost effect.
+     */
+    static synchronized void resetGhostImages(Timeline timeline) {
+        componentGhostCache.remove(timeline);
+        iconGhostCache.remove(timeline);
+    }
+
+    /**
+     * Returns an unscaled ghost image of the specified component.
      * 
      * @param comp
      *            Component.
-     * @param scaleFactor
-     *            Scale factor.
-     * @return A scaled ghost image of the specified component.
+     * @param ghostPressTimeline
+     *            Timeline of the ghost effect.
+     * @return An unscaled ghost image of the specified component.
      */
     protected static synchronized BufferedImage getComponentGhostImage(JComponent comp,
-            Timeline ghostPressTimeline, double scaleFactor) {
-        String key = ghostPressTimeline.getTimelinePosition() + ":" + comp.hashCode() + ":"
-                + scaleFactor;
-
-        BufferedImage result = componentGhostCache.get(key);
+            Timeline ghostPressTimeline) {
+        BufferedImage result = componentGhostCache.get(ghostPressTimeline);
         if (result == null) {
             Rectangle bounds = comp.getBounds();
-
-            double iWidth = bounds.width * scaleFactor;
-            double iHeight = bounds.height * scaleFactor;
-            result = SubstanceCoreUtilities.getBlankImage((int) iWidth, (int) iHeight);
+            result = SubstanceCoreUtilities.getBlankImage(Math.max(1, bounds.width),
+                    Math.max(1, bounds.height));
             Graphics2D iGraphics = result.createGraphics();
-            iGraphics.scale(scaleFactor, scaleFactor);
             comp.paint(iGraphics);
             iGraphics.dispose();
 
-            componentGhostCache.put(key, result);
+            componentGhostCache.put(ghostPressTimeline, result);
         }
         return result;
     }
 
     /**
-     * Returns a scaled ghost image of the specified icon.
+     * Returns an unscaled ghost image of the specified icon.
      * 
      * @param comp
      *            Component.
+     * @param ghostRolloverTimeline
+     *            Timeline of the ghost effect.
      * @param icon
      *            Icon.
-     * @param scaleFactor
-     *            Scale factor.
-     * @return A scaled ghost image of the specified icon.
+     * @return An unscaled ghost image of the specified icon.
      */
     protected static synchronized BufferedImage getIconGhostImage(JComponent comp,
-            Timeline ghostRolloverTimeline, Icon icon, double scaleFactor) {
-        String key = ghostRolloverTimeline.getTimelinePosition() + ":" + comp.hashCode() + ":"
-                + icon.hashCode() + ":" + scaleFactor;
-
-        BufferedImage result = iconGhostCache.get(key);
-        if (result == null) {
-            int oWidth = icon.getIconWidth();
-            int oHeight = icon.getIconHeight();
-            double iWidth = oWidth * scaleFactor;
-            double iHeight = oHeight * scaleFactor;
-            result = SubstanceCoreUtilities.getBlankImage((int) iWidth, (int) iHeight);
-            Graphics2D iGraphics = result.createGraphics();
-            iGraphics.scale(scaleFactor, scaleFactor);
+            Timeline ghostRolloverTimeline, Icon icon) {
+        IconGhost result = iconGhostCache.get(ghostRolloverTimeline);
+        if ((result == null) || (result.icon != icon)) {
+            BufferedImage image = SubstanceCoreUtilities.getBlankImage(
+                    Math.max(1, icon.getIconWidth()), Math.max(1, icon.getIconHeight()));
+            Graphics2D iGraphics = image.createGraphics();
             icon.paintIcon(comp, iGraphics, 0, 0);
             iGraphics.dispose();
 
-            iconGhostCache.put(key, result);
+            result = new IconGhost(icon, image);
+            iconGhostCache.put(ghostRolloverTimeline, result);
+        }
+        return result.image;
+    }
+
+    /**
+     * Draws the ghost image scaled to the specified size.
+     * 
+     * @param graphics
+     *            Graphics context.
+     * @param ghost
+     *            Unscaled ghost image.
+     * @param x
+     *            X coordinate of the scaled image.
+     * @param y
+     *            Y coordinate of the scaled image.
+     * @param width
+     *            Width of the scaled image.
+     * @param height
+     *            Height of the scaled image.
+     */
+    private static void drawGhostImage(Graphics2D graphics, BufferedImage ghost, int x, int y,
+            int width, int height) {
+        Object oldInterpolation = graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(ghost, x, y, width, height, null);
+        if (oldInterpolation != null) {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
         }
-        return result;
     }
 
     /**
@@ -178,140 +370,94 @@ public class GhostPaintingUtils {
         // may be showing and visible, but have no peer (non displayable).
         if (!mainComponent.isDisplayable())
             return;
-        if (SwingUtilities.getWindowAncestor(mainComponent) == null)
+        Window window = SwingUtilities.getWindowAncestor(mainComponent);
+        if (window == null)
+            return;
+        // Quick check whether any ghost effect paints over this window
+        if (!hasGhostRegions(window.getBounds()))
             return;
 
-        Graphics2D graphics = (Graphics2D) g.create();
+        Rectangle mainRect = SwingUtilities.convertRectangle(mainComponent.getParent(),
+                mainComponent.getBounds(), window);
+        mainRect.translate(window.getX(), window.getY());
+        List<GhostRegion> ghosts = getGhostRegions(mainRect);
+        if (ghosts.isEmpty())
+            return;
 
-        Rectangle mainRect = mainComponent.getBounds();
-        mainRect.setLocation(mainComponent.getLocationOnScreen());
-        if (AnimationConfigurationManager.getInstance()
-                .isAnimationAllowed(AnimationFacet.GHOSTING_BUTTON_PRESS, mainComponent)) {
-            Map<JComponent, Timeline> runningGhostPressTimelines = GhostingListener
-                    .getRunningGhostPressTimelines();
-            for (Map.Entry<JComponent, Timeline> entry : runningGhostPressTimelines.entrySet()) {
-                JComponent comp = entry.getKey();
-                Timeline timeline = entry.getValue();
-
-                if (comp == mainComponent)
-                    continue;
-
-                if (!comp.isShowing())
-                    continue;
-                if (!comp.isVisible())
-                    continue;
-                // The following check is for offscreen rendering. The component
-                // may be showing and visible, but have no peer (non
-                // displayable).
-                if (!comp.isDisplayable())
-                    return;
-
-                Rectangle compRect = comp.getBounds();
-                compRect.setLocation(comp.getLocationOnScreen());
-
-                int dx = compRect.x - mainRect.x;
-                int dy = compRect.y - mainRect.y;
-
-                compRect.x -= compRect.width / 2;
-                compRect.y -= compRect.height / 2;
-                compRect.width *= 2;
-                compRect.height *= 2;
-
-                if (mainRect.intersects(compRect)) {
-                    float fade = timeline.getTimelinePosition();
-                    // 0.0 --> 0.3
-                    // 1.0 --> 0.0
-                    double start = MAX_PRESS_GHOSTING_ALPHA - 0.0015 * compRect.getWidth();
-                    float coef = Math.max((float) start, MIN_PRESS_GHOSTING_ALPHA);
-                    float opFactor = coef * (1.0f - DECAY_FACTOR * fade);
-                    double iFactor = 1.0 + fade;
+        Graphics2D graphics = (Graphics2D) g.create();
 
-                    graphics.setComposite(
-                            WidgetUtilities.getAlphaComposite(mainComponent, opFactor));
+        boolean isPressGhostingAllowed = AnimationConfigurationManager.getInstance()
+                .isAnimationAllowed(AnimationFacet.GHOSTING_BUTTON_PRESS, mainComponent);
+        boolean isRolloverGhostingAllowed = AnimationConfigurationManager.getInstance()
+                .isAnimationAllowed(AnimationFacet.GHOSTING_ICON_ROLLOVER, mainComponent);
+        for (GhostRegion ghost : ghosts) {
+            JComponent comp = ghost.comp;
+            Timeline timeline = ghost.timeline;
+            if (comp == mainComponent)
+                continue;
+
+            if (!comp.isShowing())
+                continue;
+            if (!comp.isVisible())
+                continue;
+            // The following check is for offscreen rendering. The component
+            // may be showing and visible, but have no peer (non
+            // displayable).
+            if (!comp.isDisplayable())
+                continue;
+
+            int dx = ghost.compBounds.x - mainRect.x;
+            int dy = ghost.compBounds.y - mainRect.y;
+            float fade = timeline.getTimelinePosition();
+            double iFactor = 1.0 + fade;
+
+            if (ghost.isPress && isPressGhostingAllowed) {
+                // 0.0 --> 0.3
+                // 1.0 --> 0.0
+                double start = MAX_PRESS_GHOSTING_ALPHA - 0.0015 * ghost.region.getWidth();
+                float coef = Math.max((float) start, MIN_PRESS_GHOSTING_ALPHA);
+                float opFactor = coef * (1.0f - DECAY_FACTOR * fade);
 
-                    Rectangle bounds = comp.getBounds();
+                graphics.setComposite(WidgetUtilities.getAlphaComposite(mainComponent, opFactor));
 
-                    BufferedImage ghost = getComponentGhostImage(comp, timeline, iFactor);
-                    dx -= ((ghost.getWidth() - bounds.width) / 2);
-                    dy -= ((ghost.getHeight() - bounds.height) / 2);
-                    graphics.drawImage(ghost, dx, dy, null);
-                }
+                Rectangle bounds = comp.getBounds();
+                int ghostWidth = (int) (bounds.width * iFactor);
+                int ghostHeight = (int) (bounds.height * iFactor);
+                BufferedImage ghostImage = getComponentGhostImage(comp, timeline);
+                dx -= ((ghostWidth - bounds.width) / 2);
+                dy -= ((ghostHeight - bounds.height) / 2);
+                drawGhostImage(graphics, ghostImage, dx, dy, ghostWidth, ghostHeight);
             }
-        }
 
-        if (AnimationConfigurationManager.getInstance()
-                .isAnimationAllowed(AnimationFacet.GHOSTING_ICON_ROLLOVER, mainComponent)) {
-            Map<JComponent, Timeline> runningGhostRolloverTimelines = GhostingListener
-                    .getRunningGhostRolloverTimelines();
-            for (Map.Entry<JComponent, Timeline> entry : runningGhostRolloverTimelines.entrySet()) {
-                JComponent comp = entry.getKey();
-                Timeline timeline = entry.getValue();
-                if (comp == mainComponent)
-                    continue;
-
-                if (!comp.isShowing())
-                    continue;
-                if (!comp.isVisible())
-                    continue;
-
-                Rectangle compRect = comp.getBounds();
-                compRect.setLocation(comp.getLocationOnScreen());
-
-                int dx = compRect.x - mainRect.x;
-                int dy = compRect.y - mainRect.y;
-
-                compRect.x -= compRect.width / 2;
-                compRect.y -= compRect.height / 2;
-                compRect.width *= 2;
-                compRect.height *= 2;
-
-                if (mainRect.intersects(compRect)) {
-                    float fade = timeline.getTimelinePosition();
-                    // Rectangle bounds = comp.getBounds();
-                    Icon icon = null;
-                    Rectangle iconRect = (Rectangle) comp.getClientProperty("icon.bounds");
-                    if (iconRect != null) {
-                        if (comp instanceof AbstractButton) {
-                            icon = WidgetUtilities.getIcon((AbstractButton) comp);
-                        } else {
-                            icon = (Icon) comp.getClientProperty("icon");
-                        }
+            if (!ghost.isPress && isRolloverGhostingAllowed) {
+                Icon icon = null;
+                Rectangle iconRect = (Rectangle) comp.getClientProperty("icon.bounds");
+                if (iconRect != null) {
+                    if (comp instanceof AbstractButton) {
+                        icon = WidgetUtilities.getIcon((AbstractButton) comp);
+                    } else {
+                        icon = (Icon) comp.getClientProperty("icon");
                     }
+                }
 
-                    if ((icon != null) && (iconRect != null)) {
-                        double iFactor = 1.0 + fade;
-                        // double iWidth = icon.getIconWidth() * iFactor;
-                        // double iHeight = icon.getIconHeight() * iFactor;
-                        // BufferedImage iImage = WidgetUtilities
-                        // .getBlankImage((int) iWidth, (int) iHeight);
-                        // Graphics2D iGraphics = (Graphics2D) iImage
-                        // .createGraphics();
-                        // iGraphics.scale(iFactor, iFactor);
-                        // icon.paintIcon(comp, iGraphics, 0, 0);
-                        // iGraphics.dispose();
-
-                        BufferedImage iImage = getIconGhostImage(comp, timeline, icon, iFactor);
-
-                        // System.out.println(iconRect);
-
-                        // BufferedImage bImage = SubstanceCoreUtilities.blur(
-                        // iImage, 2);
-
-                        int iWidth = iImage.getWidth();
-                        int iHeight = iImage.getHeight();
-                        dx -= ((iWidth - icon.getIconWidth()) / 2);
-                        dy -= ((iHeight - icon.getIconHeight()) / 2);
-
-                        double start = MAX_ICON_GHOSTING_ALPHA
-                                - (MAX_ICON_GHOSTING_ALPHA - MIN_ICON_GHOSTING_ALPHA)
-                                        * (iWidth - 16) / 48;
-                        float coef = Math.max((float) start, MIN_ICON_GHOSTING_ALPHA);
-                        float opFactor = coef * (1.0f - DECAY_FACTOR * fade);
-                        graphics.setComposite(
-                                WidgetUtilities.getAlphaComposite(mainComponent, opFactor));
-
-                        graphics.drawImage(iImage, dx + iconRect.x, dy + iconRect.y, null);
-                    }
+                if ((icon != null) && (iconRect != null)) {
+                    BufferedImage iImage = getIconGhostImage(comp, timeline, icon);
+
+                    int iWidth = (int) (icon.getIconWidth() * iFactor);
+                    int iHeight = (int) (icon.getIconHeight() * iFactor);
+                    dx -= ((iWidth - icon.getIconWidth()) / 2);
+                    dy -= ((iHeight - icon.getIconHeight()) / 2);
+
+                    double start = MAX_ICON_GHOSTING_ALPHA
+                            - (MAX_ICON_GHOSTING_ALPHA - MIN_ICON_GHOSTING_ALPHA)
+                                    * (iWidth - 16) / 48;
+                    float coef = Math.max((float) start, MIN_ICON_GHOSTING_ALPHA);
+                    float opFactor = coef * (1.0f - DECAY_FACTOR * fade);
+                    graphics.setComposite(
+                            WidgetUtilities.getAlphaComposite(mainComponent, opFactor));
+
+                    drawGhostImage(graphics, iImage, dx + iconRect.x, dy + iconRect.y, iWidth,
+                            iHeight);
                 }
             }
         }
@@ -382,10 +528,10 @@ public class GhostPaintingUtils {
             if ((icon != null) && (iconRectangle != null)) {
                 double iFactor = 1.0 + fade;
                 BufferedImage iImage = getIconGhostImage((JComponent) b, ghostRolloverTimeline,
-                        icon, iFactor);
+                        icon);
 
-                int iWidth = iImage.getWidth();
-                int iHeight = iImage.getHeight();
+                int iWidth = (int) (icon.getIconWidth() * iFactor);
+                int iHeight = (int) (icon.getIconHeight() * iFactor);
                 int dx = ((iWidth - icon.getIconWidth()) / 2);
                 int dy = ((iHeight - icon.getIconHeight()) / 2);
 
@@ -395,7 +541,8 @@ public class GhostPaintingUtils {
                 float opFactor = coef * (1.0f - DECAY_FACTOR * fade);
                 graphics.setComposite(WidgetUtilities.getAlphaComposite(b, opFactor));
 
-                graphics.drawImage(iImage, iconRectangle.x - dx, iconRectangle.y - dy, null);
+                drawGhostImage(graphics, iImage, iconRectangle.x - dx, iconRectangle.y - dy,
+                        iWidth, iHeight);
             }
         }
     }
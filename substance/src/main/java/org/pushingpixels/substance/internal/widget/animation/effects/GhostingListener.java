@@ -112,16 +112,63 @@ public class GhostingListener {
                 .configureTimeline(this.ghostComponentPressedTimeline);
         this.ghostComponentPressedTimeline.addCallback(new SwingRepaintCallback(comp));
 
-        TimelineCallback ghostCallback = new UIThreadTimelineCallbackAdapter() {
+        this.ghostIconRolloverTimeline
+                .addCallback(this.getGhostCallback(this.ghostIconRolloverTimeline, false));
+        this.ghostComponentPressedTimeline
+                .addCallback(this.getGhostCallback(this.ghostComponentPressedTimeline, true));
+
+        this.ghostIconRolloverTimeline.addCallback(new TimelineCallbackAdapter() {
+            @Override
+            public void onTimelineStateChanged(TimelineState oldState, TimelineState newState,
+                    float durationFraction, float timelinePosition) {
+                if ((oldState == TimelineState.DONE) && (newState == TimelineState.IDLE)) {
+                    synchronized (GhostingListener.class) {
+                        runningGhostRolloverTimelines.values().remove(ghostIconRolloverTimeline);
+                    }
+                    GhostPaintingUtils.removeGhostRegion(ghostIconRolloverTimeline);
+                    GhostPaintingUtils.resetGhostImages(ghostIconRolloverTimeline);
+                }
+            }
+        });
+
+        this.ghostComponentPressedTimeline.addCallback(new TimelineCallbackAdapter() {
+            @Override
+            public void onTimelineStateChanged(TimelineState oldState, TimelineState newState,
+                    float durationFraction, float timelinePosition) {
+                if ((oldState == TimelineState.DONE) && (newState == TimelineState.IDLE)) {
+                    synchronized (GhostingListener.class) {
+                        runningGhostPressTimelines.values().remove(ghostComponentPressedTimeline);
+                    }
+                    GhostPaintingUtils.removeGhostRegion(ghostComponentPressedTimeline);
+                    GhostPaintingUtils.resetGhostImages(ghostComponentPressedTimeline);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the callback that tracks the screen region of the specified ghost timeline and
+     * repaints the windows under it.
+     * 
+     * @param timeline
+     *            Ghost timeline.
+     * @param isPress
+     *            <code>true</code> for button press ghosting, <code>false</code> for icon
+     *            rollover ghosting.
+     * @return Callback for the ghost timeline.
+     */
+    private TimelineCallback getGhostCallback(Timeline timeline, boolean isPress) {
+        return new UIThreadTimelineCallbackAdapter() {
             private boolean wasShowing = true;
 
-            protected void repaintTopLevelWindows(float timelinePosition) {
+            protected void repaintTopLevelWindows(boolean isRunning) {
                 if (comp == null)
                     return;
 
                 boolean isShowing = comp.isShowing();
+                Window compWindow = null;
                 if (isShowing) {
-                    Window compWindow = SwingUtilities.getWindowAncestor(comp);
+                    compWindow = SwingUtilities.getWindowAncestor(comp);
                     if (!compWindow.isDisplayable() || !compWindow.isShowing()
                             || !compWindow.isVisible()) {
                         isShowing = false;
@@ -129,6 +176,7 @@ public class GhostingListener {
                 }
 
                 if (!isShowing) {
+                    GhostPaintingUtils.removeGhostRegion(timeline);
                     if (wasShowing) {
                         // need to repaint all other windows
                         // once - otherwise we will see
@@ -147,6 +195,12 @@ public class GhostingListener {
                 Component root = SwingUtilities.getRoot(comp);
                 Rectangle compRect = comp.getBounds();
                 compRect.setLocation(comp.getLocationOnScreen());
+                if (isRunning) {
+                    GhostPaintingUtils.updateGhostRegion(compWindow,
+                            new GhostPaintingUtils.GhostRegion(comp, timeline, isPress, compRect));
+                } else {
+                    GhostPaintingUtils.removeGhostRegion(timeline);
+                }
                 compRect.x -= compRect.width / 2;
                 compRect.y -= compRect.height / 2;
                 compRect.width *= 2;
@@ -176,42 +230,15 @@ public class GhostingListener {
             public void onTimelineStateChanged(TimelineState oldState, TimelineState newState,
                     float durationFraction, float timelinePosition) {
                 if ((oldState == TimelineState.DONE) && (newState == TimelineState.IDLE)) {
-                    this.repaintTopLevelWindows(1.0f);
+                    this.repaintTopLevelWindows(false);
                 }
             }
 
             @Override
             public void onTimelinePulse(float durationFraction, float timelinePosition) {
-                this.repaintTopLevelWindows(timelinePosition);
+                this.repaintTopLevelWindows(true);
             }
         };
-
-        this.ghostIconRolloverTimeline.addCallback(ghostCallback);
-        this.ghostComponentPressedTimeline.addCallback(ghostCallback);
-
-        this.ghostIconRolloverTimeline.addCallback(new TimelineCallbackAdapter() {
-            @Override
-            public void onTimelineStateChanged(TimelineState oldState, TimelineState newState,
-                    float durationFraction, float timelinePosition) {
-                if ((oldState == TimelineState.DONE) && (newState == TimelineState.IDLE)) {
-                    synchronized (GhostingListener.class) {
-                        runningGhostRolloverTimelines.values().remove(ghostIconRolloverTimeline);
-                    }
-                }
-            }
-        });
-
-        this.ghostComponentPressedTimeline.addCallback(new TimelineCallbackAdapter() {
-            @Override
-            public void onTimelineStateChanged(TimelineState oldState, TimelineState newState,
-                    float durationFraction, float timelinePosition) {
-                if ((oldState == TimelineState.DONE) && (newState == TimelineState.IDLE)) {
-                    synchronized (GhostingListener.class) {
-                        runningGhostPressTimelines.values().remove(ghostComponentPressedTimeline);
-                    }
-                }
-            }
-        });
     }
 
     /**
@@ -233,12 +260,14 @@ public class GhostingListener {
                         synchronized (GhostingListener.class) {
                             runningGhostRolloverTimelines.put(comp, ghostIconRolloverTimeline);
                         }
+                        GhostPaintingUtils.resetGhostImages(ghostIconRolloverTimeline);
                         ghostIconRolloverTimeline.play();
                     }
                     if (animationFacet == AnimationFacet.GHOSTING_BUTTON_PRESS) {
                         synchronized (GhostingListener.class) {
                             runningGhostPressTimelines.put(comp, ghostComponentPressedTimeline);
                         }
+                        GhostPaintingUtils.resetGhostImages(ghostComponentPressedTimeline);
                         ghostComponentPressedTimeline.play();
                     }
                 }
@@ -30,35 +30,246 @@
 package org.pushingpixels.ignite;
 
 import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.*;
-import org.pushingpixels.photon.transcoder.*;
-import org.pushingpixels.photon.transcoder.java.JavaLanguageRenderer;
-import org.pushingpixels.photon.transcoder.kotlin.KotlinLanguageRenderer;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.workers.IsolationMode;
+import org.gradle.workers.WorkerExecutor;
+import org.pushingpixels.photon.transcoder.SvgBatchTranscoder;
 
+import javax.inject.Inject;
 import java.io.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.*;
 
 public class IgniteTask extends DefaultTask {
+    private final WorkerExecutor workerExecutor;
+
+    private String outputPackageName;
+
+    private String outputLanguage;
+
+    private String outputClassNamePrefix = "";
+
+    private boolean useResizableTemplate;
+
+    private boolean shapeCaching;
+
+    private boolean pathDataAsArrays;
+
+    private File inputDirectory;
+
+    private File outputDirectory;
+
+    @Inject
+    public IgniteTask(WorkerExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor;
+    }
+
     @Input
-    public String outputPackageName;
+    public String getOutputPackageName() {
+        return outputPackageName;
+    }
+
+    public void setOutputPackageName(String outputPackageName) {
+        this.outputPackageName = outputPackageName;
+    }
 
     @Input
-    public String outputLanguage;
+    public String getOutputLanguage() {
+        return outputLanguage;
+    }
+
+    public void setOutputLanguage(String outputLanguage) {
+        this.outputLanguage = outputLanguage;
+    }
 
     @Input
-    public String outputClassNamePrefix = "";
+    public String getOutputClassNamePrefix() {
+        return outputClassNamePrefix;
+    }
+
+    public void setOutputClassNamePrefix(String outputClassNamePrefix) {
+        this.outputClassNamePrefix = outputClassNamePrefix;
+    }
 
     @Input
-    public boolean useResizableTemplate;
+    public boolean isUseResizableTemplate() {
+        return useResizableTemplate;
+    }
 
-    @InputDirectory
-    public File inputDirectory;
+    public void setUseResizableTemplate(boolean useResizableTemplate) {
+        this.useResizableTemplate = useResizableTemplate;
+    }
+
+    @Input
+    public boolean isShapeCaching() {
+        return shapeCaching;
+    }
+
+    public void setShapeCaching(boolean shapeCaching) {
+        this.shapeCaching = shapeCaching;
+    }
+
+    @Input
+    public boolean isPathDataAsArrays() {
+        return pathDataAsArrays;
+    }
+
+    public void setPathDataAsArrays(boolean pathDataAsArrays) {
+        this.pathDataAsArrays = pathDataAsArrays;
+    }
 
     @InputDirectory
-    public File outputDirectory;
+    public File getInputDirectory() {
+        return inputDirectory;
+    }
+
+    public void setInputDirectory(File inputDirectory) {
+        this.inputDirectory = inputDirectory;
+    }
 
+    @OutputDirectory
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    private String getTemplateFileName() {
+        String templateFileName = "/org/pushingpixels/photon/transcoder/" + outputLanguage + "/"
+                + "SvgTranscoderTemplate";
+        templateFileName += (useResizableTemplate ? "Resizable" : "Plain");
+        templateFileName += ".templ";
+        return templateFileName;
+    }
+
+    private SvgBatchTranscoder createBatchTranscoder() {
+        SvgBatchTranscoder batchTranscoder = new SvgBatchTranscoder(outputPackageName,
+                outputLanguage, getTemplateFileName());
+        batchTranscoder.setOutputClassNamePrefix(outputClassNamePrefix);
+        batchTranscoder.setShapeCaching(shapeCaching, pathDataAsArrays);
+        return batchTranscoder;
+    }
+
+    private boolean isSvgInput(File file) {
+        return file.getName().endsWith(".svg")
+                && inputDirectory.getAbsoluteFile().equals(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Deletes the transcoded classes in the output directory that do not have a matching SVG
+     * file in the input directory. Only the files created by the transcoder are deleted.
+     *
+     * @param batchTranscoder Transcoder that maps SVG files to their output files.
+     */
+    private void deleteStaleOutputs(SvgBatchTranscoder batchTranscoder) {
+        Set<File> expectedOutputs = new HashSet<>();
+        File[] inputFiles = inputDirectory.listFiles();
+        if (inputFiles != null) {
+            for (File file : inputFiles) {
+                if (isSvgInput(file)) {
+                    expectedOutputs.add(batchTranscoder.getOutputFile(file, outputDirectory)
+                            .getAbsoluteFile());
+                }
+            }
+        }
+
+        String extension = "java".equals(outputLanguage) ? ".java" : ".kt";
+        File[] outputFiles = outputDirectory.listFiles();
+        if (outputFiles == null) {
+            return;
+        }
+        for (File file : outputFiles) {
+            String name = file.getName();
+            if (name.startsWith(outputClassNamePrefix) && name.endsWith(extension)
+                    && !expectedOutputs.contains(file.getAbsoluteFile())
+                    && isTranscoderOutput(file)) {
+                getLogger().trace("Removing stale " + name);
+                file.delete();
+            }
+        }
+    }
+
+    private static boolean isTranscoderOutput(File file) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            // the templates mention the transcoder in the class documentation
+            for (int i = 0; i < 30; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+                if (line.contains("Photon SVG transcoder")) {
+                    return true;
+                }
+            }
+        } catch (IOException ioe) {
+            // treat unreadable files as not generated
+        }
+        return false;
+    }
+
+    /**
+     * Transcodes the SVG files that have changed since the last execution of this task. Each
+     * file is transcoded as a separate unit of work on the Gradle workers. The classes of the
+     * removed SVG files are deleted. On non-incremental runs, these are found by scanning the
+     * output directory for transcoded classes that no longer have a matching SVG file.
+     *
+     * @param inputs Changes of the task inputs.
+     */
     @TaskAction
+    public void transcodeIncrementally(IncrementalTaskInputs inputs) {
+        Logger logger = getLogger();
+
+        if (!this.inputDirectory.exists()) {
+            return;
+        }
+
+        this.outputDirectory.mkdirs();
+
+        SvgBatchTranscoder batchTranscoder = createBatchTranscoder();
+        if (!inputs.isIncremental()) {
+            deleteStaleOutputs(batchTranscoder);
+        }
+        List<File> svgFiles = new ArrayList<>();
+        inputs.outOfDate(details -> {
+            if (isSvgInput(details.getFile())) {
+                svgFiles.add(details.getFile());
+            }
+        });
+        inputs.removed(details -> {
+            if (isSvgInput(details.getFile())) {
+                File classFile = batchTranscoder.getOutputFile(details.getFile(),
+                        outputDirectory);
+                logger.trace("Removing " + classFile.getName());
+                classFile.delete();
+            }
+        });
+
+        logger.trace("Processing " + svgFiles.size() + " files in "
+                + inputDirectory.getAbsolutePath() + " to " + outputPackageName + " in "
+                + outputLanguage);
+
+        for (File file : svgFiles) {
+            workerExecutor.submit(IgniteWorkAction.class, config -> {
+                config.setIsolationMode(IsolationMode.NONE);
+                config.setDisplayName("Transcoding " + file.getName());
+                config.params(file, outputDirectory, outputPackageName, outputLanguage,
+                        getTemplateFileName(), outputClassNamePrefix, shapeCaching,
+                        pathDataAsArrays);
+            });
+        }
+        workerExecutor.await();
+    }
+
+    /**
+     * Transcodes the SVG files in the input directory in parallel. This can be called directly
+     * from another task. The content hashes of the transcoded files are kept in the temporary
+     * directory of this task, and files that have not changed since the previous call are
+     * skipped.
+     */
     public void transcode() {
         Logger logger = getLogger();
 
@@ -70,60 +281,26 @@ public class IgniteTask extends DefaultTask {
 
         this.outputDirectory.mkdirs();
 
-        boolean renderAsKotlinCode = ("kotlin".compareTo(outputLanguage) == 0);
-
-        LanguageRenderer languageRenderer = renderAsKotlinCode
-                ? new KotlinLanguageRenderer()
-                : new JavaLanguageRenderer();
-        String outputFileNameExtension = ("java".compareTo(outputLanguage) == 0) ? ".java" : ".kt";
-
         logger.trace(
                 "Processing " + inputDirectory.getAbsolutePath() + " to " + outputPackageName +
                         " in " + outputLanguage);
 
-        String templateFileName = "/org/pushingpixels/photon/transcoder/" + outputLanguage + "/"
-                + "SvgTranscoderTemplate";
-        templateFileName += (useResizableTemplate ? "Resizable" : "Plain");
-        templateFileName += ".templ";
-
-        for (File file : inputDirectory.listFiles(
-                (File dir, String name) -> name.endsWith(".svg"))) {
-            String svgClassName = outputClassNamePrefix
-                    + file.getName().substring(0, file.getName().length() - 4);
-            svgClassName = svgClassName.replace('-', '_');
-            svgClassName = svgClassName.replace(' ', '_');
-            String classFilename =
-                    outputDirectory + File.separator + svgClassName + outputFileNameExtension;
-
-            logger.trace("Processing " + file.getName());
-
-            try (PrintWriter pw = new PrintWriter(classFilename);
-                 InputStream templateStream = SvgBatchConverter.class
-                         .getResourceAsStream(templateFileName)) {
-                if (templateStream == null) {
-                    logger.error("Couldn't load " + templateFileName);
-                    return;
-                }
+        SvgBatchTranscoder batchTranscoder = createBatchTranscoder();
+        batchTranscoder.setHashFile(new File(getTemporaryDir(), "hashes.properties"));
+        SvgBatchTranscoder.Result result;
+        try {
+            result = batchTranscoder.transcodeFolder(inputDirectory, outputDirectory);
+        } catch (IOException ioe) {
+            throw new GradleException("Transcoding failed", ioe);
+        }
 
-                final CountDownLatch latch = new CountDownLatch(1);
-
-                SvgTranscoder transcoder = new SvgTranscoder(file.toURI().toURL().toString(),
-                        svgClassName, languageRenderer);
-                transcoder.setPackageName(outputPackageName);
-                transcoder.setListener(new TranscoderListener() {
-                    public Writer getWriter() {
-                        return pw;
-                    }
-
-                    public void finished() {
-                        latch.countDown();
-                    }
-                });
-                transcoder.transcode(templateStream);
-                latch.await();
-            } catch (Exception e) {
-                logger.error("Transcoding failed", e);
-            }
+        for (File file : result.getTranscoded()) {
+            logger.trace("Processed " + file.getName());
+        }
+        logger.trace("Skipped " + result.getSkipped().size() + " unchanged files");
+        for (Map.Entry<File, Throwable> failure : result.getFailed().entrySet()) {
+            logger.error("Transcoding failed for " + failure.getKey().getName(),
+                    failure.getValue());
         }
     }
-}
\ No newline at end of file
+}
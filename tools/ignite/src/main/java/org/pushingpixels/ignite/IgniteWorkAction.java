@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018 Radiance Ignite Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Radiance Ignite Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.ignite;
+
+import org.gradle.api.GradleException;
+import org.pushingpixels.photon.transcoder.SvgBatchTranscoder;
+
+import javax.inject.Inject;
+import java.io.File;
+
+/**
+ * Transcodes a single SVG file as a unit of work of {@link IgniteTask}. Every unit of work
+ * uses its own transcoder, so that the Batik state is confined to the worker thread.
+ */
+public class IgniteWorkAction implements Runnable {
+    private final File svgFile;
+
+    private final File outputDirectory;
+
+    private final SvgBatchTranscoder batchTranscoder;
+
+    @Inject
+    public IgniteWorkAction(File svgFile, File outputDirectory, String outputPackageName,
+            String outputLanguage, String templateFileName, String outputClassNamePrefix,
+            Boolean shapeCaching, Boolean pathDataAsArrays) {
+        this.svgFile = svgFile;
+        this.outputDirectory = outputDirectory;
+        this.batchTranscoder = new SvgBatchTranscoder(outputPackageName, outputLanguage,
+                templateFileName);
+        this.batchTranscoder.setOutputClassNamePrefix(outputClassNamePrefix);
+        this.batchTranscoder.setShapeCaching(shapeCaching, pathDataAsArrays);
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.batchTranscoder.transcode(this.svgFile, this.outputDirectory);
+        } catch (Exception e) {
+            // fail the task, so that the file is transcoded again on the next run
+            throw new GradleException("Transcoding failed for " + this.svgFile.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2005-2018 Trident Kirill Grouchnikov. All Rights Reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  o Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Trident Kirill Grouchnikov nor the names of
+ *    its contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.pushingpixels.trident;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves and caches the accessor methods of interpolated properties. The accessors are
+ * resolved once per class and property name and are invoked through method handles. Setters
+ * that take a primitive <code>float</code> or <code>int</code> value have additional method
+ * handles that avoid boxing the value.
+ * 
+ * @author Kirill Grouchnikov
+ */
+final class PropertyAccessors {
+    /**
+     * Accessor method of a single property.
+     */
+    static final class Accessor {
+        private final Method method;
+
+        /**
+         * For setters, the type of values that can be passed to {@link #handle} - the
+         * parameter type, boxed if primitive.
+         */
+        private final Class<?> valueType;
+
+        /**
+         * Setters - <code>(Object, Object)void</code>, getters - <code>(Object)Object</code>.
+         * <code>null</code> if the method cannot be accessed with a method handle.
+         */
+        private final MethodHandle handle;
+
+        /**
+         * <code>(Object, float)void</code> for setters of <code>float</code> properties,
+         * <code>null</code> otherwise.
+         */
+        final MethodHandle floatHandle;
+
+        /**
+         * <code>(Object, int)void</code> for setters of <code>int</code> properties,
+         * <code>null</code> otherwise.
+         */
+        final MethodHandle intHandle;
+
+        private Accessor(Method method, MethodHandle handle, MethodHandle floatHandle,
+                MethodHandle intHandle) {
+            this.method = method;
+            this.valueType = ((method == null) || (method.getParameterTypes().length == 0))
+                    ? null : box(method.getParameterTypes()[0]);
+            this.handle = handle;
+            this.floatHandle = floatHandle;
+            this.intHandle = intHandle;
+        }
+
+        void set(Object obj, Object value) throws Throwable {
+            if ((this.handle != null) && ((value == null)
+                    ? (this.valueType == this.method.getParameterTypes()[0])
+                    : this.valueType.isInstance(value))) {
+                this.handle.invokeExact(obj, value);
+                return;
+            }
+            // let reflection apply widening conversions and report mismatches
+            this.method.invoke(obj, value);
+        }
+
+        Object get(Object obj) throws Throwable {
+            if (this.handle != null) {
+                return (Object) this.handle.invokeExact(obj);
+            }
+            return this.method.invoke(obj);
+        }
+    }
+
+    private static final Accessor MISSING = new Accessor(null, null, null, null);
+
+    private static final ClassValue<Map<String, Accessor>> SETTERS =
+            new ClassValue<Map<String, Accessor>>() {
+                @Override
+                protected Map<String, Accessor> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private static final ClassValue<Map<String, Accessor>> GETTERS =
+            new ClassValue<Map<String, Accessor>>() {
+                @Override
+                protected Map<String, Accessor> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private PropertyAccessors() {
+    }
+
+    /**
+     * Returns the setter of the specified property.
+     * 
+     * @param clazz
+     *            Class of the object.
+     * @param propertyName
+     *            Property name.
+     * @return The setter of the specified property, or <code>null</code> if the class has no
+     *         such setter.
+     */
+    static Accessor getSetter(Class<?> clazz, String propertyName) {
+        Accessor result = SETTERS.get(clazz).computeIfAbsent(propertyName,
+                (String name) -> createSetter(clazz, name));
+        return (result == MISSING) ? null : result;
+    }
+
+    /**
+     * Returns the getter of the specified property.
+     * 
+     * @param clazz
+     *            Class of the object.
+     * @param propertyName
+     *            Property name.
+     * @return The getter of the specified property, or <code>null</code> if the class has no
+     *         such getter.
+     */
+    static Accessor getGetter(Class<?> clazz, String propertyName) {
+        Accessor result = GETTERS.get(clazz).computeIfAbsent(propertyName,
+                (String name) -> createGetter(clazz, name));
+        return (result == MISSING) ? null : result;
+    }
+
+    private static Accessor createSetter(Class<?> clazz, String propertyName) {
+        Method setter = findSetter(clazz, propertyName);
+        if (setter == null) {
+            return MISSING;
+        }
+        MethodHandle handle = unreflect(setter);
+        if (handle == null) {
+            return new Accessor(setter, null, null, null);
+        }
+        Class<?> parameterType = setter.getParameterTypes()[0];
+        return new Accessor(setter,
+                handle.asType(MethodType.methodType(void.class, Object.class, Object.class)),
+                (parameterType == float.class)
+                        ? handle.asType(MethodType.methodType(void.class, Object.class,
+                                float.class))
+                        : null,
+                (parameterType == int.class)
+                        ? handle.asType(MethodType.methodType(void.class, Object.class,
+                                int.class))
+                        : null);
+    }
+
+    private static Accessor createGetter(Class<?> clazz, String propertyName) {
+        Method getter = findGetter(clazz, propertyName);
+        if (getter == null) {
+            return MISSING;
+        }
+        MethodHandle handle = unreflect(getter);
+        return new Accessor(getter, (handle == null) ? null
+                : handle.asType(MethodType.methodType(Object.class, Object.class)), null, null);
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException iae) {
+            // for example, a public method of a non-public class
+            return null;
+        }
+    }
+
+    private static Method findSetter(Class<?> clazz, String propertyName) {
+        String setterMethodName = "set" + Character.toUpperCase(propertyName.charAt(0))
+                + propertyName.substring(1);
+        Class<?> oClazz = clazz;
+        while (oClazz != null) {
+            for (Method m : oClazz.getMethods()) {
+                if (setterMethodName.equals(m.getName()) && (m.getParameterTypes().length == 1)
+                        && (m.getReturnType() == Void.TYPE)
+                        && (!Modifier.isStatic(m.getModifiers()))) {
+                    return m;
+                }
+            }
+            oClazz = oClazz.getSuperclass();
+        }
+        return null;
+    }
+
+    private static Method findGetter(Class<?> clazz, String propertyName) {
+        String getterMethodName = "get" + Character.toUpperCase(propertyName.charAt(0))
+                + propertyName.substring(1);
+        Class<?> oClazz = clazz;
+        while (oClazz != null) {
+            for (Method m : oClazz.getMethods()) {
+                if (getterMethodName.equals(m.getName()) && (m.getParameterTypes().length == 0)
+                        && (!Modifier.isStatic(m.getModifiers()))) {
+                    return m;
+                }
+            }
+            oClazz = oClazz.getSuperclass();
+        }
+        return null;
+    }
+}
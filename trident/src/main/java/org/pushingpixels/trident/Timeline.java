@@ -100,6 +100,12 @@ public class Timeline implements TimelineScenario.TimelineScenarioActor {
 
     Stack<TimelineState> stateStack;
 
+    /**
+     * Guards the state of this timeline. {@link TimelineEngine} holds this lock while it
+     * applies a control operation to this timeline or advances it on a pulse.
+     */
+    final Object engineLock = new Object();
+
     TimelineEase ease;
 
     private int doneCount;
@@ -188,14 +194,10 @@ public class Timeline implements TimelineScenario.TimelineScenarioActor {
                 final float durationFraction, final float timelinePosition) {
             // special handling for chained callbacks not running on UI
             // thread
-            boolean shouldRunOnUIThread = false;
-            Class<?> clazz = callback.getClass();
-            while ((clazz != null) && !shouldRunOnUIThread) {
-                shouldRunOnUIThread = clazz.isAnnotationPresent(RunOnUIThread.class);
-                clazz = clazz.getSuperclass();
-            }
-            if (shouldRunOnUIThread && (Timeline.this.uiToolkitHandler != null)) {
-                Timeline.this.uiToolkitHandler.runOnUIThread(mainObject,
+            if (TimelineEngine.shouldRunOnUIThread(callback)
+                    && (Timeline.this.uiToolkitHandler != null)) {
+                TimelineEngine.getInstance().runOnUIThread(Timeline.this.uiToolkitHandler,
+                        mainObject,
                         () -> callback.onTimelineStateChanged(oldState, newState, durationFraction,
                                 timelinePosition));
             } else {
@@ -231,14 +233,10 @@ public class Timeline implements TimelineScenario.TimelineScenarioActor {
                 final float timelinePosition) {
             // special handling for chained callbacks not running on UI
             // thread
-            boolean shouldRunOnUIThread = false;
-            Class<?> clazz = callback.getClass();
-            while ((clazz != null) && !shouldRunOnUIThread) {
-                shouldRunOnUIThread = clazz.isAnnotationPresent(RunOnUIThread.class);
-                clazz = clazz.getSuperclass();
-            }
-            if (shouldRunOnUIThread && (Timeline.this.uiToolkitHandler != null)) {
-                Timeline.this.uiToolkitHandler.runOnUIThread(mainObject, () -> {
+            if (TimelineEngine.shouldRunOnUIThread(callback)
+                    && (Timeline.this.uiToolkitHandler != null)) {
+                TimelineEngine.getInstance().runOnUIThread(Timeline.this.uiToolkitHandler,
+                        mainObject, () -> {
                     if (Timeline.this.getState() == TimelineState.CANCELLED)
                         return;
                     // System.err.println("Timeline @"
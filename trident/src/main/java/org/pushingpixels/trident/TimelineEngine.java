@@ -33,11 +33,17 @@ import org.pushingpixels.trident.Timeline.TimelineState;
 import org.pushingpixels.trident.TimelineScenario.TimelineScenarioState;
 import org.pushingpixels.trident.callback.RunOnUIThread;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The Trident timeline engine. This is the main entry point to play {@link Timeline}s and
@@ -58,9 +64,12 @@ class TimelineEngine {
     private static TimelineEngine instance;
 
     /**
-     * All currently running timelines.
+     * All currently running timelines. Timeline control operations and the pulse thread
+     * synchronize on {@link Timeline#engineLock} of the specific timeline, and not on a
+     * global lock, so that a timeline control call never waits for the pulse thread to
+     * finish updating all the other timelines.
      */
-    private Set<Timeline> runningTimelines;
+    private final Set<Timeline> runningTimelines;
 
     enum TimelineOperationKind {
         PLAY, CANCEL, RESUME, SUSPEND, ABORT, END
@@ -77,9 +86,13 @@ class TimelineEngine {
         }
     }
 
-    private Set<TimelineScenario> runningScenarios;
+    /**
+     * All currently running scenarios. Changes to the scenarios are guarded by
+     * {@link #LOCK}.
+     */
+    private final Set<TimelineScenario> runningScenarios;
 
-    long lastIterationTimeStamp;
+    volatile long lastIterationTimeStamp;
 
     /**
      * Identifies a main object and an optional secondary ID.
@@ -151,23 +164,85 @@ class TimelineEngine {
     /**
      * The timeline thread.
      */
-    TridentAnimationThread animatorThread;
+    volatile TridentAnimationThread animatorThread;
 
     private BlockingQueue<Runnable> callbackQueue;
 
     private TimelineCallbackThread callbackThread;
 
+    /**
+     * Caches whether callbacks of a specific class should run on the UI thread. The
+     * {@link RunOnUIThread} annotation is not inherited, so the lookup walks the superclass
+     * chain.
+     */
+    private static final ClassValue<Boolean> RUN_ON_UI_THREAD = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                if (clazz.isAnnotationPresent(RunOnUIThread.class)) {
+                    return Boolean.TRUE;
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
+    /**
+     * If <code>true</code>, UI thread callbacks scheduled on the callback thread during a
+     * single pulse are dispatched to the UI thread as a single runnable per UI toolkit handler.
+     */
+    volatile boolean uiCallbackBatching = true;
+
+    /**
+     * Indicates that {@link #updateTimelines()} is scheduling callbacks for the current
+     * pulse. While this is <code>true</code>, the callback thread does not dispatch pending
+     * UI callbacks when it runs out of work, and waits for the end of the pulse instead.
+     */
+    private volatile boolean pulseInProgress;
+
+    /**
+     * UI thread callbacks waiting for dispatch. Only accessed on the callback thread.
+     */
+    private final Map<UIToolkitHandler, UICallbackBatch> uiCallbackBatches =
+            new IdentityHashMap<>();
+
+    private final LongAccumulator maxCallbackQueueDepth = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder callbackLatencyNanos = new LongAdder();
+
+    private final LongAdder callbackLatencyCount = new LongAdder();
+
+    private final LongAccumulator maxCallbackLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder uiCallbackBatchCount = new LongAdder();
+
+    private final LongAdder batchedUICallbackCount = new LongAdder();
+
+    /**
+     * Running average of the time between the end of a pulse and the completion of the UI
+     * thread callbacks scheduled by that pulse.
+     */
+    private volatile double recentFrameTimeNanos;
+
+    private static class UICallbackBatch {
+        private Object mainObject;
+
+        private final List<Runnable> runnables = new ArrayList<>();
+    }
+
     class TridentAnimationThread extends Thread {
+        private final TridentConfig.PulseSource pulseSource;
+
         public TridentAnimationThread() {
             super();
             this.setName("Trident pulse source thread");
             this.setDaemon(true);
+            this.pulseSource = TridentConfig.getInstance().getPulseSource();
         }
 
         @Override
         public final void run() {
-            TridentConfig.PulseSource pulseSource = TridentConfig.getInstance().getPulseSource();
-            lastIterationTimeStamp = System.currentTimeMillis();
+            lastIterationTimeStamp = getCurrentTimeMillis();
             while (true) {
                 pulseSource.waitUntilNextPulse();
                 updateTimelines();
@@ -198,6 +273,11 @@ class TimelineEngine {
                 } catch (Throwable t) {
                     t.printStackTrace();
                 }
+                if (!pulseInProgress && callbackQueue.isEmpty()) {
+                    // callbacks scheduled outside of a pulse, such as state changes
+                    // on play and cancel requests
+                    flushUICallbacks(0);
+                }
             }
         }
     }
@@ -208,8 +288,8 @@ class TimelineEngine {
      * @see #getInstance()
      */
     private TimelineEngine() {
-        this.runningTimelines = new HashSet<Timeline>();
-        this.runningScenarios = new HashSet<TimelineScenario>();
+        this.runningTimelines = ConcurrentHashMap.newKeySet();
+        this.runningScenarios = ConcurrentHashMap.newKeySet();
 
         this.callbackQueue = new LinkedBlockingQueue<Runnable>();
         this.callbackThread = this.getCallbackThread();
@@ -231,43 +311,49 @@ class TimelineEngine {
      * Updates all timelines that are currently registered with <code>this</code> tracker.
      */
     void updateTimelines() {
-        synchronized (LOCK) {
-            if ((this.runningTimelines.size() == 0) && (this.runningScenarios.size() == 0)) {
-                this.lastIterationTimeStamp = System.currentTimeMillis();
-                return;
-            }
+        if ((this.runningTimelines.size() == 0) && (this.runningScenarios.size() == 0)) {
+            this.lastIterationTimeStamp = getCurrentTimeMillis();
+            return;
+        }
+        this.pulseInProgress = true;
 
-            long passedSinceLastIteration = (System.currentTimeMillis()
-                    - this.lastIterationTimeStamp);
-            if (passedSinceLastIteration < 0) {
-                // ???
-                passedSinceLastIteration = 0;
-            }
-            if (DEBUG_MODE) {
-                System.out.println(
-                        "Elapsed since last iteration: " + passedSinceLastIteration + "ms");
-            }
+        long passedSinceLastIteration = (getCurrentTimeMillis()
+                - this.lastIterationTimeStamp);
+        if (passedSinceLastIteration < 0) {
+            // ???
+            passedSinceLastIteration = 0;
+        }
+        if (DEBUG_MODE) {
+            System.out.println(
+                    "Elapsed since last iteration: " + passedSinceLastIteration + "ms");
+        }
+
+        // System.err.println("Periodic update on "
+        // + this.runningTimelines.size() + " timelines; "
+        // + passedSinceLastIteration + " ms passed since last");
+        // for (Timeline t : runningTimelines) {
+        // if (t.mainObject != null
+        // && t.mainObject.getClass().getName().indexOf(
+        // "ProgressBar") >= 0) {
+        // continue;
+        // }
+        // System.err.println("\tTimeline @"
+        // + t.hashCode()
+        // + " ["
+        // + t.getName()
+        // + "] on "
+        // + (t.mainObject == null ? "null" : t.mainObject
+        // .getClass().getName()));
+        // }
+        for (Iterator<Timeline> itTimeline = this.runningTimelines.iterator(); itTimeline
+                .hasNext();) {
+            Timeline timeline = itTimeline.next();
+            synchronized (timeline.engineLock) {
+                if (!this.runningTimelines.contains(timeline)) {
+                    // removed by a control operation on another thread
+                    continue;
+                }
 
-            // System.err.println("Periodic update on "
-            // + this.runningTimelines.size() + " timelines; "
-            // + passedSinceLastIteration + " ms passed since last");
-            // for (Timeline t : runningTimelines) {
-            // if (t.mainObject != null
-            // && t.mainObject.getClass().getName().indexOf(
-            // "ProgressBar") >= 0) {
-            // continue;
-            // }
-            // System.err.println("\tTimeline @"
-            // + t.hashCode()
-            // + " ["
-            // + t.getName()
-            // + "] on "
-            // + (t.mainObject == null ? "null" : t.mainObject
-            // .getClass().getName()));
-            // }
-            for (Iterator<Timeline> itTimeline = this.runningTimelines.iterator(); itTimeline
-                    .hasNext();) {
-                Timeline timeline = itTimeline.next();
                 if (timeline.getState() == TimelineState.SUSPENDED)
                     continue;
 
@@ -302,7 +388,7 @@ class TimelineEngine {
                 case PLAYING_FORWARD:
                     if (!timelineWasInReadyState) {
                         timeline.durationFraction = timeline.durationFraction
-                                + (float) passedSinceLastIteration / (float) timeline.duration;
+                                + getDurationFractionStep(timeline, passedSinceLastIteration);
                     }
                     timeline.timelinePosition = timeline.ease.map(timeline.durationFraction);
                     if (DEBUG_MODE) {
@@ -360,7 +446,7 @@ class TimelineEngine {
                 case PLAYING_REVERSE:
                     if (!timelineWasInReadyState) {
                         timeline.durationFraction = timeline.durationFraction
-                                - (float) passedSinceLastIteration / (float) timeline.duration;
+                                - getDurationFractionStep(timeline, passedSinceLastIteration);
                     }
                     timeline.timelinePosition = timeline.ease.map(timeline.durationFraction);
                     // state.timelinePosition = state.timelinePosition
@@ -431,7 +517,9 @@ class TimelineEngine {
                     this.callbackCallTimelinePulse(timeline);
                 }
             }
+        }
 
+        synchronized (LOCK) {
             if (this.runningScenarios.size() > 0) {
                 // System.err.println(Thread.currentThread().getName()
                 // + " : updating");
@@ -456,11 +544,45 @@ class TimelineEngine {
                     }
                 }
             }
-            // System.err.println("Periodic update done");
+        }
+        // System.err.println("Periodic update done");
+
+        // this.nothingTracked = (this.runningTimelines.size() == 0);
+        this.lastIterationTimeStamp = getCurrentTimeMillis();
+        // Clear the flag before queuing the end of pulse marker. Otherwise a callback that
+        // is queued after the marker while the flag is still set is never dispatched
+        this.pulseInProgress = false;
+        this.callbackCallPulseEnded();
+    }
 
-            // this.nothingTracked = (this.runningTimelines.size() == 0);
-            this.lastIterationTimeStamp = System.currentTimeMillis();
+    /**
+     * Returns the change in the duration fraction of the specified timeline after the
+     * specified time. Timelines with zero duration complete on the first pulse.
+     */
+    private static float getDurationFractionStep(Timeline timeline, long passedMillis) {
+        if (timeline.duration <= 0) {
+            return Float.POSITIVE_INFINITY;
         }
+        return (float) passedMillis / (float) timeline.duration;
+    }
+
+    /**
+     * Returns the current time in milliseconds from a monotonic clock.
+     * 
+     * @return The current time in milliseconds from a monotonic clock.
+     */
+    private static long getCurrentTimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    /**
+     * Returns indication whether there are running timelines or scenarios.
+     * 
+     * @return <code>true</code> if there are running timelines or scenarios,
+     *         <code>false</code> otherwise.
+     */
+    boolean hasRunningTimelines() {
+        return !this.runningTimelines.isEmpty() || !this.runningScenarios.isEmpty();
     }
 
     private void callbackCallTimelineStateChanged(final Timeline timeline,
@@ -469,19 +591,14 @@ class TimelineEngine {
         final float durationFraction = timeline.durationFraction;
         final float timelinePosition = timeline.timelinePosition;
         Runnable callbackRunnable = () -> {
-            boolean shouldRunOnUIThread = false;
-            Class<?> clazz = timeline.callbackChain.getClass();
-            while ((clazz != null) && !shouldRunOnUIThread) {
-                shouldRunOnUIThread = clazz.isAnnotationPresent(RunOnUIThread.class);
-                clazz = clazz.getSuperclass();
-            }
-            if (shouldRunOnUIThread && (timeline.uiToolkitHandler != null)) {
+            if (shouldRunOnUIThread(timeline.callbackChain)
+                    && (timeline.uiToolkitHandler != null)) {
                 if (DEBUG_MODE) {
                     System.out.println("Scheduling callback state change from " + oldState.name()
                             + " to " + newState.name() + " on timeline " + timeline.id);
                 }
                 // System.out.println("Will update from " + oldState + " to " + newState);
-                timeline.uiToolkitHandler.runOnUIThread(timeline.mainObject,
+                this.runOnUIThread(timeline.uiToolkitHandler, timeline.mainObject,
                         () -> timeline.callbackChain.onTimelineStateChanged(oldState, newState,
                                 durationFraction, timelinePosition));
             } else {
@@ -505,14 +622,9 @@ class TimelineEngine {
         final float durationFraction = timeline.durationFraction;
         final float timelinePosition = timeline.timelinePosition;
         Runnable callbackRunnable = () -> {
-            boolean shouldRunOnUIThread = false;
-            Class<?> clazz = timeline.callbackChain.getClass();
-            while ((clazz != null) && !shouldRunOnUIThread) {
-                shouldRunOnUIThread = clazz.isAnnotationPresent(RunOnUIThread.class);
-                clazz = clazz.getSuperclass();
-            }
-            if (shouldRunOnUIThread && (timeline.uiToolkitHandler != null)) {
-                timeline.uiToolkitHandler.runOnUIThread(timeline.mainObject,
+            if (shouldRunOnUIThread(timeline.callbackChain)
+                    && (timeline.uiToolkitHandler != null)) {
+                this.runOnUIThread(timeline.uiToolkitHandler, timeline.mainObject,
                         () -> timeline.callbackChain.onTimelinePulse(durationFraction,
                                 timelinePosition));
             } else {
@@ -527,6 +639,143 @@ class TimelineEngine {
         this.callbackQueue.offer(callbackRunnable);
     }
 
+    private void callbackCallPulseEnded() {
+        final long pulseTime = System.nanoTime();
+        this.maxCallbackQueueDepth.accumulate(this.callbackQueue.size());
+        this.callbackQueue.add(() -> this.flushUICallbacks(pulseTime));
+    }
+
+    /**
+     * Returns indication whether the specified callback should run on the UI thread.
+     * 
+     * @param callback
+     *            Timeline callback.
+     * @return <code>true</code> if the class of the specified callback or one of its
+     *         superclasses is annotated with {@link RunOnUIThread}, <code>false</code>
+     *         otherwise.
+     */
+    static boolean shouldRunOnUIThread(Object callback) {
+        return RUN_ON_UI_THREAD.get(callback.getClass());
+    }
+
+    /**
+     * Runs the specified runnable on the UI thread of the specified toolkit handler. When
+     * called on the callback thread with batching enabled, the runnable is queued and
+     * dispatched together with all other UI callbacks of the same pulse.
+     * 
+     * @param uiToolkitHandler
+     *            UI toolkit handler.
+     * @param mainObject
+     *            Main object of the timeline.
+     * @param runnable
+     *            Runnable to run on the UI thread.
+     */
+    void runOnUIThread(UIToolkitHandler uiToolkitHandler, Object mainObject, Runnable runnable) {
+        if (!this.uiCallbackBatching || (Thread.currentThread() != this.callbackThread)) {
+            uiToolkitHandler.runOnUIThread(mainObject, runnable);
+            return;
+        }
+        UICallbackBatch batch = this.uiCallbackBatches.get(uiToolkitHandler);
+        if (batch == null) {
+            batch = new UICallbackBatch();
+            this.uiCallbackBatches.put(uiToolkitHandler, batch);
+        }
+        if (batch.runnables.isEmpty()) {
+            batch.mainObject = mainObject;
+        }
+        batch.runnables.add(runnable);
+    }
+
+    /**
+     * Dispatches all pending UI callbacks. Called on the callback thread.
+     * 
+     * @param pulseTime
+     *            Value of {@link System#nanoTime()} at the end of the pulse that scheduled
+     *            the callbacks, or 0 if the callbacks were not scheduled by a pulse.
+     */
+    private void flushUICallbacks(final long pulseTime) {
+        boolean dispatched = false;
+        for (Map.Entry<UIToolkitHandler, UICallbackBatch> entry : this.uiCallbackBatches
+                .entrySet()) {
+            UICallbackBatch batch = entry.getValue();
+            if (batch.runnables.isEmpty()) {
+                continue;
+            }
+            final Runnable[] runnables = batch.runnables.toArray(new Runnable[0]);
+            Object mainObject = batch.mainObject;
+            batch.runnables.clear();
+            batch.mainObject = null;
+
+            this.uiCallbackBatchCount.increment();
+            this.batchedUICallbackCount.add(runnables.length);
+            dispatched = true;
+            entry.getKey().runOnUIThread(mainObject, () -> {
+                if (pulseTime != 0) {
+                    this.recordCallbackLatency(pulseTime);
+                }
+                for (Runnable runnable : runnables) {
+                    try {
+                        runnable.run();
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    }
+                }
+                if (pulseTime != 0) {
+                    this.recordFrameTime(pulseTime);
+                }
+            });
+        }
+        if (!dispatched && (pulseTime != 0)) {
+            this.recordCallbackLatency(pulseTime);
+            this.recordFrameTime(pulseTime);
+        }
+    }
+
+    private void recordFrameTime(long pulseTime) {
+        long frameTime = System.nanoTime() - pulseTime;
+        this.recentFrameTimeNanos += 0.2 * (frameTime - this.recentFrameTimeNanos);
+    }
+
+    int getRunningTimelineCount() {
+        return this.runningTimelines.size();
+    }
+
+    double getRecentFrameTimeNanos() {
+        return this.recentFrameTimeNanos;
+    }
+
+    private void recordCallbackLatency(long pulseTime) {
+        long latency = System.nanoTime() - pulseTime;
+        this.callbackLatencyNanos.add(latency);
+        this.callbackLatencyCount.increment();
+        this.maxCallbackLatencyNanos.accumulate(latency);
+    }
+
+    int getCallbackQueueDepth() {
+        return this.callbackQueue.size();
+    }
+
+    long getMaxCallbackQueueDepth() {
+        return this.maxCallbackQueueDepth.get();
+    }
+
+    double getAverageCallbackLatencyNanos() {
+        long count = this.callbackLatencyCount.sum();
+        return (count == 0) ? 0.0 : (double) this.callbackLatencyNanos.sum() / count;
+    }
+
+    long getMaxCallbackLatencyNanos() {
+        return this.maxCallbackLatencyNanos.get();
+    }
+
+    long getUICallbackBatchCount() {
+        return this.uiCallbackBatchCount.sum();
+    }
+
+    long getBatchedUICallbackCount() {
+        return this.batchedUICallbackCount.sum();
+    }
+
     /**
      * Returns an existing running timeline that matches the specified parameters.
      * 
@@ -535,11 +784,9 @@ class TimelineEngine {
      * @return An existing running timeline that matches the specified parameters.
      */
     private Timeline getRunningTimeline(Timeline timeline) {
-        synchronized (LOCK) {
-            if (this.runningTimelines.contains(timeline))
-                return timeline;
-            return null;
-        }
+        if (this.runningTimelines.contains(timeline))
+            return timeline;
+        return null;
     }
 
     /**
@@ -549,23 +796,26 @@ class TimelineEngine {
      *            Timeline to add.
      */
     private void addTimeline(Timeline timeline) {
-        synchronized (LOCK) {
-            FullObjectID cid = new FullObjectID(timeline.mainObject, timeline.secondaryId);
-            timeline.fullObjectID = cid;
-            this.runningTimelines.add(timeline);
-            // this.nothingTracked = false;
-            if (DEBUG_MODE) {
-                System.out.println(
-                        "Added (" + timeline.id + ") on [" + timeline.fullObjectID + "]. State - "
-                        // + timeline.timelineKind.toString() + " with state "
-                                + timeline.getState().name() + ". Callback - "
-                                + (timeline.callbackChain == null ? "no" : "yes"));
-            }
+        if (!this.hasRunningTimelines()) {
+            // the pulse source may have been idle for a long time
+            this.lastIterationTimeStamp = getCurrentTimeMillis();
+        }
+        FullObjectID cid = new FullObjectID(timeline.mainObject, timeline.secondaryId);
+        timeline.fullObjectID = cid;
+        this.runningTimelines.add(timeline);
+        this.wakeUpAnimatorThread();
+        // this.nothingTracked = false;
+        if (DEBUG_MODE) {
+            System.out.println(
+                    "Added (" + timeline.id + ") on [" + timeline.fullObjectID + "]. State - "
+                    // + timeline.timelineKind.toString() + " with state "
+                            + timeline.getState().name() + ". Callback - "
+                            + (timeline.callbackChain == null ? "no" : "yes"));
         }
     }
 
     void play(Timeline timeline, boolean reset, long msToSkip) {
-        synchronized (LOCK) {
+        synchronized (timeline.engineLock) {
             getAnimatorThread();
 
             // see if it's already tracked
@@ -618,7 +868,11 @@ class TimelineEngine {
 
             // System.err.println(Thread.currentThread().getName() +
             // " : adding");
+            if (!this.hasRunningTimelines()) {
+                this.lastIterationTimeStamp = getCurrentTimeMillis();
+            }
             this.runningScenarios.add(scenario);
+            this.wakeUpAnimatorThread();
             for (TimelineScenario.TimelineScenarioActor readyActor : readyActors) {
                 readyActor.play();
             }
@@ -626,7 +880,7 @@ class TimelineEngine {
     }
 
     void playReverse(Timeline timeline, boolean reset, long msToSkip) {
-        synchronized (LOCK) {
+        synchronized (timeline.engineLock) {
             getAnimatorThread();
             if (timeline.isLooping) {
                 throw new IllegalArgumentException("Timeline must not be marked as looping");
@@ -676,7 +930,7 @@ class TimelineEngine {
     }
 
     void playLoop(Timeline timeline, long msToSkip) {
-        synchronized (LOCK) {
+        synchronized (timeline.engineLock) {
             getAnimatorThread();
             if (!timeline.isLooping) {
                 throw new IllegalArgumentException("Timeline must be marked as looping");
@@ -716,19 +970,14 @@ class TimelineEngine {
      */
     public void cancelAllTimelines() {
         synchronized (LOCK) {
-            getAnimatorThread();
-            for (Timeline timeline : this.runningTimelines) {
-                TimelineState oldState = timeline.getState();
-                while (timeline.getState() != TimelineState.IDLE)
-                    timeline.popState();
-                timeline.pushState(TimelineState.CANCELLED);
-                this.callbackCallTimelineStateChanged(timeline, oldState);
-                timeline.popState();
-                this.callbackCallTimelineStateChanged(timeline, TimelineState.CANCELLED);
-            }
-            this.runningTimelines.clear();
             this.runningScenarios.clear();
         }
+        getAnimatorThread();
+        for (Timeline timeline : this.runningTimelines) {
+            synchronized (timeline.engineLock) {
+                this.cancelTimeline(timeline);
+            }
+        }
     }
 
     /**
@@ -737,11 +986,27 @@ class TimelineEngine {
      * @return The animator thread.
      */
     private TridentAnimationThread getAnimatorThread() {
-        if (this.animatorThread == null) {
-            this.animatorThread = new TridentAnimationThread();
-            this.animatorThread.start();
+        TridentAnimationThread result = this.animatorThread;
+        if (result == null) {
+            synchronized (this) {
+                result = this.animatorThread;
+                if (result == null) {
+                    result = new TridentAnimationThread();
+                    result.start();
+                    this.animatorThread = result;
+                }
+            }
         }
-        return this.animatorThread;
+        return result;
+    }
+
+    /**
+     * Wakes up the animator thread if its pulse source is waiting for a timeline or a scenario
+     * to be played. Must be called after the timeline or the scenario has been registered, so
+     * that the pulse source sees it once it is woken up.
+     */
+    private void wakeUpAnimatorThread() {
+        getAnimatorThread().pulseSource.wakeUp();
     }
 
     /**
@@ -860,7 +1125,7 @@ class TimelineEngine {
     @SuppressWarnings("incomplete-switch")
     void runTimelineOperation(Timeline timeline, TimelineOperationKind operationKind,
             Runnable operationRunnable) {
-        synchronized (LOCK) {
+        synchronized (timeline.engineLock) {
             this.getAnimatorThread();
             switch (operationKind) {
             case CANCEL:
@@ -890,5 +1155,10 @@ class TimelineEngine {
         }
     }
 
+    /**
+     * Guards the state of running scenarios. Scenario code may play, cancel, suspend or resume
+     * timelines while holding this lock, so it must never be acquired while holding the
+     * {@link Timeline#engineLock} of a timeline.
+     */
     static final Object LOCK = new Object();
 }
@@ -29,12 +29,10 @@
  */
 package org.pushingpixels.trident;
 
+import org.pushingpixels.trident.interpolator.CorePropertyInterpolators;
 import org.pushingpixels.trident.interpolator.KeyFrames;
 import org.pushingpixels.trident.interpolator.PropertyInterpolator;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-
 public class TimelinePropertyBuilder<T> {
 
     /**
@@ -44,6 +42,30 @@ public class TimelinePropertyBuilder<T> {
         public void set(Object obj, String fieldName, T value);
     }
 
+    /**
+     * Defines how to set a <code>float</code> property without boxing the value.
+     */
+    public static interface FloatPropertySetter extends PropertySetter<Float> {
+        public void setFloat(Object obj, String fieldName, float value);
+
+        @Override
+        default void set(Object obj, String fieldName, Float value) {
+            this.setFloat(obj, fieldName, value);
+        }
+    }
+
+    /**
+     * Defines how to set an <code>int</code> property without boxing the value.
+     */
+    public static interface IntPropertySetter extends PropertySetter<Integer> {
+        public void setInt(Object obj, String fieldName, int value);
+
+        @Override
+        default void set(Object obj, String fieldName, Integer value) {
+            this.setInt(obj, fieldName, value);
+        }
+    }
+
     /**
      * Defines how to get a property.
      */
@@ -61,15 +83,15 @@ public class TimelinePropertyBuilder<T> {
      * Default property setter.
      */
     public static class DefaultPropertySetter<T> implements PropertySetter<T> {
-        private Method setterMethod;
+        private PropertyAccessors.Accessor setter;
 
         public DefaultPropertySetter(Object obj, String fieldName) {
-            setterMethod = getSetter(obj, fieldName);
+            setter = PropertyAccessors.getSetter(obj.getClass(), fieldName);
         }
 
         public void set(Object obj, String fieldName, T value) {
             try {
-                setterMethod.invoke(obj, value);
+                setter.set(obj, value);
             } catch (Throwable t) {
                 throw new RuntimeException(
                         "Unable to set the value of the field '" + fieldName + "'", t);
@@ -81,15 +103,15 @@ public class TimelinePropertyBuilder<T> {
      * Default property getter.
      */
     public static class DefaultPropertyGetter<T> implements PropertyGetter<T> {
-        private Method getterMethod;
+        private PropertyAccessors.Accessor getter;
 
         public DefaultPropertyGetter(Object obj, String fieldName) {
-            getterMethod = getGetter(obj, fieldName);
+            getter = PropertyAccessors.getGetter(obj.getClass(), fieldName);
         }
 
         public T get(Object obj, String fieldName) {
             try {
-                return (T) getterMethod.invoke(obj);
+                return (T) getter.get(obj);
             } catch (Throwable t) {
                 throw new RuntimeException(
                         "Unable to get the value of the field '" + fieldName + "'", t);
@@ -214,6 +236,14 @@ public class TimelinePropertyBuilder<T> {
         }
 
         if (this.keyFrames != null) {
+            if (this.keyFrames.hasFloatValues()) {
+                FloatPropertySetter floatSetter = getFloatPropertySetter(this.target,
+                        this.propertyName, this.setter);
+                if (floatSetter != null) {
+                    return new FloatKeyFramesFieldInfo(this.target, this.propertyName,
+                            this.keyFrames, floatSetter);
+                }
+            }
             return new KeyFramesFieldInfo(this.target, this.propertyName, this.keyFrames,
                     this.setter);
         }
@@ -240,6 +270,24 @@ public class TimelinePropertyBuilder<T> {
                         + this.from.getClass().getName() + ":" + this.to.getClass().getName());
             }
         }
+        if (CorePropertyInterpolators.isFloatInterpolator(this.interpolator)
+                && (this.from instanceof Float) && (this.to instanceof Float)) {
+            FloatPropertySetter floatSetter = getFloatPropertySetter(this.target,
+                    this.propertyName, this.setter);
+            if (floatSetter != null) {
+                return new FloatFieldInfo(this.target, this.propertyName, (Float) this.from,
+                        (Float) this.to, floatSetter);
+            }
+        }
+        if (CorePropertyInterpolators.isIntegerInterpolator(this.interpolator)
+                && (this.from instanceof Integer) && (this.to instanceof Integer)) {
+            IntPropertySetter intSetter = getIntPropertySetter(this.target,
+                    this.propertyName, this.setter);
+            if (intSetter != null) {
+                return new IntFieldInfo(this.target, this.propertyName, (Integer) this.from,
+                        (Integer) this.to, intSetter);
+            }
+        }
         return new GenericFieldInfo(this.target, this.propertyName, this.from, this.to,
                 this.interpolator, this.setter);
     }
@@ -289,6 +337,60 @@ public class TimelinePropertyBuilder<T> {
         return new DefaultPropertySetter(obj, fieldName);
     }
 
+    /**
+     * Returns a setter that does not box <code>float</code> values, or <code>null</code> if
+     * the property can only be set with boxed values.
+     */
+    private static FloatPropertySetter getFloatPropertySetter(Object obj, String fieldName,
+            PropertySetter<?> pSetter) {
+        if (pSetter instanceof FloatPropertySetter) {
+            return (FloatPropertySetter) pSetter;
+        }
+        if (pSetter != null) {
+            return null;
+        }
+        PropertyAccessors.Accessor accessor = PropertyAccessors.getSetter(obj.getClass(),
+                fieldName);
+        if ((accessor == null) || (accessor.floatHandle == null)) {
+            return null;
+        }
+        return (Object target, String name, float value) -> {
+            try {
+                accessor.floatHandle.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new RuntimeException("Unable to set the value of the field '" + name + "'",
+                        t);
+            }
+        };
+    }
+
+    /**
+     * Returns a setter that does not box <code>int</code> values, or <code>null</code> if the
+     * property can only be set with boxed values.
+     */
+    private static IntPropertySetter getIntPropertySetter(Object obj, String fieldName,
+            PropertySetter<?> pSetter) {
+        if (pSetter instanceof IntPropertySetter) {
+            return (IntPropertySetter) pSetter;
+        }
+        if (pSetter != null) {
+            return null;
+        }
+        PropertyAccessors.Accessor accessor = PropertyAccessors.getSetter(obj.getClass(),
+                fieldName);
+        if ((accessor == null) || (accessor.intHandle == null)) {
+            return null;
+        }
+        return (Object target, String name, int value) -> {
+            try {
+                accessor.intHandle.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new RuntimeException("Unable to set the value of the field '" + name + "'",
+                        t);
+            }
+        };
+    }
+
     private class GenericFieldInfoTo extends AbstractFieldInfo<Object> {
         private PropertyInterpolator propertyInterpolator;
 
@@ -379,36 +481,99 @@ public class TimelinePropertyBuilder<T> {
         }
     }
 
-    private static Method getSetter(Object object, String propertyName) {
-        String setterMethodName = "set" + Character.toUpperCase(propertyName.charAt(0))
-                + propertyName.substring(1);
-        Class oClazz = object.getClass();
-        while (oClazz != null) {
-            for (Method m : oClazz.getMethods()) {
-                if (setterMethodName.equals(m.getName()) && (m.getParameterTypes().length == 1)
-                        && (m.getReturnType() == Void.TYPE)
-                        && (!Modifier.isStatic(m.getModifiers()))) {
-                    return m;
-                }
+    private class FloatFieldInfo extends AbstractFieldInfo<Float> {
+        private final float fromValue;
+
+        private final float toValue;
+
+        private final FloatPropertySetter floatSetter;
+
+        FloatFieldInfo(Object obj, String fieldName, float from, float to,
+                FloatPropertySetter floatSetter) {
+            super(obj, fieldName, null, floatSetter);
+            this.fromValue = from;
+            this.toValue = to;
+            this.floatSetter = floatSetter;
+            this.setValues(from, to);
+        }
+
+        @Override
+        void onStart() {
+        }
+
+        @Override
+        void updateFieldValue(float timelinePosition) {
+            try {
+                float value = this.fromValue + (this.toValue - this.fromValue) * timelinePosition;
+                this.floatSetter.setFloat(this.object, this.fieldName, value);
+            } catch (Throwable exc) {
+                System.err.println("Exception occurred in updating field '" + this.fieldName
+                        + "' of object " + this.object.getClass().getCanonicalName()
+                        + " at timeline position " + timelinePosition);
+                exc.printStackTrace();
             }
-            oClazz = oClazz.getSuperclass();
         }
-        return null;
     }
 
-    private static Method getGetter(Object object, String propertyName) {
-        String getterMethodName = "get" + Character.toUpperCase(propertyName.charAt(0))
-                + propertyName.substring(1);
-        Class oClazz = object.getClass();
-        while (oClazz != null) {
-            for (Method m : oClazz.getMethods()) {
-                if (getterMethodName.equals(m.getName()) && (m.getParameterTypes().length == 0)
-                        && (!Modifier.isStatic(m.getModifiers()))) {
-                    return m;
-                }
+    private class IntFieldInfo extends AbstractFieldInfo<Integer> {
+        private final int fromValue;
+
+        private final int toValue;
+
+        private final IntPropertySetter intSetter;
+
+        IntFieldInfo(Object obj, String fieldName, int from, int to,
+                IntPropertySetter intSetter) {
+            super(obj, fieldName, null, intSetter);
+            this.fromValue = from;
+            this.toValue = to;
+            this.intSetter = intSetter;
+            this.setValues(from, to);
+        }
+
+        @Override
+        void onStart() {
+        }
+
+        @Override
+        void updateFieldValue(float timelinePosition) {
+            try {
+                int value = (int) (this.fromValue
+                        + (this.toValue - this.fromValue) * timelinePosition);
+                this.intSetter.setInt(this.object, this.fieldName, value);
+            } catch (Throwable exc) {
+                System.err.println("Exception occurred in updating field '" + this.fieldName
+                        + "' of object " + this.object.getClass().getCanonicalName()
+                        + " at timeline position " + timelinePosition);
+                exc.printStackTrace();
+            }
+        }
+    }
+
+    private class FloatKeyFramesFieldInfo extends AbstractFieldInfo<Float> {
+        private final KeyFrames<?> keyFrames;
+
+        private final FloatPropertySetter floatSetter;
+
+        FloatKeyFramesFieldInfo(Object obj, String fieldName, KeyFrames<?> keyFrames,
+                FloatPropertySetter floatSetter) {
+            super(obj, fieldName, null, floatSetter);
+            this.keyFrames = keyFrames;
+            this.floatSetter = floatSetter;
+        }
+
+        @Override
+        void onStart() {
+        }
+
+        @Override
+        void updateFieldValue(float timelinePosition) {
+            try {
+                float value = this.keyFrames.getFloatValue(timelinePosition);
+                this.floatSetter.setFloat(this.object, this.fieldName, value);
+            } catch (Throwable exc) {
+                exc.printStackTrace();
             }
-            oClazz = oClazz.getSuperclass();
         }
-        return null;
     }
 }
@@ -40,6 +40,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public class TridentConfig {
     private static TridentConfig config;
@@ -52,6 +54,14 @@ public class TridentConfig {
 
     public interface PulseSource {
         public void waitUntilNextPulse();
+
+        /**
+         * Called by the timeline engine after a timeline or a scenario has been added to the
+         * running animations. Pulse sources that stop pulsing while there is no running
+         * animation should resume pulsing. The default implementation does nothing.
+         */
+        default void wakeUp() {
+        }
     }
 
     public static class FixedRatePulseSource implements TridentConfig.PulseSource {
@@ -71,9 +81,125 @@ public class TridentConfig {
         }
     }
 
-    private class DefaultPulseSource extends FixedRatePulseSource {
+    /**
+     * Pulse source that schedules pulses against a monotonic deadline. Unlike
+     * {@link FixedRatePulseSource}, the time spent processing a pulse is not added to the
+     * delay before the next one, so the pulse rate does not drift below the target frame
+     * rate. A pulse that is late by more than one frame moves the deadline to the current
+     * time instead of trying to catch up with a burst of pulses. While there are no running
+     * timelines or scenarios, this pulse source parks the pulse thread until
+     * {@link #wakeUp()} is called by the engine.
+     */
+    public static class AdaptivePulseSource implements TridentConfig.PulseSource {
+        /**
+         * Weight of the latest sample in the running averages.
+         */
+        private static final double SMOOTHING = 0.1;
+
+        private final long frameNanos;
+
+        private volatile Thread pulseThread;
+
+        private long nextDeadline;
+
+        private long lastPulse;
+
+        private volatile double averageFrameNanos;
+
+        private volatile double averageJitterNanos;
+
+        /**
+         * Creates a new pulse source.
+         *
+         * @param targetFrameRate Target number of pulses per second.
+         */
+        public AdaptivePulseSource(int targetFrameRate) {
+            if (targetFrameRate <= 0) {
+                throw new IllegalArgumentException("Frame rate must be positive");
+            }
+            this.frameNanos = TimeUnit.SECONDS.toNanos(1) / targetFrameRate;
+            this.averageFrameNanos = this.frameNanos;
+        }
+
+        @Override
+        public void waitUntilNextPulse() {
+            this.pulseThread = Thread.currentThread();
+
+            boolean wasIdle = false;
+            while (!TimelineEngine.getInstance().hasRunningTimelines()) {
+                wasIdle = true;
+                LockSupport.park(this);
+            }
+
+            long now = System.nanoTime();
+            if (wasIdle || (this.lastPulse == 0)) {
+                // start a new sequence of pulses without waiting for the full frame
+                this.nextDeadline = now;
+                this.lastPulse = 0;
+            } else {
+                this.nextDeadline += this.frameNanos;
+                if (now - this.nextDeadline > this.frameNanos) {
+                    // too late to make up for the missed frames
+                    this.nextDeadline = now;
+                }
+            }
+
+            long remaining;
+            while ((remaining = this.nextDeadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            now = System.nanoTime();
+            if (this.lastPulse != 0) {
+                long frame = now - this.lastPulse;
+                this.averageFrameNanos += SMOOTHING * (frame - this.averageFrameNanos);
+                this.averageJitterNanos += SMOOTHING
+                        * (Math.abs(frame - this.frameNanos) - this.averageJitterNanos);
+            }
+            this.lastPulse = now;
+        }
+
+        @Override
+        public void wakeUp() {
+            Thread thread = this.pulseThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * Returns the target number of pulses per second.
+         *
+         * @return The target number of pulses per second.
+         */
+        public double getTargetFrameRate() {
+            return (double) TimeUnit.SECONDS.toNanos(1) / this.frameNanos;
+        }
+
+        /**
+         * Returns the running average of the achieved number of pulses per second while
+         * there are running timelines.
+         *
+         * @return The achieved number of pulses per second.
+         */
+        public double getAchievedFrameRate() {
+            return TimeUnit.SECONDS.toNanos(1) / this.averageFrameNanos;
+        }
+
+        /**
+         * Returns the running average of the difference between the actual and the target
+         * time between two pulses.
+         *
+         * @return The average pulse jitter in milliseconds.
+         */
+        public double getJitterMillis() {
+            return this.averageJitterNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    private class DefaultPulseSource extends AdaptivePulseSource {
         DefaultPulseSource() {
-            super(40);
+            super(60);
         }
     }
 
@@ -155,4 +281,108 @@ public class TridentConfig {
     public synchronized TridentConfig.PulseSource getPulseSource() {
         return pulseSource;
     }
+
+    /**
+     * Sets indication whether callbacks that run on the UI thread are batched. When batching
+     * is enabled (the default), all UI thread callbacks scheduled during a single pulse are
+     * dispatched as a single runnable per UI toolkit handler instead of one runnable per
+     * timeline callback.
+     * 
+     * @param uiCallbackBatching
+     *            If <code>true</code>, UI thread callbacks are batched.
+     */
+    public void setUICallbackBatching(boolean uiCallbackBatching) {
+        TimelineEngine.getInstance().uiCallbackBatching = uiCallbackBatching;
+    }
+
+    /**
+     * Returns indication whether callbacks that run on the UI thread are batched.
+     * 
+     * @return <code>true</code> if UI thread callbacks are batched, <code>false</code>
+     *         otherwise.
+     * @see #setUICallbackBatching(boolean)
+     */
+    public boolean isUICallbackBatching() {
+        return TimelineEngine.getInstance().uiCallbackBatching;
+    }
+
+    /**
+     * Returns the number of timeline callbacks waiting to run on the callback thread.
+     * 
+     * @return The number of pending timeline callbacks.
+     */
+    public int getCallbackQueueDepth() {
+        return TimelineEngine.getInstance().getCallbackQueueDepth();
+    }
+
+    /**
+     * Returns the largest number of pending timeline callbacks observed at the end of a
+     * pulse.
+     * 
+     * @return The largest observed number of pending timeline callbacks.
+     */
+    public long getMaxCallbackQueueDepth() {
+        return TimelineEngine.getInstance().getMaxCallbackQueueDepth();
+    }
+
+    /**
+     * Returns the average time between the end of a pulse and the moment its callbacks start
+     * running on the UI thread.
+     * 
+     * @return The average callback latency in milliseconds.
+     */
+    public double getAverageCallbackLatencyMillis() {
+        return TimelineEngine.getInstance().getAverageCallbackLatencyNanos()
+                / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the longest observed time between the end of a pulse and the moment its
+     * callbacks start running on the UI thread.
+     * 
+     * @return The maximum callback latency in milliseconds.
+     */
+    public double getMaxCallbackLatencyMillis() {
+        return (double) TimelineEngine.getInstance().getMaxCallbackLatencyNanos()
+                / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns a running average of the time between the end of a pulse and the completion of
+     * the UI thread callbacks scheduled by that pulse. This includes the time that the
+     * callbacks waited for the UI thread, and grows when the UI thread is busy.
+     * 
+     * @return The recent frame time in milliseconds.
+     */
+    public double getRecentFrameTimeMillis() {
+        return TimelineEngine.getInstance().getRecentFrameTimeNanos()
+                / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the number of timelines that are currently running.
+     * 
+     * @return The number of running timelines.
+     */
+    public int getRunningTimelineCount() {
+        return TimelineEngine.getInstance().getRunningTimelineCount();
+    }
+
+    /**
+     * Returns the number of batches of UI thread callbacks dispatched so far.
+     * 
+     * @return The number of dispatched UI callback batches.
+     */
+    public long getUICallbackBatchCount() {
+        return TimelineEngine.getInstance().getUICallbackBatchCount();
+    }
+
+    /**
+     * Returns the number of UI thread callbacks dispatched in batches so far.
+     * 
+     * @return The number of batched UI callbacks.
+     */
+    public long getBatchedUICallbackCount() {
+        return TimelineEngine.getInstance().getBatchedUICallbackCount();
+    }
 }
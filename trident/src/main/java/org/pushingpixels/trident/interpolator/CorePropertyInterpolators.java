@@ -49,6 +49,28 @@ public class CorePropertyInterpolators implements PropertyInterpolatorSource {
         return Collections.unmodifiableSet(this.interpolators);
     }
 
+    /**
+     * Returns <code>true</code> if the specified interpolator is the core linear interpolator
+     * for <code>float</code> values. Such properties can be interpolated without boxing.
+     *
+     * @param interpolator Property interpolator.
+     * @return <code>true</code> if the specified interpolator is the core float interpolator.
+     */
+    public static boolean isFloatInterpolator(PropertyInterpolator<?> interpolator) {
+        return interpolator instanceof FloatPropertyInterpolator;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified interpolator is the core linear interpolator
+     * for <code>int</code> values. Such properties can be interpolated without boxing.
+     *
+     * @param interpolator Property interpolator.
+     * @return <code>true</code> if the specified interpolator is the core integer interpolator.
+     */
+    public static boolean isIntegerInterpolator(PropertyInterpolator<?> interpolator) {
+        return interpolator instanceof IntegerPropertyInterpolator;
+    }
+
     private static class FloatPropertyInterpolator implements PropertyInterpolator<Float> {
         @Override
         public Class getBasePropertyClass() {
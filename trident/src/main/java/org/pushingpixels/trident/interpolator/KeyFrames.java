@@ -209,9 +209,38 @@ public class KeyFrames<T> {
      * @return Value for the given fraction elapsed of the animation cycle.
      */
     public Object getValue(float fraction) {
+        int interval = getInterval(fraction);
+        return keyValues.getValue(interval, (interval + 1),
+                getInterpolatedFraction(interval, fraction));
+    }
+
+    /**
+     * Returns <code>true</code> if all the key values are floats interpolated by the core
+     * float interpolator. In this case {@link #getFloatValue(float)} can be used to compute
+     * the values without boxing.
+     *
+     * @return <code>true</code> if {@link #getFloatValue(float)} can be used.
+     */
+    public boolean hasFloatValues() {
+        return keyValues.hasFloatValues();
+    }
+
+    /**
+     * Unboxed variant of {@link #getValue(float)}. Can only be called if
+     * {@link #hasFloatValues()} returns <code>true</code>.
+     *
+     * @param fraction Fraction
+     * @return Value for the given fraction elapsed of the animation cycle.
+     */
+    public float getFloatValue(float fraction) {
+        int interval = getInterval(fraction);
+        return keyValues.getFloatValue(interval, (interval + 1),
+                getInterpolatedFraction(interval, fraction));
+    }
+
+    private float getInterpolatedFraction(int interval, float fraction) {
         // First, figure out the real fraction to use, given the
         // interpolation type and keyTimes
-        int interval = getInterval(fraction);
         float t0 = keyTimes.getTime(interval);
         float t1 = keyTimes.getTime(interval + 1);
         float t = (fraction - t0) / (t1 - t0);
@@ -222,7 +251,7 @@ public class KeyFrames<T> {
         } else if (interpolatedT > 1f) {
             interpolatedT = 1f;
         }
-        return keyValues.getValue(interval, (interval + 1), interpolatedT);
+        return interpolatedT;
     }
 
 }
@@ -65,6 +65,7 @@ public class KeyValues<T> {
     private final PropertyInterpolator<T> interpolator;
     private final Class<?> type;
     private T startValue;
+    private final float[] floatValues;
 
     /**
      * Constructs a KeyValues object from one or more values. The internal
@@ -126,6 +127,26 @@ public class KeyValues<T> {
         Collections.addAll(values, params);
         this.type = params.getClass().getComponentType();
         this.interpolator = interpolator;
+        this.floatValues = computeFloatValues(interpolator, params);
+    }
+
+    /**
+     * Returns the unboxed values when they are all floats interpolated by the core float
+     * interpolator, or <code>null</code> otherwise.
+     */
+    private static float[] computeFloatValues(PropertyInterpolator<?> interpolator,
+            Object[] params) {
+        if ((params.length < 2) || !CorePropertyInterpolators.isFloatInterpolator(interpolator)) {
+            return null;
+        }
+        float[] result = new float[params.length];
+        for (int i = 0; i < params.length; i++) {
+            if (!(params[i] instanceof Float)) {
+                return null;
+            }
+            result[i] = (Float) params[i];
+        }
+        return result;
     }
 
     /**
@@ -165,6 +186,27 @@ public class KeyValues<T> {
         return (values.get(0) == null);
     }
 
+    /**
+     * Returns <code>true</code> if {@link #getFloatValue(int, int, float)} can be used instead
+     * of {@link #getValue(int, int, float)}.
+     */
+    boolean hasFloatValues() {
+        return (this.floatValues != null);
+    }
+
+    /**
+     * Unboxed variant of {@link #getValue(int, int, float)}. Can only be called if
+     * {@link #hasFloatValues()} returns <code>true</code>.
+     */
+    float getFloatValue(int i0, int i1, float fraction) {
+        float v0 = this.floatValues[i0];
+        if (i0 == i1) {
+            return v0;
+        }
+        float v1 = this.floatValues[i1];
+        return v0 + (v1 - v0) * fraction;
+    }
+
     /**
      * Returns value calculated from the value at the lower index, the value at
      * the upper index, the fraction elapsed between these endpoints, and the